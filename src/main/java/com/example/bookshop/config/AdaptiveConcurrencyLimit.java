@@ -0,0 +1,94 @@
+package com.example.bookshop.config;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Адаптивный лимит одновременно обрабатываемых запросов по схеме AIMD.
+ * <p>
+ * Пока запросы укладываются в {@code targetLatencyMillis} и лимит действительно
+ * используется (занято не меньше половины), он растет на единицу за «раунд» из
+ * {@code limit} запросов. Медленный или завершившийся ошибкой перегрузки запрос
+ * умножает лимит на {@code backoffRatio}, но не чаще одного раза за «раунд»:
+ * запросы, начатые до предыдущего снижения, были допущены еще по старому лимиту
+ * и отражают ту же перегрузку, поэтому лимит повторно не снижают. Состояние
+ * меняется через CAS, без блокировок, поэтому обработка не закрепляет виртуальные потоки.
+ */
+final class AdaptiveConcurrencyLimit {
+
+    private static final long NEVER = Long.MIN_VALUE;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetLatencyNanos;
+    private final double backoffRatio;
+
+    /** Текущий лимит; хранится как биты double, чтобы обновлять его через CAS */
+    private final AtomicLong limitBits;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    /** Момент последнего снижения лимита ({@link System#nanoTime()}) или {@link #NEVER} */
+    private final AtomicLong lastBackoffAt = new AtomicLong(NEVER);
+
+    AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, long targetLatencyMillis, double backoffRatio) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMillis);
+        this.backoffRatio = backoffRatio;
+        double initial = Math.max(this.minLimit, Math.min(initialLimit, this.maxLimit));
+        this.limitBits = new AtomicLong(Double.doubleToLongBits(initial));
+    }
+
+    /**
+     * Пытается занять место для запроса
+     *
+     * @param share доля лимита (от 0 до 1), доступная классу запроса
+     * @return количество запросов в обработке до этого, или -1, если запрос нужно отклонить
+     */
+    int tryAcquire(double share) {
+        int capacity = Math.max(1, (int) (getLimit() * share));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= capacity) {
+                return -1;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return current;
+            }
+        }
+    }
+
+    /**
+     * Освобождает место и корректирует лимит по результату запроса
+     *
+     * @param startNanos начало обработки ({@link System#nanoTime()})
+     * @param endNanos конец обработки ({@link System#nanoTime()})
+     * @param inFlightAtStart значение, возвращенное {@link #tryAcquire(double)}
+     * @param overloaded запрос завершился ошибкой, вызванной перегрузкой
+     */
+    void release(long startNanos, long endNanos, int inFlightAtStart, boolean overloaded) {
+        inFlight.decrementAndGet();
+        if (overloaded || endNanos - startNanos > targetLatencyNanos) {
+            long last = lastBackoffAt.get();
+            // Из запросов, начатых после прошлого снижения, лимит снижает только первый завершившийся
+            if ((last == NEVER || startNanos - last >= 0) && lastBackoffAt.compareAndSet(last, endNanos)) {
+                updateLimit(limit -> Math.max(minLimit, limit * backoffRatio));
+            }
+        } else if (inFlightAtStart * 2 >= getLimit()) {
+            updateLimit(limit -> Math.min(maxLimit, limit + 1.0 / limit));
+        }
+    }
+
+    private void updateLimit(DoubleUnaryOperator update) {
+        limitBits.updateAndGet(bits -> Double.doubleToLongBits(update.applyAsDouble(Double.longBitsToDouble(bits))));
+    }
+
+    double getLimit() {
+        return Double.longBitsToDouble(limitBits.get());
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.bookshop.config;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.FilterConfig;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Фильтр допуска запросов с адаптивным лимитом параллельности ({@link AdaptiveConcurrencyLimit}).
+ * <p>
+ * Запросы сверх лимита не встают в очередь, а сразу получают короткий ответ 503
+ * с заголовком {@code Retry-After}: при перегрузке часть пользователей получает быстрый
+ * отказ, а остальные — нормальное время ответа, вместо таймаутов у всех.
+ * <p>
+ * Классы запросов получают разную долю лимита: оформление и оплата заказа
+ * ({@code /orders/buy}, {@code /orders/{id}/pay}) — весь лимит, просмотр каталога —
+ * {@code browseShare}, администрирование — {@code adminShare}. Поэтому при росте
+ * нагрузки первыми отклоняются страницы администрирования и просмотра.
+ * Статические ресурсы не ограничиваются.
+ * <p>
+ * Параметры задаются параметрами инициализации фильтра в {@link WebAppInitializer}.
+ */
+public class AdmissionControlFilter implements Filter {
+    private static final Logger log = LoggerFactory.getLogger(AdmissionControlFilter.class);
+
+    private static final Pattern PAY_PATH = Pattern.compile("^/orders/\\d+/pay$");
+    private static final String[] STATIC_PREFIXES = {"/css/", "/js/", "/images/", "/static/", "/favicon.ico"};
+    private static final byte[] OVERLOADED_BODY =
+            "Сервер перегружен, повторите запрос позже".getBytes(StandardCharsets.UTF_8);
+
+    /** Класс запроса с точки зрения приоритета допуска */
+    enum Priority {
+        CHECKOUT,
+        BROWSE,
+        ADMIN
+    }
+
+    private AdaptiveConcurrencyLimit limit;
+    private final Map<Priority, Double> shares = new EnumMap<>(Priority.class);
+    private final Map<Priority, LongAdder> rejected = new EnumMap<>(Priority.class);
+    private String retryAfterSeconds;
+
+    @Override
+    public void init(FilterConfig config) {
+        limit = new AdaptiveConcurrencyLimit(
+                intParameter(config, "initialLimit", 20),
+                intParameter(config, "minLimit", 4),
+                intParameter(config, "maxLimit", 200),
+                longParameter(config, "targetLatencyMillis", 1_000),
+                doubleParameter(config, "backoffRatio", 0.9));
+        shares.put(Priority.CHECKOUT, 1.0);
+        shares.put(Priority.BROWSE, doubleParameter(config, "browseShare", 0.8));
+        shares.put(Priority.ADMIN, doubleParameter(config, "adminShare", 0.5));
+        for (Priority priority : Priority.values()) {
+            rejected.put(priority, new LongAdder());
+        }
+        retryAfterSeconds = String.valueOf(intParameter(config, "retryAfterSeconds", 1));
+        log.info("Контроль допуска запросов включен: начальный лимит {}", (int) limit.getLimit());
+    }
+
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain chain)
+            throws IOException, ServletException {
+        HttpServletRequest request = (HttpServletRequest) servletRequest;
+        HttpServletResponse response = (HttpServletResponse) servletResponse;
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (isStaticResource(path)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        Priority priority = classify(path);
+        int inFlightAtStart = limit.tryAcquire(shares.get(priority));
+        if (inFlightAtStart < 0) {
+            reject(priority, path, response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        AtomicBoolean released = new AtomicBoolean();
+        boolean completed = false;
+        try {
+            chain.doFilter(request, response);
+            completed = true;
+        } finally {
+            if (completed && request.isAsyncStarted()) {
+                // Асинхронный обработчик держит место до завершения ответа
+                request.getAsyncContext().addListener(new ReleaseOnComplete(start, inFlightAtStart, released));
+            } else {
+                release(start, inFlightAtStart, isOverloaded(response), released);
+            }
+        }
+    }
+
+    private void release(long start, int inFlightAtStart, boolean overloaded, AtomicBoolean released) {
+        if (released.compareAndSet(false, true)) {
+            limit.release(start, System.nanoTime(), inFlightAtStart, overloaded);
+        }
+    }
+
+    /**
+     * Ответ 503 означает, что приложение уже отказывает из-за перегрузки
+     * (например, пул соединений разомкнул цепь), и лимит нужно снижать
+     */
+    private static boolean isOverloaded(HttpServletResponse response) {
+        return response.getStatus() == HttpServletResponse.SC_SERVICE_UNAVAILABLE;
+    }
+
+    private void reject(Priority priority, String path, HttpServletResponse response) throws IOException {
+        rejected.get(priority).increment();
+        log.debug("Запрос {} отклонен: лимит {}, в обработке {}", path, (int) limit.getLimit(), limit.getInFlight());
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader("Retry-After", retryAfterSeconds);
+        response.setContentType("text/plain;charset=UTF-8");
+        response.setContentLength(OVERLOADED_BODY.length);
+        response.getOutputStream().write(OVERLOADED_BODY);
+    }
+
+    static Priority classify(String path) {
+        if (path.startsWith("/orders/buy") || PAY_PATH.matcher(path).matches()) {
+            return Priority.CHECKOUT;
+        }
+        if (path.startsWith("/admin")) {
+            return Priority.ADMIN;
+        }
+        return Priority.BROWSE;
+    }
+
+    private static boolean isStaticResource(String path) {
+        for (String prefix : STATIC_PREFIXES) {
+            if (path.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void destroy() {
+        log.info("Контроль допуска запросов: итоговый лимит {}, отклонено (оформление/просмотр/администрирование) {}/{}/{}",
+                (int) limit.getLimit(), rejected.get(Priority.CHECKOUT).sum(),
+                rejected.get(Priority.BROWSE).sum(), rejected.get(Priority.ADMIN).sum());
+    }
+
+    private static int intParameter(FilterConfig config, String name, int defaultValue) {
+        String value = config.getInitParameter(name);
+        return value != null ? Integer.parseInt(value.trim()) : defaultValue;
+    }
+
+    private static long longParameter(FilterConfig config, String name, long defaultValue) {
+        String value = config.getInitParameter(name);
+        return value != null ? Long.parseLong(value.trim()) : defaultValue;
+    }
+
+    private static double doubleParameter(FilterConfig config, String name, double defaultValue) {
+        String value = config.getInitParameter(name);
+        return value != null ? Double.parseDouble(value.trim()) : defaultValue;
+    }
+
+    /**
+     * Освобождает место асинхронного запроса после завершения ответа
+     */
+    private final class ReleaseOnComplete implements AsyncListener {
+        private final long start;
+        private final int inFlightAtStart;
+        private final AtomicBoolean released;
+
+        ReleaseOnComplete(long start, int inFlightAtStart, AtomicBoolean released) {
+            this.start = start;
+            this.inFlightAtStart = inFlightAtStart;
+            this.released = released;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            HttpServletResponse response = (HttpServletResponse) event.getSuppliedResponse();
+            release(start, inFlightAtStart, response != null && isOverloaded(response), released);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release(start, inFlightAtStart, true, released);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release(start, inFlightAtStart, true, released);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
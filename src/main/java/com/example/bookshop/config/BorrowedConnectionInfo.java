@@ -0,0 +1,37 @@
+package com.example.bookshop.config;
+
+/**
+ * Сведения о соединении, выданном клиенту пула
+ */
+public class BorrowedConnectionInfo {
+    private final long heldMillis;
+    private final String thread;
+    private final String borrowSite;
+
+    public BorrowedConnectionInfo(long heldMillis, String thread, String borrowSite) {
+        this.heldMillis = heldMillis;
+        this.thread = thread;
+        this.borrowSite = borrowSite;
+    }
+
+    /**
+     * @return сколько миллисекунд соединение удерживается клиентом
+     */
+    public long getHeldMillis() {
+        return heldMillis;
+    }
+
+    /**
+     * @return имя потока, получившего соединение, или null, если обнаружение утечек отключено
+     */
+    public String getThread() {
+        return thread;
+    }
+
+    /**
+     * @return стек вызова при получении соединения или null, если он не записывался
+     */
+    public String getBorrowSite() {
+        return borrowSite;
+    }
+}
@@ -3,31 +3,144 @@ package com.example.bookshop.config;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.example.bookshop.exception.DatabaseUnavailableException;
+
+import static com.example.bookshop.config.PoolEntry.STATE_IN_USE;
+import static com.example.bookshop.config.PoolEntry.STATE_NOT_IN_USE;
+import static com.example.bookshop.config.PoolEntry.STATE_REMOVED;
+import static com.example.bookshop.config.PoolEntry.STATE_RESERVED;
 
 /**
- * Пул соединений с базой данных
+ * Пул соединений с базой данных.
+ * <p>
+ * Каждое соединение хранится в собственном слоте {@link PoolEntry}, состояние
+ * которого меняется через CAS. Поток сначала пытается повторно получить
+ * соединение, которое он использовал последним, затем просматривает все слоты,
+ * и только после этого встает в справедливую очередь передачи, куда
+ * возвращаемые соединения передаются ожидающим потокам напрямую.
+ * <p>
+ * Ожидание построено на {@link SynchronousQueue} и {@link ReentrantLock}, без
+ * {@code synchronized}, поэтому виртуальный поток, ожидающий соединение,
+ * отпускает поток-носитель. Для виртуальных потоков последнее соединение
+ * не запоминается: каждый из них живет один запрос.
+ * <p>
+ * Пул эластичный: при старте параллельно открывается {@code initialSize} соединений
+ * (конструктор ждет только первые {@code minIdle}),
+ * при появлении ожидающих потоков в фоне открываются новые (не более
+ * {@code maxTotal}), а фоновое обслуживание закрывает простаивающие
+ * соединения сверх {@code maxIdle} и сверх {@code minIdle} по истечении
+ * {@code idleTimeoutMillis}.
+ * <p>
+ * Проверка соединений выполняется только в фоне: обслуживание проверяет
+ * свободные соединения запросом {@code validationQuery} или
+ * {@link Connection#isValid(int)}, закрывает неисправные и превысившие
+ * {@code maxLifetimeMillis}, после чего дополняет пул до {@code minIdle}.
+ * <p>
+ * При заданном {@code leakDetectionThresholdMillis} соединения, удерживаемые
+ * клиентами дольше порога, записываются в лог вместе с потоком и (для выборки
+ * выдач) стеком вызова, а при заданном {@code leakReclaimThresholdMillis}
+ * принудительно забираются у клиента. Если обе настройки отключены, выдача
+ * соединения лишь запоминает момент выдачи.
+ * <p>
+ * Если {@code circuitBreakerFailureThreshold} ошибок соединения идут подряд,
+ * пул размыкает цепь ({@link PoolCircuitBreaker}) и сразу отклоняет запросы
+ * соединений исключением {@link DatabaseUnavailableException}, а не держит
+ * потоки до истечения {@code maxWaitMillis}.
+ * <p>
+ * Пул ведет гистограммы времени ожидания и удержания соединений и счетчики
+ * таймаутов, открытий, закрытий и ошибок проверки ({@link ConnectionPoolMXBean}).
+ * <p>
+ * Методы, помеченные {@link PoolPartition}, получают соединения в пределах
+ * лимита своего раздела ({@code partitionLimits}): место в разделе занимается
+ * до выдачи соединения и освобождается при его возврате. Так тяжелые отчеты
+ * и страницы администрирования не могут занять весь пул, и остаток
+ * {@code maxTotal} всегда доступен запросам без раздела.
+ * <p>
+ * Каждое соединение хранит до {@code statementCacheSize} подготовленных
+ * выражений, поэтому повторяющиеся запросы DAO не подготавливаются заново.
  */
-public class ConnectionPool {
+public class ConnectionPool implements ConnectionPoolMXBean {
     private static final Logger log = LoggerFactory.getLogger(ConnectionPool.class);
 
     private static final int DEFAULT_POOL_SIZE = 10;
-    private static final long CONNECTION_TIMEOUT = 10; // в секундах
+
+    private static final PoolEntry[] NO_ENTRIES = new PoolEntry[0];
+
+    /** Максимальное количество потоков, параллельно открывающих начальные соединения */
+    private static final int MAX_WARMUP_THREADS = 8;
 
     private final String url;
     private final String username;
     private final String password;
-    private final int poolSize;
+    private final ConnectionPoolSettings settings;
+
+    /** Слоты пула; массив заменяется целиком при добавлении или удалении слота */
+    private volatile PoolEntry[] entries = NO_ENTRIES;
+    private final ReentrantLock entriesLock = new ReentrantLock();
+
+    /** Последнее соединение, возвращенное текущим потоком */
+    private final ThreadLocal<PoolEntry> lastUsedEntry = new ThreadLocal<>();
+
+    /** Очередь прямой передачи возвращаемых соединений ожидающим потокам */
+    private final SynchronousQueue<PoolEntry> handoffQueue = new SynchronousQueue<>(true);
+    private final AtomicInteger waiters = new AtomicInteger();
+
+    /** Количество соединений, которые открываются в фоне прямо сейчас */
+    private final AtomicInteger pendingCreations = new AtomicInteger();
+    private final ThreadPoolExecutor connectionCreator;
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean shutdown;
+
+    /** Статистика кэша подготовленных выражений по всем соединениям */
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+
+    /** Метрики пула */
+    private final LatencyHistogram waitTime = new LatencyHistogram();
+    private final LatencyHistogram holdTime = new LatencyHistogram();
+    private final LongAdder connectionTimeouts = new LongAdder();
+    private final LongAdder connectionsCreated = new LongAdder();
+    private final LongAdder connectionsEvicted = new LongAdder();
+    private final LongAdder validationFailures = new LongAdder();
+    private final LongAdder connectionsReclaimed = new LongAdder();
+    private final LongAdder circuitBreakerRejections = new LongAdder();
+
+    /** Лимиты разделов пула по имени раздела */
+    private final Map<String, PartitionLimiter> partitions = new ConcurrentHashMap<>();
 
-    private final BlockingQueue<Connection> connectionPool;
-    private final List<Connection> usedConnections = new ArrayList<>();
+    private final PoolCircuitBreaker circuitBreaker;
+    /** Передается ожидающим потокам через очередь передачи, когда цепь размыкается */
+    private final PoolEntry circuitOpenSignal;
 
     /**
      * Создает пул соединений с указанными параметрами
@@ -35,14 +148,30 @@ public class ConnectionPool {
      * @param url URL базы данных
      * @param username имя пользователя
      * @param password пароль
-     * @param poolSize размер пула соединений
+     * @param settings параметры пула
      */
-    public ConnectionPool(String url, String username, String password, int poolSize) {
+    public ConnectionPool(String url, String username, String password, ConnectionPoolSettings settings) {
         this.url = url;
         this.username = username;
         this.password = password;
-        this.poolSize = poolSize;
-        this.connectionPool = new ArrayBlockingQueue<>(poolSize);
+        this.settings = settings;
+        settings.normalize();
+
+        this.connectionCreator = new ThreadPoolExecutor(1, 1, 5, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(settings.getMaxTotal()),
+                daemonThreadFactory("bookshop-pool-creator"),
+                new ThreadPoolExecutor.DiscardPolicy());
+        this.connectionCreator.allowCoreThreadTimeOut(true);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("bookshop-pool-housekeeper"));
+        this.circuitBreaker = new PoolCircuitBreaker(settings.getCircuitBreakerFailureThreshold(),
+                settings.getCircuitBreakerOpenMillis());
+        this.circuitOpenSignal = new PoolEntry(null, this);
+        this.circuitOpenSignal.setState(STATE_REMOVED);
+        settings.getPartitionLimits().forEach((name, limit) ->
+                partitions.put(name, new PartitionLimiter(name, limit)));
+        if (!partitions.isEmpty()) {
+            log.info("Разделы пула соединений: {}", settings.getPartitionLimits());
+        }
 
         try {
             Class.forName("org.postgresql.Driver");
@@ -51,6 +180,31 @@ public class ConnectionPool {
             log.error("Не удалось загрузить драйвер PostgreSQL", e);
             throw new RuntimeException("Не удалось загрузить драйвер PostgreSQL", e);
         }
+
+        long period = settings.getHousekeepingPeriodMillis();
+        housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+        if (settings.isLeakDetectionEnabled()) {
+            // Утечки проверяем чаще обычного обслуживания, чтобы порог срабатывал без большой задержки
+            long leakThreshold = settings.getLeakDetectionThresholdMillis() > 0
+                    ? settings.getLeakDetectionThresholdMillis()
+                    : settings.getLeakReclaimThresholdMillis();
+            long leakPeriod = Math.max(1_000, Math.min(period, leakThreshold / 2));
+            housekeeper.scheduleWithFixedDelay(this::detectLeaks, leakPeriod, leakPeriod, TimeUnit.MILLISECONDS);
+        }
+        // Если часть соединений не открылась при старте, дополняем пул в фоне, не дожидаясь обслуживания
+        fillPool();
+    }
+
+    /**
+     * Создает пул соединений фиксированного размера
+     *
+     * @param url URL базы данных
+     * @param username имя пользователя
+     * @param password пароль
+     * @param poolSize размер пула соединений
+     */
+    public ConnectionPool(String url, String username, String password, int poolSize) {
+        this(url, username, password, fixedSize(poolSize));
     }
 
     /**
@@ -64,18 +218,79 @@ public class ConnectionPool {
         this(url, username, password, DEFAULT_POOL_SIZE);
     }
 
+    private static ConnectionPoolSettings fixedSize(int poolSize) {
+        ConnectionPoolSettings settings = new ConnectionPoolSettings();
+        settings.setInitialSize(poolSize);
+        settings.setMinIdle(poolSize);
+        settings.setMaxIdle(poolSize);
+        settings.setMaxTotal(poolSize);
+        return settings;
+    }
+
+    private static ThreadFactory daemonThreadFactory(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
     /**
-     * Инициализирует пул соединений
+     * Инициализирует пул соединений.
+     * <p>
+     * Начальные соединения открываются параллельно. Пул считается готовым, как только
+     * открыто {@code minIdle} соединений (но не больше {@code initialSize}); остальные
+     * продолжают открываться в фоне. Ожидание ограничено {@code maxWaitMillis}.
      */
     private void initializeConnectionPool() {
-        for (int i = 0; i < poolSize; i++) {
-            try {
-                connectionPool.add(createConnection());
-            } catch (SQLException e) {
-                log.error("Ошибка при создании соединения с БД", e);
+        long start = System.nanoTime();
+        int target = settings.getInitialSize();
+        int required = Math.min(settings.getMinIdle(), target);
+        if (target == 0) {
+            log.info("Пул соединений инициализирован без начальных соединений");
+            return;
+        }
+
+        int threads = Math.min(target, MAX_WARMUP_THREADS);
+        ThreadPoolExecutor warmup = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), daemonThreadFactory("bookshop-pool-warmup"));
+        CompletionService<Boolean> completion = new ExecutorCompletionService<>(warmup);
+        int submitted = 0;
+        for (int i = 0; i < target && reserveCreation(); i++) {
+            completion.submit(this::createEntry);
+            submitted++;
+        }
+        // Потоки завершатся сами, когда будут открыты все начальные соединения
+        warmup.shutdown();
+
+        int opened = 0;
+        int finished = 0;
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(settings.getMaxWaitMillis());
+        try {
+            while (opened < required && finished < submitted) {
+                Future<Boolean> result = completion.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (result == null) {
+                    break;
+                }
+                finished++;
+                if (result.get()) {
+                    opened++;
+                }
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.error("Ошибка при открытии начального соединения", e.getCause());
+        }
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (opened < required) {
+            log.warn("Пул соединений инициализирован не полностью за {} мс: {} из {}. Недостающие соединения будут открыты в фоне",
+                    elapsedMillis, opened, required);
+        } else {
+            log.info("Пул соединений готов за {} мс: открыто {} соединений, еще {} открываются в фоне",
+                    elapsedMillis, entries.length, pendingCreations.get());
         }
-        log.info("Пул соединений инициализирован. Размер пула: {}", connectionPool.size());
     }
 
     /**
@@ -85,109 +300,875 @@ public class ConnectionPool {
      * @throws SQLException если произошла ошибка при создании соединения
      */
     private Connection createConnection() throws SQLException {
-        return DriverManager.getConnection(url, username, password);
+        Connection connection;
+        try {
+            connection = DriverManager.getConnection(url, username, password);
+        } catch (SQLException e) {
+            recordConnectionFailure();
+            throw e;
+        }
+        connectionsCreated.increment();
+        circuitBreaker.recordSuccess();
+        return connection;
     }
 
     /**
-     * Получает соединение из пула
+     * Получает соединение из пула. Вызов {@link Connection#close()}
+     * возвращает соединение в пул.
      *
      * @return соединение с базой данных
      * @throws SQLException если не удалось получить соединение
      */
     public Connection getConnection() throws SQLException {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            circuitBreakerRejections.increment();
+            throw databaseUnavailable();
+        }
+        boolean probe = circuitBreaker.getState() == PoolCircuitBreaker.State.HALF_OPEN;
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(settings.getMaxWaitMillis());
+        PartitionLimiter partition = currentPartition();
+        boolean partitionAcquired = false;
+        boolean probeCompleted = false;
+        PoolEntry entry;
         try {
-            Connection connection = connectionPool.poll(CONNECTION_TIMEOUT, TimeUnit.SECONDS);
-            if (connection == null) {
-                log.error("Превышено время ожидания соединения");
-                throw new SQLException("Превышено время ожидания соединения");
+            if (partition != null) {
+                partition.acquire(settings.getMaxWaitMillis());
+                partitionAcquired = true;
+            }
+            // Ожидание в разделе и в пуле укладывается в один общий maxWaitMillis
+            entry = borrow(deadline - System.nanoTime());
+            if (probe) {
+                probeCompleted = true;
+                probe(entry);
+            }
+        } catch (SQLException | RuntimeException e) {
+            if (partitionAcquired) {
+                partition.release();
             }
+            throw e;
+        } finally {
+            // Пробный запрос, не дошедший до проверки соединения (таймаут или прерывание
+            // в разделе или в пуле), снова размыкает цепь, иначе она осталась бы полуоткрытой
+            if (probe && !probeCompleted) {
+                recordConnectionFailure();
+            }
+        }
+        long borrowedAt = System.nanoTime();
+        waitTime.record(borrowedAt - start);
+        entry.setPartition(partition);
+        entry.borrowedAt = borrowedAt;
+        if (settings.isLeakDetectionEnabled()) {
+            recordBorrowSite(entry);
+        }
+        return entry.pooledConnection.open();
+    }
+
+    /**
+     * Пробный запрос полуоткрытой цепи: выданное соединение проверяется, и только
+     * результат проверки замыкает или снова размыкает цепь. Возврат соединений,
+     * выданных раньше, о доступности базы ничего не говорит и на цепь не влияет.
+     */
+    private void probe(PoolEntry entry) throws SQLException {
+        if (isValid(entry.connection)) {
+            circuitBreaker.recordSuccess();
+            return;
+        }
+        validationFailures.increment();
+        evict(entry);
+        recordConnectionFailure();
+        throw databaseUnavailable();
+    }
+
+    /**
+     * @return лимит раздела, выбранного для текущего потока, или null, если раздел не выбран или не ограничен
+     */
+    private PartitionLimiter currentPartition() {
+        if (partitions.isEmpty()) {
+            return null;
+        }
+        String name = PoolPartitionContext.current();
+        return name != null ? partitions.get(name) : null;
+    }
+
+    /**
+     * Освобождает место в разделе, в лимите которого учтена выдача соединения
+     */
+    private void releasePartition(PoolEntry entry) {
+        PartitionLimiter partition = entry.takePartition();
+        if (partition != null) {
+            partition.release();
+        }
+    }
+
+    /**
+     * Запоминает поток и, для выборки выдач, стек вызова, чтобы указать
+     * место утечки, если соединение не будет возвращено вовремя
+     */
+    private void recordBorrowSite(PoolEntry entry) {
+        entry.leakReported = false;
+        entry.borrowThread = Thread.currentThread().getName();
+        double sampleRate = settings.getLeakStackSampleRate();
+        entry.borrowSite = sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate
+                ? new Exception("Место получения соединения")
+                : null;
+    }
 
-            if (connection.isClosed()) {
-                log.warn("Соединение закрыто, создаем новое");
-                connection = createConnection();
+    /**
+     * Учитывает ошибку соединения в автоматическом выключателе. Если цепь
+     * разомкнулась, потоки, ожидающие соединение, сразу получают отказ.
+     */
+    private void recordConnectionFailure() {
+        if (!circuitBreaker.recordFailure()) {
+            return;
+        }
+        // offer передает сигнал только потоку, который уже ждет в poll, и будит ровно одного
+        int pending = waiters.get();
+        for (int i = 0; i < pending; i++) {
+            if (!handoffQueue.offer(circuitOpenSignal)) {
+                break;
             }
+        }
+    }
+
+    private DatabaseUnavailableException databaseUnavailable() {
+        return new DatabaseUnavailableException("База данных недоступна, запрос соединения отклонен",
+                circuitBreaker.getRetryAfterMillis());
+    }
 
-            usedConnections.add(connection);
-            log.debug("Получено соединение из пула. Доступно: {}, Используется: {}", 
-                    connectionPool.size(), usedConnections.size());
-            return connection;
+    /**
+     * Захватывает свободный слот пула.
+     * На быстром пути (повторное использование соединения потока или свободный
+     * слот при просмотре) метод не выделяет память и не берет блокировок.
+     *
+     * @param maxWaitNanos сколько можно ждать освобождения соединения
+     * @return захваченный слот в состоянии {@link PoolEntry#STATE_IN_USE}
+     * @throws SQLException если не удалось получить соединение за отведенное время
+     */
+    PoolEntry borrow(long maxWaitNanos) throws SQLException {
+        // Виртуальный поток обслуживает один запрос, поэтому запоминать для него соединение бесполезно
+        PoolEntry entry = Thread.currentThread().isVirtual() ? null : lastUsedEntry.get();
+        if (entry == null || !entry.compareAndSetState(STATE_NOT_IN_USE, STATE_IN_USE)) {
+            entry = acquireEntry(maxWaitNanos);
+        }
+        return ensureOpen(entry);
+    }
+
+    /**
+     * Ищет свободный слот, а если его нет — ждет передачи соединения
+     * от возвращающего потока.
+     */
+    private PoolEntry acquireEntry(long maxWaitNanos) throws SQLException {
+        PoolEntry entry = pollFreeEntry();
+        if (entry != null) {
+            return entry;
+        }
+
+        waiters.incrementAndGet();
+        try {
+            // Соединение могло вернуться в пул до того, как мы объявили себя ожидающим
+            entry = pollFreeEntry();
+            if (entry != null) {
+                return entry;
+            }
+
+            // Свободных соединений нет: пока есть запас до maxTotal, открываем новое в фоне
+            if (waiters.get() > pendingCreations.get()) {
+                addConnectionAsync();
+            }
+
+            long remaining = maxWaitNanos;
+            long deadline = System.nanoTime() + remaining;
+            while (remaining > 0) {
+                PoolEntry handed = handoffQueue.poll(remaining, TimeUnit.NANOSECONDS);
+                if (handed == circuitOpenSignal) {
+                    circuitBreakerRejections.increment();
+                    throw databaseUnavailable();
+                }
+                if (handed != null && handed.compareAndSetState(STATE_NOT_IN_USE, STATE_IN_USE)) {
+                    return handed;
+                }
+                remaining = deadline - System.nanoTime();
+            }
+
+            connectionTimeouts.increment();
+            recordConnectionFailure();
+            log.error("Превышено время ожидания соединения");
+            throw new SQLException("Превышено время ожидания соединения");
         } catch (InterruptedException e) {
             log.error("Прерывание при ожидании соединения", e);
             Thread.currentThread().interrupt();
             throw new SQLException("Не удалось получить соединение из пула", e);
+        } finally {
+            waiters.decrementAndGet();
+        }
+    }
+
+    /**
+     * Просматривает слоты и захватывает первый свободный
+     *
+     * @return захваченный слот или null, если свободных нет
+     */
+    private PoolEntry pollFreeEntry() {
+        PoolEntry[] snapshot = entries;
+        for (PoolEntry entry : snapshot) {
+            if (entry.compareAndSetState(STATE_NOT_IN_USE, STATE_IN_USE)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Заменяет закрытое физическое соединение новым
+     *
+     * @param entry захваченный слот
+     * @return слот с открытым соединением
+     */
+    private PoolEntry ensureOpen(PoolEntry entry) throws SQLException {
+        if (!entry.connection.isClosed()) {
+            entry.lastAccessed = System.nanoTime();
+            return entry;
         }
+
+        log.warn("Соединение закрыто, создаем новое");
+        removeEntry(entry);
+        PoolEntry replacement = new PoolEntry(createConnection(), this);
+        replacement.setState(STATE_IN_USE);
+        addEntry(replacement);
+        return replacement;
     }
 
     /**
      * Возвращает соединение в пул
      *
-     * @param connection соединение для возврата в пул
+     * @param connection соединение, полученное через {@link #getConnection()}
      */
     public void releaseConnection(Connection connection) {
-        if (connection != null) {
-            usedConnections.remove(connection);
+        if (!(connection instanceof PooledConnection)) {
+            log.warn("Попытка вернуть соединение, не принадлежащее пулу");
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.error("Ошибка при возврате соединения в пул", e);
+        }
+    }
+
+    /**
+     * Возвращает слот в пул и передает его ожидающему потоку, если такой есть.
+     * Состояние сессии к этому моменту уже сброшено в {@link PooledConnection#close()}.
+     * <p>
+     * Слот освобождается через CAS IN_USE -> NOT_IN_USE. Если CAS не удался, слот
+     * в этот момент захвачен поиском утечек ({@link #reclaim}); такой слот
+     * не возвращается в пул, а закрывается ({@link #evict} закрывает слот ровно один раз,
+     * кто бы из двух потоков ни сделал это первым).
+     *
+     * @param entry слот, полученный через {@link #borrow(long)}
+     */
+    void release(PoolEntry entry) {
+        long borrowedAt = entry.borrowedAt;
+        if (borrowedAt != 0) {
+            holdTime.record(System.nanoTime() - borrowedAt);
+        }
+        entry.borrowedAt = 0;
+        releasePartition(entry);
+        boolean broken = entry.evictOnRelease;
+        if (broken) {
+            log.debug("Соединение исключено из пула при возврате");
+        } else {
             try {
-                if (!connection.isClosed()) {
-                    if (!connection.getAutoCommit()) {
-                        connection.setAutoCommit(true);
-                    }
-                    connectionPool.offer(connection);
-                    log.debug("Соединение возвращено в пул. Доступно: {}, Используется: {}", 
-                            connectionPool.size(), usedConnections.size());
-                } else {
+                if (entry.connection.isClosed()) {
                     log.warn("Попытка вернуть закрытое соединение");
+                    broken = true;
                 }
             } catch (SQLException e) {
                 log.error("Ошибка при возврате соединения в пул", e);
+                broken = true;
             }
         }
+        if (broken) {
+            evict(entry);
+            return;
+        }
+        requite(entry);
     }
 
     /**
-     * Закрывает все соединения в пуле
+     * Переводит слот в свободное состояние. Если соединение не понадобилось
+     * ожидающим потокам, оно запоминается как последнее для текущего потока.
      */
-    public void closeAllConnections() {
-        closeConnections(usedConnections);
-        closeConnections(new ArrayList<>(connectionPool));
-        log.info("Все соединения закрыты");
+    private void requite(PoolEntry entry) {
+        entry.lastAccessed = System.nanoTime();
+        if (!entry.compareAndSetState(STATE_IN_USE, STATE_NOT_IN_USE)) {
+            // Слот забирает поиск утечек: соединение уже отозвано, в пул оно не вернется
+            log.debug("Возвращаемое соединение отзывается пулом и будет закрыто");
+            evict(entry);
+            return;
+        }
+        if (!handOff(entry) && !Thread.currentThread().isVirtual()) {
+            lastUsedEntry.set(entry);
+        }
     }
 
     /**
-     * Закрывает список соединений
+     * Передает свободный слот одному из ожидающих потоков через очередь передачи
      *
-     * @param connections список соединений для закрытия
+     * @return true, если слот передан или уже захвачен другим потоком
      */
-    private void closeConnections(List<Connection> connections) {
-        for (Connection connection : connections) {
-            try {
-                if (!connection.isClosed()) {
-                    connection.close();
+    private boolean handOff(PoolEntry entry) {
+        for (int attempt = 0; waiters.get() > 0; attempt++) {
+            if (entry.getState() != STATE_NOT_IN_USE || handoffQueue.offer(entry)) {
+                return true;
+            }
+            if ((attempt & 0xff) == 0xff) {
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(10));
+            } else {
+                Thread.yield();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Удаляет слот из пула и закрывает его соединение. Если соединение
+     * кому-то нужно, замена открывается в фоне.
+     */
+    private void evict(PoolEntry entry) {
+        if (retire(entry) && waiters.get() > 0) {
+            addConnectionAsync();
+        }
+    }
+
+    /**
+     * Помечает соединение как неисправное после фатальной ошибки соединения.
+     * Соединение будет закрыто при возврате, а остальные свободные соединения
+     * проверены вне очереди: после перезапуска сервера они, скорее всего,
+     * тоже разорваны.
+     */
+    void markBroken(PoolEntry entry) {
+        if (entry.evictOnRelease) {
+            return;
+        }
+        entry.evictOnRelease = true;
+        recordConnectionFailure();
+        log.warn("Соединение разорвано, запускаем внеочередную проверку пула");
+        try {
+            housekeeper.execute(this::validateIdleConnections);
+        } catch (RejectedExecutionException e) {
+            log.debug("Пул остановлен, проверка не запущена");
+        }
+    }
+
+    /**
+     * Удаляет слот из пула и закрывает соединение, если слот еще не был удален
+     *
+     * @return true, если слот удален этим вызовом
+     */
+    private boolean retire(PoolEntry entry) {
+        if (!removeEntry(entry)) {
+            return false;
+        }
+        connectionsEvicted.increment();
+        closeQuietly(entry.connection);
+        return true;
+    }
+
+    /**
+     * Запрашивает открытие одного соединения в фоне, если пул еще
+     * не достиг {@code maxTotal}
+     */
+    private void addConnectionAsync() {
+        if (shutdown || !reserveCreation()) {
+            return;
+        }
+        try {
+            connectionCreator.execute(this::createEntry);
+        } catch (RejectedExecutionException e) {
+            pendingCreations.decrementAndGet();
+        }
+    }
+
+    private boolean reserveCreation() {
+        while (true) {
+            int pending = pendingCreations.get();
+            if (entries.length + pending >= settings.getMaxTotal()) {
+                return false;
+            }
+            if (pendingCreations.compareAndSet(pending, pending + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Открывает соединение, зарезервированное через {@link #reserveCreation()}
+     *
+     * @return true, если соединение открыто и добавлено в пул
+     */
+    private boolean createEntry() {
+        try {
+            if (!shutdown) {
+                addEntry(new PoolEntry(createConnection(), this));
+                log.debug("Открыто соединение. Размер пула: {}", entries.length);
+                return true;
+            }
+        } catch (SQLException e) {
+            log.error("Ошибка при создании соединения с БД", e);
+        } finally {
+            pendingCreations.decrementAndGet();
+        }
+        return false;
+    }
+
+    /**
+     * Фоновое обслуживание пула: закрывает лишние простаивающие соединения,
+     * проверяет оставшиеся и дополняет пул до {@code minIdle}
+     */
+    private void housekeep() {
+        try {
+            retireIdleConnections();
+            validateIdleConnections();
+            markExpiredInUseConnections();
+            fillPool();
+        } catch (RuntimeException e) {
+            log.error("Ошибка при обслуживании пула соединений", e);
+        }
+    }
+
+    /**
+     * Закрывает простаивающие соединения сверх {@code maxIdle},
+     * а также сверх {@code minIdle}, если они не использовались
+     * дольше {@code idleTimeoutMillis}
+     */
+    private void retireIdleConnections() {
+        long now = System.nanoTime();
+        long idleTimeout = TimeUnit.MILLISECONDS.toNanos(settings.getIdleTimeoutMillis());
+
+        PoolEntry[] idleEntries = Arrays.stream(entries)
+                .filter(entry -> entry.getState() == STATE_NOT_IN_USE)
+                .sorted(Comparator.comparingLong(entry -> entry.lastAccessed))
+                .toArray(PoolEntry[]::new);
+
+        int idle = idleEntries.length;
+        int retired = 0;
+        for (PoolEntry entry : idleEntries) {
+            if (idle <= settings.getMinIdle()) {
+                break;
+            }
+            boolean expired = now - entry.lastAccessed > idleTimeout;
+            if ((idle > settings.getMaxIdle() || expired)
+                    && entry.compareAndSetState(STATE_NOT_IN_USE, STATE_RESERVED)) {
+                retire(entry);
+                idle--;
+                retired++;
+            }
+        }
+        if (retired > 0) {
+            log.debug("Закрыто {} простаивающих соединений. Размер пула: {}", retired, entries.length);
+        }
+    }
+
+    /**
+     * Проверяет свободные соединения и закрывает неисправные
+     * и превысившие максимальное время жизни
+     */
+    private void validateIdleConnections() {
+        int evicted = 0;
+        for (PoolEntry entry : entries) {
+            if (!entry.compareAndSetState(STATE_NOT_IN_USE, STATE_RESERVED)) {
+                continue;
+            }
+            if (isExpired(entry)) {
+                retire(entry);
+                evicted++;
+            } else if (!isValid(entry.connection)) {
+                validationFailures.increment();
+                retire(entry);
+                evicted++;
+            } else {
+                circuitBreaker.recordSuccess();
+                entry.setState(STATE_NOT_IN_USE);
+                handOff(entry);
+            }
+        }
+        if (evicted > 0) {
+            log.info("Закрыто {} неисправных или устаревших соединений. Размер пула: {}", evicted, entries.length);
+            fillPool();
+        }
+    }
+
+    /**
+     * Помечает выданные соединения, превысившие максимальное время жизни,
+     * чтобы они были закрыты при возврате
+     */
+    private void markExpiredInUseConnections() {
+        for (PoolEntry entry : entries) {
+            if (entry.getState() == STATE_IN_USE && isExpired(entry)) {
+                entry.evictOnRelease = true;
+            }
+        }
+    }
+
+    /**
+     * Записывает в лог соединения, удерживаемые дольше {@code leakDetectionThresholdMillis},
+     * и забирает у клиентов соединения, удерживаемые дольше {@code leakReclaimThresholdMillis}
+     */
+    private void detectLeaks() {
+        try {
+            long now = System.nanoTime();
+            long leakThreshold = TimeUnit.MILLISECONDS.toNanos(settings.getLeakDetectionThresholdMillis());
+            long reclaimThreshold = TimeUnit.MILLISECONDS.toNanos(settings.getLeakReclaimThresholdMillis());
+            for (PoolEntry entry : entries) {
+                long borrowedAt = entry.borrowedAt;
+                if (entry.getState() != STATE_IN_USE || borrowedAt == 0) {
+                    continue;
                 }
-            } catch (SQLException e) {
-                log.error("Ошибка при закрытии соединения", e);
+                long held = now - borrowedAt;
+                if (reclaimThreshold > 0 && held > reclaimThreshold) {
+                    reclaim(entry, borrowedAt, held);
+                } else if (leakThreshold > 0 && held > leakThreshold && !entry.leakReported) {
+                    entry.leakReported = true;
+                    logLeak(entry, held);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Ошибка при поиске утечек соединений", e);
+        }
+    }
+
+    private void logLeak(PoolEntry entry, long heldNanos) {
+        long heldMillis = TimeUnit.NANOSECONDS.toMillis(heldNanos);
+        if (entry.borrowSite != null) {
+            log.warn("Возможная утечка соединения: удерживается {} мс потоком {}",
+                    heldMillis, entry.borrowThread, entry.borrowSite);
+        } else {
+            log.warn("Возможная утечка соединения: удерживается {} мс потоком {} (стек вызова не записан)",
+                    heldMillis, entry.borrowThread);
+        }
+    }
+
+    /**
+     * Забирает соединение у клиента: обертка закрывается для клиента,
+     * физическое соединение закрывается, а пул при необходимости открывает новое
+     *
+     * @param borrowedAt момент выдачи, по которому соединение признано утекшим
+     * @return true, если соединение было отозвано
+     */
+    private boolean reclaim(PoolEntry entry, long borrowedAt, long heldNanos) {
+        if (!entry.compareAndSetState(STATE_IN_USE, STATE_RESERVED)) {
+            return false;
+        }
+        if (entry.borrowedAt != borrowedAt) {
+            // Соединение успели вернуть и, возможно, выдать заново: новую выдачу не трогаем.
+            // Если клиент возвращает соединение прямо сейчас, CAS не удастся: слот уже
+            // удален клиентом в release(), и возвращать его в IN_USE нельзя
+            entry.compareAndSetState(STATE_RESERVED, STATE_IN_USE);
+            return false;
+        }
+        entry.evictOnRelease = true;
+        entry.pooledConnection.revoke();
+        // Отозванное соединение клиент уже не вернет, поэтому место в разделе освобождаем здесь
+        releasePartition(entry);
+        logLeak(entry, heldNanos);
+        try {
+            // abort не ждет завершения запроса, который клиент, возможно, еще выполняет
+            entry.connection.abort(Runnable::run);
+        } catch (SQLException e) {
+            log.debug("Не удалось прервать соединение: {}", e.getMessage());
+        }
+        connectionsReclaimed.increment();
+        log.warn("Соединение отозвано у клиента и закрыто");
+        evict(entry);
+        fillPool();
+        return true;
+    }
+
+    /**
+     * Принудительно забирает соединения, удерживаемые клиентами дольше заданного времени.
+     * Клиент отозванного соединения получит ошибку при следующем обращении к нему.
+     *
+     * @param heldMillis минимальное время удержания в миллисекундах
+     * @return количество отозванных соединений
+     */
+    public int reclaimConnectionsHeldLongerThan(long heldMillis) {
+        long now = System.nanoTime();
+        long threshold = TimeUnit.MILLISECONDS.toNanos(heldMillis);
+        int reclaimed = 0;
+        for (PoolEntry entry : entries) {
+            long borrowedAt = entry.borrowedAt;
+            long held = now - borrowedAt;
+            if (entry.getState() == STATE_IN_USE && borrowedAt != 0 && held > threshold
+                    && reclaim(entry, borrowedAt, held)) {
+                reclaimed++;
+            }
+        }
+        return reclaimed;
+    }
+
+    /**
+     * @return сведения о соединениях, выданных клиентам, от удерживаемых дольше всего
+     */
+    public List<BorrowedConnectionInfo> getBorrowedConnections() {
+        long now = System.nanoTime();
+        List<BorrowedConnectionInfo> borrowed = new ArrayList<>();
+        for (PoolEntry entry : entries) {
+            long borrowedAt = entry.borrowedAt;
+            if (entry.getState() != STATE_IN_USE || borrowedAt == 0) {
+                continue;
+            }
+            String borrowSite = null;
+            if (entry.borrowSite != null) {
+                StringWriter stackTrace = new StringWriter();
+                entry.borrowSite.printStackTrace(new PrintWriter(stackTrace));
+                borrowSite = stackTrace.toString();
+            }
+            borrowed.add(new BorrowedConnectionInfo(TimeUnit.NANOSECONDS.toMillis(now - borrowedAt),
+                    entry.borrowThread, borrowSite));
+        }
+        borrowed.sort(Comparator.comparingLong(BorrowedConnectionInfo::getHeldMillis).reversed());
+        return borrowed;
+    }
+
+    /**
+     * @return порог обнаружения утечек в миллисекундах (0 — проверка отключена)
+     */
+    public long getLeakDetectionThresholdMillis() {
+        return settings.getLeakDetectionThresholdMillis();
+    }
+
+    private boolean isExpired(PoolEntry entry) {
+        long maxLifetime = settings.getMaxLifetimeMillis();
+        return maxLifetime > 0 && System.nanoTime() - entry.createdAt > TimeUnit.MILLISECONDS.toNanos(maxLifetime);
+    }
+
+    private boolean isValid(Connection connection) {
+        try {
+            String validationQuery = settings.getValidationQuery();
+            if (validationQuery == null) {
+                return connection.isValid(settings.getValidationTimeoutSeconds());
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.setQueryTimeout(settings.getValidationTimeoutSeconds());
+                statement.execute(validationQuery);
+            }
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+            }
+            return true;
+        } catch (SQLException e) {
+            log.debug("Соединение не прошло проверку: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Дополняет пул в фоне, пока свободных соединений меньше {@code minIdle}
+     */
+    private void fillPool() {
+        int missing = settings.getMinIdle() - getAvailableConnections() - pendingCreations.get();
+        for (int i = 0; i < missing; i++) {
+            addConnectionAsync();
+        }
+    }
+
+    private void addEntry(PoolEntry entry) {
+        entriesLock.lock();
+        try {
+            PoolEntry[] current = entries;
+            PoolEntry[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = entry;
+            entries = updated;
+        } finally {
+            entriesLock.unlock();
+        }
+        if (entry.getState() == STATE_NOT_IN_USE) {
+            handOff(entry);
+        }
+    }
+
+    /**
+     * @return true, если слот удален этим вызовом, и false, если его уже удалил другой поток
+     */
+    private boolean removeEntry(PoolEntry entry) {
+        if (!entry.markRemoved()) {
+            return false;
+        }
+        entriesLock.lock();
+        try {
+            PoolEntry[] current = entries;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i] == entry) {
+                    PoolEntry[] updated = new PoolEntry[current.length - 1];
+                    System.arraycopy(current, 0, updated, 0, i);
+                    System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                    entries = updated;
+                    break;
+                }
+            }
+        } finally {
+            entriesLock.unlock();
+        }
+        return true;
+    }
+
+    /**
+     * Закрывает все соединения в пуле
+     */
+    public void closeAllConnections() {
+        shutdown = true;
+        housekeeper.shutdownNow();
+        connectionCreator.shutdownNow();
+
+        PoolEntry[] closing;
+        entriesLock.lock();
+        try {
+            closing = entries;
+            entries = NO_ENTRIES;
+        } finally {
+            entriesLock.unlock();
+        }
+        for (PoolEntry entry : closing) {
+            entry.markRemoved();
+            closeQuietly(entry.connection);
+        }
+        log.info("Все соединения закрыты. Кэш выражений: попаданий {}, промахов {}",
+                statementCacheHits.sum(), statementCacheMisses.sum());
+    }
+
+    private void closeQuietly(Connection connection) {
+        try {
+            if (!connection.isClosed()) {
+                connection.close();
+            }
+        } catch (SQLException e) {
+            log.error("Ошибка при закрытии соединения", e);
+        }
+    }
+
+    private int countEntries(int state) {
+        int count = 0;
+        for (PoolEntry entry : entries) {
+            if (entry.getState() == state) {
+                count++;
             }
         }
-        connections.clear();
+        return count;
     }
 
     /**
      * @return текущий размер пула соединений
      */
+    @Override
     public int getPoolSize() {
-        return connectionPool.size() + usedConnections.size();
+        return entries.length;
     }
 
     /**
      * @return количество свободных соединений
      */
+    @Override
     public int getAvailableConnections() {
-        return connectionPool.size();
+        return countEntries(STATE_NOT_IN_USE);
     }
 
     /**
      * @return количество используемых соединений
      */
+    @Override
     public int getUsedConnections() {
-        return usedConnections.size();
+        return countEntries(STATE_IN_USE);
+    }
+
+    int getStatementCacheSize() {
+        return settings.getStatementCacheSize();
+    }
+
+    void recordStatementCacheHit() {
+        statementCacheHits.increment();
+    }
+
+    void recordStatementCacheMiss() {
+        statementCacheMisses.increment();
+    }
+
+    /**
+     * @return количество подготовленных выражений, выданных из кэша
+     */
+    @Override
+    public long getStatementCacheHits() {
+        return statementCacheHits.sum();
+    }
+
+    /**
+     * @return количество подготовленных выражений, которые пришлось подготовить заново
+     */
+    @Override
+    public long getStatementCacheMisses() {
+        return statementCacheMisses.sum();
+    }
+
+    /**
+     * @return количество потоков, ожидающих соединение
+     */
+    @Override
+    public int getWaitingThreads() {
+        return waiters.get();
+    }
+
+    @Override
+    public String getCircuitBreakerState() {
+        return circuitBreaker.getState().name();
+    }
+
+    @Override
+    public long getCircuitBreakerRejections() {
+        return circuitBreakerRejections.sum();
+    }
+
+    @Override
+    public long getConnectionTimeouts() {
+        return connectionTimeouts.sum();
+    }
+
+    @Override
+    public long getConnectionsCreated() {
+        return connectionsCreated.sum();
+    }
+
+    @Override
+    public long getConnectionsEvicted() {
+        return connectionsEvicted.sum();
+    }
+
+    @Override
+    public long getValidationFailures() {
+        return validationFailures.sum();
+    }
+
+    @Override
+    public long getConnectionsReclaimed() {
+        return connectionsReclaimed.sum();
+    }
+
+    @Override
+    public LatencyHistogram.Snapshot getWaitTime() {
+        return waitTime.snapshot();
+    }
+
+    @Override
+    public LatencyHistogram.Snapshot getHoldTime() {
+        return holdTime.snapshot();
+    }
+
+    @Override
+    public List<PoolPartitionStats> getPartitions() {
+        List<PoolPartitionStats> stats = new ArrayList<>();
+        for (PartitionLimiter partition : partitions.values()) {
+            stats.add(partition.stats());
+        }
+        stats.sort(Comparator.comparing(PoolPartitionStats::getName));
+        return stats;
     }
 }
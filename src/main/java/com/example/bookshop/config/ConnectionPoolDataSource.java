@@ -2,17 +2,15 @@ package com.example.bookshop.config;
 
 import javax.sql.DataSource;
 import java.io.PrintWriter;
-import java.lang.reflect.InvocationHandler;
-import java.lang.reflect.Method;
-import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
 import java.util.logging.Logger;
 
 /**
- * DataSource implementation that obtains connections from {@link ConnectionPool}
- * and returns them to the pool when {@link Connection#close()} is called.
+ * DataSource implementation that obtains connections from {@link ConnectionPool}.
+ * Returned connections are {@link PooledConnection} instances that go back
+ * to the pool when {@link Connection#close()} is called.
  */
 public class ConnectionPoolDataSource implements DataSource {
     private final ConnectionPool connectionPool;
@@ -23,8 +21,7 @@ public class ConnectionPoolDataSource implements DataSource {
 
     @Override
     public Connection getConnection() throws SQLException {
-        Connection connection = connectionPool.getConnection();
-        return wrap(connection);
+        return connectionPool.getConnection();
     }
 
     @Override
@@ -32,11 +29,6 @@ public class ConnectionPoolDataSource implements DataSource {
         return getConnection();
     }
 
-    private Connection wrap(Connection connection) {
-        InvocationHandler handler = new PooledConnectionInvocationHandler(connection, connectionPool);
-        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class[]{Connection.class}, handler);
-    }
-
     @Override
     public PrintWriter getLogWriter() throws SQLException {
         throw new SQLFeatureNotSupportedException();
@@ -71,23 +63,4 @@ public class ConnectionPoolDataSource implements DataSource {
     public boolean isWrapperFor(Class<?> iface) throws SQLException {
         return false;
     }
-
-    private static class PooledConnectionInvocationHandler implements InvocationHandler {
-        private final Connection delegate;
-        private final ConnectionPool pool;
-
-        PooledConnectionInvocationHandler(Connection delegate, ConnectionPool pool) {
-            this.delegate = delegate;
-            this.pool = pool;
-        }
-
-        @Override
-        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-            if ("close".equals(method.getName())) {
-                pool.releaseConnection(delegate);
-                return null;
-            }
-            return method.invoke(delegate, args);
-        }
-    }
 }
@@ -0,0 +1,71 @@
+package com.example.bookshop.config;
+
+import java.util.List;
+
+/**
+ * Метрики пула соединений, публикуемые через JMX
+ */
+public interface ConnectionPoolMXBean {
+
+    int getPoolSize();
+
+    int getAvailableConnections();
+
+    int getUsedConnections();
+
+    int getWaitingThreads();
+
+    long getStatementCacheHits();
+
+    long getStatementCacheMisses();
+
+    /**
+     * @return состояние автоматического выключателя: CLOSED, OPEN или HALF_OPEN
+     */
+    String getCircuitBreakerState();
+
+    /**
+     * @return количество запросов соединения, отклоненных при разомкнутой цепи
+     */
+    long getCircuitBreakerRejections();
+
+    /**
+     * @return количество запросов соединения, завершившихся по таймауту
+     */
+    long getConnectionTimeouts();
+
+    /**
+     * @return количество открытых физических соединений за время работы пула
+     */
+    long getConnectionsCreated();
+
+    /**
+     * @return количество закрытых пулом соединений (простой, время жизни, ошибки, утечки)
+     */
+    long getConnectionsEvicted();
+
+    /**
+     * @return количество соединений, не прошедших фоновую проверку
+     */
+    long getValidationFailures();
+
+    /**
+     * @return количество соединений, принудительно отозванных у клиентов
+     */
+    long getConnectionsReclaimed();
+
+    /**
+     * @return время ожидания соединения клиентом
+     */
+    LatencyHistogram.Snapshot getWaitTime();
+
+    /**
+     * @return время удержания соединения клиентом
+     */
+    LatencyHistogram.Snapshot getHoldTime();
+
+    /**
+     * @return метрики насыщения разделов пула ({@link PoolPartition})
+     */
+    List<PoolPartitionStats> getPartitions();
+}
@@ -0,0 +1,254 @@
+package com.example.bookshop.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Параметры пула соединений {@link ConnectionPool}.
+ * Значения по умолчанию соответствуют значениям в application.properties.
+ */
+public class ConnectionPoolSettings {
+
+    private int initialSize = 5;
+    private int minIdle = 2;
+    private int maxIdle = 8;
+    private int maxTotal = 10;
+    private long maxWaitMillis = 10_000;
+    private long idleTimeoutMillis = 600_000;
+    private long housekeepingPeriodMillis = 30_000;
+    private String validationQuery;
+    private int validationTimeoutSeconds = 5;
+    private long maxLifetimeMillis = 1_800_000;
+    private int statementCacheSize = 50;
+    private long leakDetectionThresholdMillis;
+    private double leakStackSampleRate;
+    private long leakReclaimThresholdMillis;
+    private int circuitBreakerFailureThreshold = 5;
+    private long circuitBreakerOpenMillis = 5_000;
+    private Map<String, Integer> partitionLimits = Map.of();
+
+    /**
+     * @return количество соединений, открываемых при старте пула
+     */
+    public int getInitialSize() {
+        return initialSize;
+    }
+
+    public void setInitialSize(int initialSize) {
+        this.initialSize = initialSize;
+    }
+
+    /**
+     * @return минимальное количество свободных соединений, ниже которого пул не сокращается
+     */
+    public int getMinIdle() {
+        return minIdle;
+    }
+
+    public void setMinIdle(int minIdle) {
+        this.minIdle = minIdle;
+    }
+
+    /**
+     * @return максимальное количество свободных соединений; лишние закрываются
+     */
+    public int getMaxIdle() {
+        return maxIdle;
+    }
+
+    public void setMaxIdle(int maxIdle) {
+        this.maxIdle = maxIdle;
+    }
+
+    /**
+     * @return максимальное общее количество соединений
+     */
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    public void setMaxTotal(int maxTotal) {
+        this.maxTotal = maxTotal;
+    }
+
+    /**
+     * @return максимальное время ожидания свободного соединения в миллисекундах
+     */
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    public void setMaxWaitMillis(long maxWaitMillis) {
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    /**
+     * @return время простоя, после которого соединение сверх minIdle закрывается
+     */
+    public long getIdleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+
+    public void setIdleTimeoutMillis(long idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    /**
+     * @return период фонового обслуживания пула в миллисекундах
+     */
+    public long getHousekeepingPeriodMillis() {
+        return housekeepingPeriodMillis;
+    }
+
+    public void setHousekeepingPeriodMillis(long housekeepingPeriodMillis) {
+        this.housekeepingPeriodMillis = housekeepingPeriodMillis;
+    }
+
+    /**
+     * @return запрос для проверки соединения; если не задан, используется {@link java.sql.Connection#isValid(int)}
+     */
+    public String getValidationQuery() {
+        return validationQuery;
+    }
+
+    public void setValidationQuery(String validationQuery) {
+        this.validationQuery = validationQuery;
+    }
+
+    /**
+     * @return время ожидания ответа при проверке соединения в секундах
+     */
+    public int getValidationTimeoutSeconds() {
+        return validationTimeoutSeconds;
+    }
+
+    public void setValidationTimeoutSeconds(int validationTimeoutSeconds) {
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+    }
+
+    /**
+     * @return максимальное время жизни соединения в миллисекундах (0 — без ограничения)
+     */
+    public long getMaxLifetimeMillis() {
+        return maxLifetimeMillis;
+    }
+
+    public void setMaxLifetimeMillis(long maxLifetimeMillis) {
+        this.maxLifetimeMillis = maxLifetimeMillis;
+    }
+
+    /**
+     * @return количество подготовленных выражений, кэшируемых на одно соединение (0 — кэш отключен)
+     */
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    public void setStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    /**
+     * @return время удержания соединения, после которого оно считается утечкой и попадает в лог (0 — проверка отключена)
+     */
+    public long getLeakDetectionThresholdMillis() {
+        return leakDetectionThresholdMillis;
+    }
+
+    public void setLeakDetectionThresholdMillis(long leakDetectionThresholdMillis) {
+        this.leakDetectionThresholdMillis = leakDetectionThresholdMillis;
+    }
+
+    /**
+     * @return доля выдач соединения (от 0 до 1), для которых запоминается стек вызова
+     */
+    public double getLeakStackSampleRate() {
+        return leakStackSampleRate;
+    }
+
+    public void setLeakStackSampleRate(double leakStackSampleRate) {
+        this.leakStackSampleRate = leakStackSampleRate;
+    }
+
+    /**
+     * @return время удержания соединения, после которого пул принудительно забирает его (0 — не забирать)
+     */
+    public long getLeakReclaimThresholdMillis() {
+        return leakReclaimThresholdMillis;
+    }
+
+    public void setLeakReclaimThresholdMillis(long leakReclaimThresholdMillis) {
+        this.leakReclaimThresholdMillis = leakReclaimThresholdMillis;
+    }
+
+    /**
+     * @return количество ошибок соединения подряд, после которого пул перестает выдавать соединения (0 — не размыкать)
+     */
+    public int getCircuitBreakerFailureThreshold() {
+        return circuitBreakerFailureThreshold;
+    }
+
+    public void setCircuitBreakerFailureThreshold(int circuitBreakerFailureThreshold) {
+        this.circuitBreakerFailureThreshold = circuitBreakerFailureThreshold;
+    }
+
+    /**
+     * @return время в миллисекундах, через которое после размыкания цепи пропускается пробный запрос
+     */
+    public long getCircuitBreakerOpenMillis() {
+        return circuitBreakerOpenMillis;
+    }
+
+    public void setCircuitBreakerOpenMillis(long circuitBreakerOpenMillis) {
+        this.circuitBreakerOpenMillis = circuitBreakerOpenMillis;
+    }
+
+    /**
+     * @return лимиты одновременно выданных соединений по разделам пула ({@link PoolPartition})
+     */
+    public Map<String, Integer> getPartitionLimits() {
+        return partitionLimits;
+    }
+
+    public void setPartitionLimits(Map<String, Integer> partitionLimits) {
+        this.partitionLimits = partitionLimits;
+    }
+
+    /**
+     * @return true, если включено обнаружение или принудительный возврат утекших соединений
+     */
+    boolean isLeakDetectionEnabled() {
+        return leakDetectionThresholdMillis > 0 || leakReclaimThresholdMillis > 0;
+    }
+
+    /**
+     * Приводит параметры к согласованному виду
+     * (например, minIdle не может превышать maxTotal)
+     */
+    void normalize() {
+        maxTotal = Math.max(1, maxTotal);
+        minIdle = Math.max(0, Math.min(minIdle, maxTotal));
+        maxIdle = Math.max(minIdle, Math.min(maxIdle, maxTotal));
+        initialSize = Math.max(0, Math.min(initialSize, maxTotal));
+        maxWaitMillis = Math.max(0, maxWaitMillis);
+        validationTimeoutSeconds = Math.max(1, validationTimeoutSeconds);
+        statementCacheSize = Math.max(0, statementCacheSize);
+        leakDetectionThresholdMillis = Math.max(0, leakDetectionThresholdMillis);
+        leakReclaimThresholdMillis = Math.max(0, leakReclaimThresholdMillis);
+        leakStackSampleRate = Math.max(0, Math.min(1, leakStackSampleRate));
+        circuitBreakerFailureThreshold = Math.max(0, circuitBreakerFailureThreshold);
+        circuitBreakerOpenMillis = Math.max(0, circuitBreakerOpenMillis);
+        Map<String, Integer> limits = new LinkedHashMap<>();
+        if (partitionLimits != null) {
+            partitionLimits.forEach((name, limit) -> {
+                if (name != null && !name.isBlank() && limit != null && limit > 0) {
+                    limits.put(name.trim(), Math.min(limit, maxTotal));
+                }
+            });
+        }
+        partitionLimits = limits;
+        if (validationQuery != null && validationQuery.isBlank()) {
+            validationQuery = null;
+        }
+    }
+}
@@ -1,21 +1,40 @@
 package com.example.bookshop.config;
 
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
 import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.PropertySource;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jmx.export.MBeanExporter;
+import org.springframework.jmx.support.RegistrationPolicy;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
 import jakarta.annotation.PreDestroy;
 import com.example.bookshop.config.ConnectionPool;
 import com.example.bookshop.config.ConnectionPoolDataSource;
 
 import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Конфигурация базы данных приложения с использованием пула соединений
+ * и управлением транзакциями через {@link DataSourceTransactionManager}
  */
 @Configuration
+@EnableTransactionManagement
 @PropertySource("classpath:application.properties")
 public class DatabaseConfig {
 
@@ -46,18 +65,201 @@ public class DatabaseConfig {
     @Value("${db.pool.maxWaitMillis:10000}")
     private long maxWaitMillis;
 
+    @Value("${db.pool.idleTimeoutMillis:600000}")
+    private long idleTimeoutMillis;
+
+    @Value("${db.pool.housekeepingPeriodMillis:30000}")
+    private long housekeepingPeriodMillis;
+
+    @Value("${db.pool.validationQuery:}")
+    private String validationQuery;
+
+    @Value("${db.pool.validationTimeoutSeconds:5}")
+    private int validationTimeoutSeconds;
+
+    @Value("${db.pool.maxLifetimeMillis:1800000}")
+    private long maxLifetimeMillis;
+
+    @Value("${db.pool.statementCacheSize:50}")
+    private int statementCacheSize;
+
+    @Value("${db.pool.leakDetectionThresholdMillis:0}")
+    private long leakDetectionThresholdMillis;
+
+    @Value("${db.pool.leakStackSampleRate:0}")
+    private double leakStackSampleRate;
+
+    @Value("${db.pool.leakReclaimThresholdMillis:0}")
+    private long leakReclaimThresholdMillis;
+
+    @Value("${db.pool.circuitBreakerFailureThreshold:5}")
+    private int circuitBreakerFailureThreshold;
+
+    @Value("${db.pool.circuitBreakerOpenMillis:5000}")
+    private long circuitBreakerOpenMillis;
+
+    @Value("${db.pool.partitions:}")
+    private String partitions;
+
+    @Value("${db.replica.enabled:false}")
+    private boolean replicaEnabled;
+
+    @Value("${db.replica.url:}")
+    private String replicaUrl;
+
+    @Value("${db.replica.username:${db.username:postgres}}")
+    private String replicaUsername;
+
+    @Value("${db.replica.password:${db.password:2121}}")
+    private String replicaPassword;
+
+    @Value("${db.replica.maxLagMillis:5000}")
+    private long replicaMaxLagMillis;
+
+    @Value("${db.replica.checkPeriodMillis:5000}")
+    private long replicaCheckPeriodMillis;
+
     private ConnectionPool connectionPool;
+    private ConnectionPool replicaConnectionPool;
+    private ReplicaHealthMonitor replicaHealthMonitor;
+
+    /**
+     * Создает пул соединений с основной БД
+     *
+     * @param startupReport отчет о длительности этапов запуска
+     * @return пул соединений
+     */
+    @Bean
+    public ConnectionPool connectionPool(StartupReport startupReport) {
+        long start = System.nanoTime();
+        connectionPool = new ConnectionPool(dbUrl, dbUsername, dbPassword, poolSettings());
+        startupReport.record("Пул соединений", start);
+        return connectionPool;
+    }
 
     /**
-     * Создает и настраивает {@link ConnectionPool} и соответствующий {@link DataSource}.
+     * Создает {@link DataSource} поверх пула соединений.
+     * <p>
+     * Если задано {@code db.replica.enabled=true}, создается второй пул для реплики,
+     * и транзакции {@code readOnly = true} направляются на нее через
+     * {@link ReadReplicaRoutingDataSource}. Все остальные обращения, включая миграции
+     * Flyway, выполняются на основной БД.
      *
+     * @param connectionPool пул соединений с основной БД
+     * @param startupReport отчет о длительности этапов запуска
      * @return источник данных, использующий пул соединений
      */
     @Bean
     @Primary
-    public DataSource dataSource() {
-        connectionPool = new ConnectionPool(dbUrl, dbUsername, dbPassword, maxTotal);
-        return new ConnectionPoolDataSource(connectionPool);
+    public DataSource dataSource(ConnectionPool connectionPool, StartupReport startupReport) {
+        DataSource primary = new ConnectionPoolDataSource(connectionPool);
+        if (!replicaEnabled || replicaUrl.isBlank()) {
+            return primary;
+        }
+
+        long start = System.nanoTime();
+        replicaConnectionPool = new ConnectionPool(replicaUrl, replicaUsername, replicaPassword, poolSettings());
+        startupReport.record("Пул соединений реплики", start);
+        DataSource replica = new ConnectionPoolDataSource(replicaConnectionPool);
+        replicaHealthMonitor = new ReplicaHealthMonitor(replica, replicaMaxLagMillis,
+                replicaCheckPeriodMillis, validationTimeoutSeconds);
+        replicaHealthMonitor.start();
+
+        // Соединение берется при первом запросе, когда признак readOnly транзакции уже известен
+        ReadReplicaRoutingDataSource routingDataSource =
+                new ReadReplicaRoutingDataSource(primary, replica, replicaHealthMonitor);
+        routingDataSource.afterPropertiesSet();
+        LazyConnectionDataSourceProxy lazyDataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        lazyDataSource.setDefaultAutoCommit(true);
+        lazyDataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        return lazyDataSource;
+    }
+
+    /**
+     * Собирает параметры пула из свойств db.pool.*
+     *
+     * @return параметры пула соединений
+     */
+    private ConnectionPoolSettings poolSettings() {
+        ConnectionPoolSettings settings = new ConnectionPoolSettings();
+        settings.setInitialSize(initialSize);
+        settings.setMinIdle(minIdle);
+        settings.setMaxIdle(maxIdle);
+        settings.setMaxTotal(maxTotal);
+        settings.setMaxWaitMillis(maxWaitMillis);
+        settings.setIdleTimeoutMillis(idleTimeoutMillis);
+        settings.setHousekeepingPeriodMillis(housekeepingPeriodMillis);
+        settings.setValidationQuery(validationQuery);
+        settings.setValidationTimeoutSeconds(validationTimeoutSeconds);
+        settings.setMaxLifetimeMillis(maxLifetimeMillis);
+        settings.setStatementCacheSize(statementCacheSize);
+        settings.setLeakDetectionThresholdMillis(leakDetectionThresholdMillis);
+        settings.setLeakStackSampleRate(leakStackSampleRate);
+        settings.setLeakReclaimThresholdMillis(leakReclaimThresholdMillis);
+        settings.setCircuitBreakerFailureThreshold(circuitBreakerFailureThreshold);
+        settings.setCircuitBreakerOpenMillis(circuitBreakerOpenMillis);
+        settings.setPartitionLimits(parsePartitionLimits(partitions));
+        return settings;
+    }
+
+    /**
+     * Разбирает лимиты разделов пула в формате {@code reporting=6,admin=4}
+     *
+     * @param value значение свойства db.pool.partitions
+     * @return лимиты по имени раздела
+     */
+    private static Map<String, Integer> parsePartitionLimits(String value) {
+        Map<String, Integer> limits = new LinkedHashMap<>();
+        if (value == null || value.isBlank()) {
+            return limits;
+        }
+        for (String item : value.split(",")) {
+            String[] pair = item.split("=", 2);
+            if (pair.length != 2 || pair[0].isBlank()) {
+                throw new IllegalArgumentException("Некорректный раздел пула в db.pool.partitions: " + item);
+            }
+            limits.put(pair[0].trim(), Integer.parseInt(pair[1].trim()));
+        }
+        return limits;
+    }
+
+    /**
+     * Выбирает раздел пула соединений на время вызова методов контроллеров и сервисов,
+     * помеченных {@link PoolPartition}. Совет выполняется раньше транзакционного,
+     * чтобы соединение транзакции тоже учитывалось в лимите раздела.
+     *
+     * @return советник, применяемый к бинам с аннотацией {@link PoolPartition}
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor poolPartitionAdvisor() {
+        ComposablePointcut pointcut = new ComposablePointcut(new AnnotationMatchingPointcut(PoolPartition.class, true))
+                .union(AnnotationMatchingPointcut.forMethodAnnotation(PoolPartition.class));
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(pointcut, new PoolPartitionInterceptor());
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+
+    /**
+     * Публикует метрики пулов соединений через JMX
+     * ({@code com.example.bookshop:type=ConnectionPool,name=primary|replica}).
+     * Регистрация снимается при остановке контекста.
+     *
+     * @return экспортер MBean пулов соединений
+     */
+    @Bean
+    @DependsOn("dataSource")
+    public MBeanExporter connectionPoolMBeanExporter() {
+        Map<String, Object> pools = new LinkedHashMap<>();
+        pools.put("com.example.bookshop:type=ConnectionPool,name=primary", connectionPool);
+        if (replicaConnectionPool != null) {
+            pools.put("com.example.bookshop:type=ConnectionPool,name=replica", replicaConnectionPool);
+        }
+        MBeanExporter exporter = new MBeanExporter();
+        exporter.setBeans(pools);
+        // При повторном развертывании в том же Tomcat старая регистрация могла остаться
+        exporter.setRegistrationPolicy(RegistrationPolicy.REPLACE_EXISTING);
+        return exporter;
     }
 
     /**
@@ -71,11 +273,32 @@ public class DatabaseConfig {
         return new JdbcTemplate(dataSource);
     }
 
+    /**
+     * Создает менеджер транзакций, который на время метода с {@code @Transactional}
+     * привязывает к потоку одно соединение из пула. Все вызовы JdbcTemplate внутри
+     * транзакции используют это соединение. Для транзакций {@code readOnly = true}
+     * соединение переводится в режим только для чтения, и драйвер PostgreSQL
+     * открывает транзакцию как {@code BEGIN READ ONLY}.
+     *
+     * @param dataSource источник данных с пулом соединений
+     * @return менеджер транзакций
+     */
+    @Bean
+    public PlatformTransactionManager transactionManager(DataSource dataSource) {
+        return new DataSourceTransactionManager(dataSource);
+    }
+
     /**
      * Закрывает пул соединений при остановке приложения
      */
     @PreDestroy
     public void closeConnectionPool() {
+        if (replicaHealthMonitor != null) {
+            replicaHealthMonitor.shutdown();
+        }
+        if (replicaConnectionPool != null) {
+            replicaConnectionPool.closeAllConnections();
+        }
         if (connectionPool != null) {
             connectionPool.closeAllConnections();
         }
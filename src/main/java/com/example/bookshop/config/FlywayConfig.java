@@ -14,14 +14,25 @@ import javax.sql.DataSource;
 public class FlywayConfig {
 
 
-    @Bean(initMethod = "migrate")
+    /**
+     * Создает Flyway и применяет миграции. Время применения попадает в отчет о запуске.
+     *
+     * @param dataSource источник данных
+     * @param startupReport отчет о длительности этапов запуска
+     * @return настроенный Flyway
+     */
+    @Bean
     @DependsOn("dataSource")
-    public Flyway flyway(DataSource dataSource) {
-        return Flyway.configure()
+    public Flyway flyway(DataSource dataSource, StartupReport startupReport) {
+        Flyway flyway = Flyway.configure()
                 .dataSource(dataSource)
                 .locations("classpath:db/migration")
                 .baselineOnMigrate(true)
                 .validateOnMigrate(true)
                 .load();
+        long start = System.nanoTime();
+        flyway.migrate();
+        startupReport.record("Миграции Flyway", start);
+        return flyway;
     }
 }
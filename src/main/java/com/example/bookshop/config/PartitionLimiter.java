@@ -0,0 +1,65 @@
+package com.example.bookshop.config;
+
+import java.sql.SQLException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Лимит одновременно выданных соединений для раздела пула.
+ * Ожидание построено на {@link Semaphore}, поэтому виртуальный поток,
+ * ожидающий разрешение, отпускает поток-носитель.
+ */
+final class PartitionLimiter {
+
+    private final String name;
+    private final int maxConnections;
+    private final Semaphore permits;
+
+    private final LatencyHistogram waitTime = new LatencyHistogram();
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    PartitionLimiter(String name, int maxConnections) {
+        this.name = name;
+        this.maxConnections = maxConnections;
+        this.permits = new Semaphore(maxConnections, true);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    /**
+     * Занимает место в разделе, ожидая не дольше {@code maxWaitMillis}
+     *
+     * @throws SQLException если место не освободилось за отведенное время
+     */
+    void acquire(long maxWaitMillis) throws SQLException {
+        long start = System.nanoTime();
+        boolean granted;
+        try {
+            granted = permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Не удалось получить соединение из раздела пула " + name, e);
+        }
+        waitTime.record(System.nanoTime() - start);
+        if (!granted) {
+            timeouts.increment();
+            throw new SQLException("Превышено время ожидания соединения в разделе пула " + name
+                    + " (лимит " + maxConnections + ")");
+        }
+        acquired.increment();
+    }
+
+    void release() {
+        permits.release();
+    }
+
+    PoolPartitionStats stats() {
+        return new PoolPartitionStats(name, maxConnections,
+                maxConnections - permits.availablePermits(), permits.getQueueLength(),
+                acquired.sum(), timeouts.sum(), waitTime.snapshot());
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.bookshop.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Автоматический выключатель пула соединений.
+ * <p>
+ * После {@code failureThreshold} ошибок подряд (не удалось открыть соединение,
+ * истекло время ожидания, соединение разорвано) цепь размыкается, и пул отклоняет
+ * запросы соединений сразу, не дожидаясь таймаута. Через {@code openMillis}
+ * цепь переходит в полуоткрытое состояние и пропускает один пробный запрос:
+ * его успех замыкает цепь, ошибка снова размыкает ее. Успехом считается
+ * открытие нового соединения или успешная проверка соединения (фоновая или
+ * пробного запроса), поэтому цепь замыкается и фоновым пополнением пула.
+ * Возврат соединения в пул успехом не считается: соединение могли выдать
+ * до отказа базы.
+ */
+final class PoolCircuitBreaker {
+    private static final Logger log = LoggerFactory.getLogger(PoolCircuitBreaker.class);
+
+    enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openMillis;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private volatile long openedAt;
+
+    PoolCircuitBreaker(int failureThreshold, long openMillis) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * Проверяет, можно ли выдать соединение. В полуоткрытом состоянии
+     * разрешение получает только один поток.
+     *
+     * @return true, если запрос соединения можно выполнить
+     */
+    boolean tryAcquirePermission() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN
+                && System.nanoTime() - openedAt >= TimeUnit.MILLISECONDS.toNanos(openMillis)
+                && state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+            log.info("Пробный запрос соединения после размыкания цепи");
+            return true;
+        }
+        return false;
+    }
+
+    void recordSuccess() {
+        if (consecutiveFailures.get() != 0) {
+            consecutiveFailures.set(0);
+        }
+        if (state.get() != State.CLOSED && state.getAndSet(State.CLOSED) != State.CLOSED) {
+            log.info("База данных снова доступна, цепь замкнута");
+        }
+    }
+
+    /**
+     * Учитывает ошибку соединения
+     *
+     * @return true, если цепь разомкнулась в результате этой ошибки
+     */
+    boolean recordFailure() {
+        if (failureThreshold <= 0) {
+            return false;
+        }
+        int failures = consecutiveFailures.incrementAndGet();
+        State current = state.get();
+        if (current == State.HALF_OPEN || (current == State.CLOSED && failures >= failureThreshold)) {
+            openedAt = System.nanoTime();
+            if (state.compareAndSet(current, State.OPEN)) {
+                log.warn("База данных недоступна ({} ошибок соединения подряд), цепь разомкнута на {} мс",
+                        failures, openMillis);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return сколько миллисекунд осталось до пробного запроса
+     */
+    long getRetryAfterMillis() {
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - openedAt);
+        return Math.max(0, openMillis - elapsed);
+    }
+
+    State getState() {
+        return state.get();
+    }
+}
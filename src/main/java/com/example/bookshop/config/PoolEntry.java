@@ -0,0 +1,89 @@
+package com.example.bookshop.config;
+
+import java.sql.Connection;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Слот пула соединений: физическое соединение и его состояние.
+ * Переходы между состояниями выполняются через CAS, поэтому выдача
+ * и возврат соединения не требуют блокировок.
+ */
+final class PoolEntry {
+
+    /** Соединение свободно и может быть выдано */
+    static final int STATE_NOT_IN_USE = 0;
+    /** Соединение выдано клиенту */
+    static final int STATE_IN_USE = 1;
+    /** Соединение удалено из пула и больше не выдается */
+    static final int STATE_REMOVED = -1;
+    /** Соединение временно захвачено пулом для служебных операций */
+    static final int STATE_RESERVED = -2;
+
+    private static final AtomicIntegerFieldUpdater<PoolEntry> STATE_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(PoolEntry.class, "state");
+    private static final AtomicReferenceFieldUpdater<PoolEntry, PartitionLimiter> PARTITION_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(PoolEntry.class, PartitionLimiter.class, "partition");
+
+    final Connection connection;
+    /** Обертка, выдаваемая клиентам пула; создается один раз на физическое соединение */
+    final PooledConnection pooledConnection;
+    final long createdAt;
+    volatile long lastAccessed;
+    /** Соединение нужно закрыть при возврате в пул, а не выдавать повторно */
+    volatile boolean evictOnRelease;
+    /** Момент последней выдачи соединения клиенту */
+    volatile long borrowedAt;
+    /** Поток, получивший соединение; заполняется, только если включено обнаружение утечек */
+    volatile String borrowThread;
+    /** Стек вызова при выдаче; заполняется для выборки выдач, если включено обнаружение утечек */
+    volatile Throwable borrowSite;
+    /** Утечка по текущей выдаче уже записана в лог */
+    volatile boolean leakReported;
+
+    private volatile int state;
+    /** Раздел пула, в лимите которого учтена текущая выдача */
+    private volatile PartitionLimiter partition;
+
+    PoolEntry(Connection connection, ConnectionPool pool) {
+        this.connection = connection;
+        this.pooledConnection = new PooledConnection(pool, this, connection);
+        this.createdAt = System.nanoTime();
+        this.lastAccessed = createdAt;
+    }
+
+    int getState() {
+        return state;
+    }
+
+    void setState(int newState) {
+        state = newState;
+    }
+
+    void setPartition(PartitionLimiter partition) {
+        this.partition = partition;
+    }
+
+    /**
+     * Забирает раздел текущей выдачи, чтобы место в нем освободилось ровно один раз:
+     * при возврате соединения или при его принудительном отзыве
+     *
+     * @return раздел выдачи или null, если выдача не учитывалась в разделе
+     */
+    PartitionLimiter takePartition() {
+        return PARTITION_UPDATER.getAndSet(this, null);
+    }
+
+    boolean compareAndSetState(int expect, int update) {
+        return STATE_UPDATER.compareAndSet(this, expect, update);
+    }
+
+    /**
+     * Переводит слот в состояние {@link #STATE_REMOVED}
+     *
+     * @return true, если слот удален этим вызовом, и false, если он уже был удален
+     */
+    boolean markRemoved() {
+        return STATE_UPDATER.getAndSet(this, STATE_REMOVED) != STATE_REMOVED;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.bookshop.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Раздел пула соединений, из которого метод получает соединения.
+ * <p>
+ * Ставится на метод или класс контроллера либо сервиса. Пока выполняется
+ * помеченный метод, каждое соединение, выданное пулом в этом потоке, учитывается
+ * в лимите раздела, заданном в {@code db.pool.partitions}. Когда лимит исчерпан,
+ * запросы раздела ждут друг друга и не занимают соединения, оставленные для
+ * остальных запросов (прежде всего оформления заказов). Аннотация на методе
+ * имеет приоритет над аннотацией на классе; раздел без лимита в настройках
+ * ничем не ограничен.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface PoolPartition {
+
+    /**
+     * @return имя раздела, например {@code reporting} или {@code admin}
+     */
+    String value();
+}
@@ -0,0 +1,44 @@
+package com.example.bookshop.config;
+
+/**
+ * Раздел пула соединений, выбранный для текущего потока через {@link PoolPartition}
+ */
+public final class PoolPartitionContext {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private PoolPartitionContext() {
+    }
+
+    /**
+     * @return имя текущего раздела или null, если раздел не выбран
+     */
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Выбирает раздел для текущего потока
+     *
+     * @param partition имя раздела
+     * @return ранее выбранный раздел, который нужно передать в {@link #restore(String)}
+     */
+    public static String enter(String partition) {
+        String previous = CURRENT.get();
+        CURRENT.set(partition);
+        return previous;
+    }
+
+    /**
+     * Восстанавливает раздел, выбранный до вызова {@link #enter(String)}
+     *
+     * @param previous ранее выбранный раздел или null
+     */
+    public static void restore(String previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
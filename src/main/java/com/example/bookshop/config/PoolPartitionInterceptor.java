@@ -0,0 +1,41 @@
+package com.example.bookshop.config;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+import java.lang.reflect.Method;
+
+/**
+ * Выбирает раздел пула соединений на время вызова метода,
+ * помеченного {@link PoolPartition} (или метода помеченного класса)
+ */
+class PoolPartitionInterceptor implements MethodInterceptor {
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        String partition = resolvePartition(invocation);
+        if (partition == null) {
+            return invocation.proceed();
+        }
+        String previous = PoolPartitionContext.enter(partition);
+        try {
+            return invocation.proceed();
+        } finally {
+            PoolPartitionContext.restore(previous);
+        }
+    }
+
+    private static String resolvePartition(MethodInvocation invocation) {
+        Class<?> targetClass = invocation.getThis() != null
+                ? AopUtils.getTargetClass(invocation.getThis())
+                : invocation.getMethod().getDeclaringClass();
+        Method method = AopUtils.getMostSpecificMethod(invocation.getMethod(), targetClass);
+        PoolPartition annotation = AnnotatedElementUtils.findMergedAnnotation(method, PoolPartition.class);
+        if (annotation == null) {
+            annotation = AnnotatedElementUtils.findMergedAnnotation(targetClass, PoolPartition.class);
+        }
+        return annotation != null ? annotation.value() : null;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.bookshop.config;
+
+/**
+ * Метрики насыщения раздела пула соединений
+ */
+public class PoolPartitionStats {
+    private final String name;
+    private final int maxConnections;
+    private final int usedConnections;
+    private final int waitingThreads;
+    private final long acquired;
+    private final long timeouts;
+    private final LatencyHistogram.Snapshot waitTime;
+
+    public PoolPartitionStats(String name, int maxConnections, int usedConnections, int waitingThreads,
+                              long acquired, long timeouts, LatencyHistogram.Snapshot waitTime) {
+        this.name = name;
+        this.maxConnections = maxConnections;
+        this.usedConnections = usedConnections;
+        this.waitingThreads = waitingThreads;
+        this.acquired = acquired;
+        this.timeouts = timeouts;
+        this.waitTime = waitTime;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return максимальное количество соединений, одновременно выданных разделу
+     */
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * @return количество соединений, выданных разделу сейчас
+     */
+    public int getUsedConnections() {
+        return usedConnections;
+    }
+
+    /**
+     * @return примерное количество потоков, ожидающих место в разделе
+     */
+    public int getWaitingThreads() {
+        return waitingThreads;
+    }
+
+    /**
+     * @return количество соединений, выданных разделу за время работы пула
+     */
+    public long getAcquired() {
+        return acquired;
+    }
+
+    /**
+     * @return количество запросов, не дождавшихся места в разделе
+     */
+    public long getTimeouts() {
+        return timeouts;
+    }
+
+    /**
+     * @return время ожидания места в разделе
+     */
+    public LatencyHistogram.Snapshot getWaitTime() {
+        return waitTime;
+    }
+}
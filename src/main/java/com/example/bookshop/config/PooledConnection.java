@@ -0,0 +1,758 @@
+package com.example.bookshop.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.CallableStatement;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.NClob;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLClientInfoException;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Savepoint;
+import java.sql.ShardingKey;
+import java.sql.Statement;
+import java.sql.Struct;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+
+/**
+ * Соединение, выдаваемое пулом {@link ConnectionPool}.
+ * <p>
+ * Один экземпляр создается на каждое физическое соединение и повторно
+ * используется при каждой выдаче, поэтому получение соединения из пула
+ * не создает новых объектов. Все вызовы напрямую делегируются физическому
+ * соединению, а подготовленные выражения берутся из кэша {@link StatementCache};
+ * {@link #close()} возвращает соединение в пул и закрывает оставшиеся
+ * открытыми выражения. При возврате сбрасываются только те свойства сессии
+ * (autoCommit, readOnly, уровень изоляции, схема, карта типов, holdability,
+ * свойства клиента и т. д.), которые клиент изменил, поэтому в обычном случае
+ * возврат не обращается к драйверу.
+ * Повторное закрытие игнорируется, а обращение к закрытому соединению
+ * приводит к {@link SQLException}, поэтому хранить ссылку на соединение
+ * после {@link #close()} нельзя.
+ */
+final class PooledConnection implements Connection {
+    private static final Logger log = LoggerFactory.getLogger(PooledConnection.class);
+
+    /** Признаки свойств сессии, измененных клиентом во время текущей выдачи */
+    private static final int DIRTY_AUTO_COMMIT = 1;
+    private static final int DIRTY_READ_ONLY = 1 << 1;
+    private static final int DIRTY_ISOLATION = 1 << 2;
+    private static final int DIRTY_CATALOG = 1 << 3;
+    private static final int DIRTY_SCHEMA = 1 << 4;
+    private static final int DIRTY_NETWORK_TIMEOUT = 1 << 5;
+    private static final int DIRTY_WARNINGS = 1 << 6;
+    private static final int DIRTY_TYPE_MAP = 1 << 7;
+    private static final int DIRTY_HOLDABILITY = 1 << 8;
+    private static final int DIRTY_CLIENT_INFO = 1 << 9;
+
+    private final ConnectionPool pool;
+    private final PoolEntry entry;
+    private final Connection delegate;
+    private final ArrayList<PooledStatement<?>> openStatements = new ArrayList<>();
+    private final StatementCache statementCache;
+
+    private volatile boolean closed = true;
+
+    /*
+     * Все изменения свойств сессии проходят через эту обертку, поэтому текущие
+     * значения известны без обращения к драйверу, а исходные запоминаются
+     * при первом изменении любого свойства.
+     */
+    private int dirtyBits;
+    private boolean defaultsCaptured;
+    private boolean defaultAutoCommit;
+    private boolean defaultReadOnly;
+    private int defaultIsolation;
+    private String defaultCatalog;
+    private String defaultSchema;
+    private int defaultNetworkTimeout;
+    private Map<String, Class<?>> defaultTypeMap;
+    private int defaultHoldability;
+    /** Исходные свойства клиента; запоминаются отдельно при первом setClientInfo */
+    private Properties defaultClientInfo;
+    private boolean autoCommit;
+    private boolean readOnly;
+    private int isolation;
+    private String catalog;
+    private String schema;
+    private int networkTimeout;
+    private int holdability;
+
+    PooledConnection(ConnectionPool pool, PoolEntry entry, Connection delegate) {
+        this.pool = pool;
+        this.entry = entry;
+        this.delegate = delegate;
+        this.statementCache = new StatementCache(pool.getStatementCacheSize());
+    }
+
+    /**
+     * Открывает соединение для очередного клиента пула
+     *
+     * @return это соединение
+     */
+    PooledConnection open() {
+        closed = false;
+        return this;
+    }
+
+    /**
+     * Отзывает соединение у клиента, удерживающего его слишком долго.
+     * Дальнейшие обращения клиента завершатся ошибкой, а закрытие будет проигнорировано.
+     */
+    void revoke() {
+        closed = true;
+    }
+
+    void checkOpen() throws SQLException {
+        if (closed) {
+            throw new SQLException("Соединение уже возвращено в пул", "08003");
+        }
+    }
+
+    private void checkClientInfoOpen() throws SQLClientInfoException {
+        if (closed) {
+            throw new SQLClientInfoException("Соединение уже возвращено в пул", Map.of());
+        }
+    }
+
+    /**
+     * Помечает соединение как неисправное, если ошибка означает разрыв соединения.
+     * Класс SQLSTATE 08 (ошибки соединения) и 57P01–57P03 (сервер остановлен
+     * или перезапускается) означают, что соединение больше нельзя использовать.
+     *
+     * @param e ошибка драйвера
+     * @return та же ошибка для повторного выброса
+     */
+    SQLException checkException(SQLException e) {
+        String sqlState = e.getSQLState();
+        if (sqlState != null && (sqlState.startsWith("08") || sqlState.startsWith("57P0"))) {
+            pool.markBroken(entry);
+        }
+        return e;
+    }
+
+    private <T extends PooledStatement<?>> T track(T statement) {
+        // Выполненные выражения могут оставить предупреждения на соединении
+        dirtyBits |= DIRTY_WARNINGS;
+        openStatements.add(statement);
+        return statement;
+    }
+
+    void untrack(PooledStatement<?> statement) {
+        // Выражения обычно закрываются в порядке, обратном открытию, поэтому ищем с конца
+        for (int i = openStatements.size() - 1; i >= 0; i--) {
+            if (openStatements.get(i) == statement) {
+                openStatements.remove(i);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Выдает подготовленное выражение из кэша соединения или подготавливает новое
+     *
+     * @param key SQL и параметры выражения
+     * @return выражение, которое при закрытии вернется в кэш
+     */
+    private PreparedStatement prepareCached(StatementCache.Key key) throws SQLException {
+        checkOpen();
+        if (!statementCache.isEnabled()) {
+            return track(new PooledPreparedStatement<>(this, key.prepare(delegate)));
+        }
+        PreparedStatement statement = statementCache.take(key);
+        if (statement != null && !statement.isClosed()) {
+            pool.recordStatementCacheHit();
+        } else {
+            pool.recordStatementCacheMiss();
+            statement = key.prepare(delegate);
+        }
+        return track(new PooledPreparedStatement<>(this, statement, key));
+    }
+
+    /**
+     * Возвращает выражение драйвера в кэш после логического закрытия.
+     * Параметры, пакет и предупреждения сбрасываются, открытый результат закрывается.
+     * Выражения неисправного соединения закрываются физически.
+     *
+     * @param key SQL и параметры выражения
+     * @param statement выражение драйвера
+     */
+    void returnToCache(StatementCache.Key key, PreparedStatement statement) throws SQLException {
+        if (entry.evictOnRelease) {
+            statement.close();
+            return;
+        }
+        try {
+            ResultSet resultSet = statement.getResultSet();
+            if (resultSet != null) {
+                resultSet.close();
+            }
+            statement.clearParameters();
+            statement.clearBatch();
+            statement.clearWarnings();
+        } catch (SQLException e) {
+            statement.close();
+            throw checkException(e);
+        }
+        statementCache.put(key, statement);
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        closeStatements();
+        if (dirtyBits != 0 && !entry.evictOnRelease) {
+            try {
+                resetState();
+            } catch (SQLException e) {
+                log.warn("Не удалось сбросить состояние соединения, оно будет закрыто: {}", e.getMessage());
+                entry.evictOnRelease = true;
+            }
+        }
+        dirtyBits = 0;
+        pool.release(entry);
+    }
+
+    /**
+     * Запоминает исходные свойства физического соединения перед первым их изменением.
+     * Выполняется один раз за время жизни соединения.
+     */
+    private void captureDefaults() throws SQLException {
+        if (defaultsCaptured) {
+            return;
+        }
+        defaultAutoCommit = autoCommit = delegate.getAutoCommit();
+        defaultReadOnly = readOnly = delegate.isReadOnly();
+        defaultIsolation = isolation = delegate.getTransactionIsolation();
+        defaultCatalog = catalog = delegate.getCatalog();
+        defaultSchema = schema = delegate.getSchema();
+        defaultNetworkTimeout = networkTimeout = delegate.getNetworkTimeout();
+        Map<String, Class<?>> typeMap = delegate.getTypeMap();
+        defaultTypeMap = typeMap != null ? new HashMap<>(typeMap) : new HashMap<>();
+        defaultHoldability = holdability = delegate.getHoldability();
+        defaultsCaptured = true;
+    }
+
+    /**
+     * Запоминает исходные свойства клиента перед первым их изменением
+     */
+    private void captureClientInfoDefaults() throws SQLClientInfoException {
+        if (defaultClientInfo != null) {
+            return;
+        }
+        try {
+            Properties current = new Properties();
+            current.putAll(delegate.getClientInfo());
+            defaultClientInfo = current;
+        } catch (SQLClientInfoException e) {
+            throw e;
+        } catch (SQLException e) {
+            throw new SQLClientInfoException(e.getMessage(), e.getSQLState(), e.getErrorCode(), Map.of(), e);
+        }
+    }
+
+    /**
+     * Возвращает к исходным значениям только те свойства сессии, которые клиент
+     * изменил и не вернул сам. Незавершенная транзакция откатывается.
+     */
+    private void resetState() throws SQLException {
+        if ((dirtyBits & DIRTY_AUTO_COMMIT) != 0 && autoCommit != defaultAutoCommit) {
+            if (!autoCommit) {
+                delegate.rollback();
+            }
+            delegate.setAutoCommit(defaultAutoCommit);
+            autoCommit = defaultAutoCommit;
+        }
+        if ((dirtyBits & DIRTY_READ_ONLY) != 0 && readOnly != defaultReadOnly) {
+            delegate.setReadOnly(defaultReadOnly);
+            readOnly = defaultReadOnly;
+        }
+        if ((dirtyBits & DIRTY_ISOLATION) != 0 && isolation != defaultIsolation) {
+            delegate.setTransactionIsolation(defaultIsolation);
+            isolation = defaultIsolation;
+        }
+        if ((dirtyBits & DIRTY_CATALOG) != 0 && !Objects.equals(catalog, defaultCatalog)) {
+            delegate.setCatalog(defaultCatalog);
+            catalog = defaultCatalog;
+        }
+        if ((dirtyBits & DIRTY_SCHEMA) != 0 && !Objects.equals(schema, defaultSchema)) {
+            delegate.setSchema(defaultSchema);
+            schema = defaultSchema;
+        }
+        if ((dirtyBits & DIRTY_NETWORK_TIMEOUT) != 0 && networkTimeout != defaultNetworkTimeout) {
+            delegate.setNetworkTimeout(Runnable::run, defaultNetworkTimeout);
+            networkTimeout = defaultNetworkTimeout;
+        }
+        if ((dirtyBits & DIRTY_TYPE_MAP) != 0) {
+            delegate.setTypeMap(new HashMap<>(defaultTypeMap));
+        }
+        if ((dirtyBits & DIRTY_HOLDABILITY) != 0 && holdability != defaultHoldability) {
+            delegate.setHoldability(defaultHoldability);
+            holdability = defaultHoldability;
+        }
+        if ((dirtyBits & DIRTY_CLIENT_INFO) != 0) {
+            // Свойства, которых нет в переданном наборе, драйвер сбрасывает
+            delegate.setClientInfo(defaultClientInfo);
+        }
+        if ((dirtyBits & DIRTY_WARNINGS) != 0) {
+            delegate.clearWarnings();
+        }
+    }
+
+    private void closeStatements() {
+        while (!openStatements.isEmpty()) {
+            PooledStatement<?> statement = openStatements.get(openStatements.size() - 1);
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                log.warn("Ошибка при закрытии выражения: {}", e.getMessage());
+                untrack(statement);
+            }
+        }
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        return closed || delegate.isClosed();
+    }
+
+    @Override
+    public boolean isValid(int timeout) throws SQLException {
+        return !closed && delegate.isValid(timeout);
+    }
+
+    @Override
+    public void abort(Executor executor) throws SQLException {
+        if (closed) {
+            return;
+        }
+        entry.evictOnRelease = true;
+        delegate.abort(executor);
+        close();
+    }
+
+    @Override
+    public Statement createStatement() throws SQLException {
+        checkOpen();
+        return track(new PooledStatement<>(this, delegate.createStatement()));
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+        checkOpen();
+        return track(new PooledStatement<>(this, delegate.createStatement(resultSetType, resultSetConcurrency)));
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+        checkOpen();
+        return track(new PooledStatement<>(this,
+                delegate.createStatement(resultSetType, resultSetConcurrency, resultSetHoldability)));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        return prepareCached(StatementCache.Key.of(sql));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+        return prepareCached(StatementCache.Key.of(sql, resultSetType, resultSetConcurrency));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency,
+                                              int resultSetHoldability) throws SQLException {
+        return prepareCached(StatementCache.Key.of(sql, resultSetType, resultSetConcurrency, resultSetHoldability));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+        return prepareCached(StatementCache.Key.withGeneratedKeys(sql, autoGeneratedKeys));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+        checkOpen();
+        return track(new PooledPreparedStatement<>(this, delegate.prepareStatement(sql, columnIndexes)));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
+        return prepareCached(StatementCache.Key.withGeneratedKeys(sql, columnNames));
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql) throws SQLException {
+        checkOpen();
+        return track(new PooledCallableStatement(this, delegate.prepareCall(sql)));
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+        checkOpen();
+        return track(new PooledCallableStatement(this,
+                delegate.prepareCall(sql, resultSetType, resultSetConcurrency)));
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency,
+                                         int resultSetHoldability) throws SQLException {
+        checkOpen();
+        return track(new PooledCallableStatement(this,
+                delegate.prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability)));
+    }
+
+    @Override
+    public String nativeSQL(String sql) throws SQLException {
+        checkOpen();
+        return delegate.nativeSQL(sql);
+    }
+
+    @Override
+    public void setAutoCommit(boolean autoCommit) throws SQLException {
+        checkOpen();
+        try {
+            captureDefaults();
+            delegate.setAutoCommit(autoCommit);
+        } catch (SQLException e) {
+            throw checkException(e);
+        }
+        this.autoCommit = autoCommit;
+        dirtyBits |= DIRTY_AUTO_COMMIT;
+    }
+
+    @Override
+    public boolean getAutoCommit() throws SQLException {
+        checkOpen();
+        return delegate.getAutoCommit();
+    }
+
+    @Override
+    public void commit() throws SQLException {
+        checkOpen();
+        try {
+            delegate.commit();
+        } catch (SQLException e) {
+            throw checkException(e);
+        }
+    }
+
+    @Override
+    public void rollback() throws SQLException {
+        checkOpen();
+        try {
+            delegate.rollback();
+        } catch (SQLException e) {
+            throw checkException(e);
+        }
+    }
+
+    @Override
+    public DatabaseMetaData getMetaData() throws SQLException {
+        checkOpen();
+        return delegate.getMetaData();
+    }
+
+    @Override
+    public void setReadOnly(boolean readOnly) throws SQLException {
+        checkOpen();
+        try {
+            captureDefaults();
+            delegate.setReadOnly(readOnly);
+        } catch (SQLException e) {
+            throw checkException(e);
+        }
+        this.readOnly = readOnly;
+        dirtyBits |= DIRTY_READ_ONLY;
+    }
+
+    @Override
+    public boolean isReadOnly() throws SQLException {
+        checkOpen();
+        return delegate.isReadOnly();
+    }
+
+    @Override
+    public void setCatalog(String catalog) throws SQLException {
+        checkOpen();
+        try {
+            captureDefaults();
+            delegate.setCatalog(catalog);
+        } catch (SQLException e) {
+            throw checkException(e);
+        }
+        this.catalog = catalog;
+        dirtyBits |= DIRTY_CATALOG;
+    }
+
+    @Override
+    public String getCatalog() throws SQLException {
+        checkOpen();
+        return delegate.getCatalog();
+    }
+
+    @Override
+    public void setTransactionIsolation(int level) throws SQLException {
+        checkOpen();
+        try {
+            captureDefaults();
+            delegate.setTransactionIsolation(level);
+        } catch (SQLException e) {
+            throw checkException(e);
+        }
+        isolation = level;
+        dirtyBits |= DIRTY_ISOLATION;
+    }
+
+    @Override
+    public int getTransactionIsolation() throws SQLException {
+        checkOpen();
+        return delegate.getTransactionIsolation();
+    }
+
+    @Override
+    public SQLWarning getWarnings() throws SQLException {
+        checkOpen();
+        return delegate.getWarnings();
+    }
+
+    @Override
+    public void clearWarnings() throws SQLException {
+        checkOpen();
+        delegate.clearWarnings();
+        dirtyBits &= ~DIRTY_WARNINGS;
+    }
+
+    @Override
+    public Map<String, Class<?>> getTypeMap() throws SQLException {
+        checkOpen();
+        return delegate.getTypeMap();
+    }
+
+    @Override
+    public void setTypeMap(Map<String, Class<?>> map) throws SQLException {
+        checkOpen();
+        captureDefaults();
+        delegate.setTypeMap(map);
+        dirtyBits |= DIRTY_TYPE_MAP;
+    }
+
+    @Override
+    public void setHoldability(int holdability) throws SQLException {
+        checkOpen();
+        captureDefaults();
+        delegate.setHoldability(holdability);
+        this.holdability = holdability;
+        dirtyBits |= DIRTY_HOLDABILITY;
+    }
+
+    @Override
+    public int getHoldability() throws SQLException {
+        checkOpen();
+        return delegate.getHoldability();
+    }
+
+    @Override
+    public Savepoint setSavepoint() throws SQLException {
+        checkOpen();
+        try {
+            return delegate.setSavepoint();
+        } catch (SQLException e) {
+            throw checkException(e);
+        }
+    }
+
+    @Override
+    public Savepoint setSavepoint(String name) throws SQLException {
+        checkOpen();
+        try {
+            return delegate.setSavepoint(name);
+        } catch (SQLException e) {
+            throw checkException(e);
+        }
+    }
+
+    @Override
+    public void rollback(Savepoint savepoint) throws SQLException {
+        checkOpen();
+        try {
+            delegate.rollback(savepoint);
+        } catch (SQLException e) {
+            throw checkException(e);
+        }
+    }
+
+    @Override
+    public void releaseSavepoint(Savepoint savepoint) throws SQLException {
+        checkOpen();
+        try {
+            delegate.releaseSavepoint(savepoint);
+        } catch (SQLException e) {
+            throw checkException(e);
+        }
+    }
+
+    @Override
+    public Clob createClob() throws SQLException {
+        checkOpen();
+        return delegate.createClob();
+    }
+
+    @Override
+    public Blob createBlob() throws SQLException {
+        checkOpen();
+        return delegate.createBlob();
+    }
+
+    @Override
+    public NClob createNClob() throws SQLException {
+        checkOpen();
+        return delegate.createNClob();
+    }
+
+    @Override
+    public SQLXML createSQLXML() throws SQLException {
+        checkOpen();
+        return delegate.createSQLXML();
+    }
+
+    @Override
+    public void setClientInfo(String name, String value) throws SQLClientInfoException {
+        checkClientInfoOpen();
+        captureClientInfoDefaults();
+        delegate.setClientInfo(name, value);
+        dirtyBits |= DIRTY_CLIENT_INFO;
+    }
+
+    @Override
+    public void setClientInfo(Properties properties) throws SQLClientInfoException {
+        checkClientInfoOpen();
+        captureClientInfoDefaults();
+        delegate.setClientInfo(properties);
+        dirtyBits |= DIRTY_CLIENT_INFO;
+    }
+
+    @Override
+    public String getClientInfo(String name) throws SQLException {
+        checkOpen();
+        return delegate.getClientInfo(name);
+    }
+
+    @Override
+    public Properties getClientInfo() throws SQLException {
+        checkOpen();
+        return delegate.getClientInfo();
+    }
+
+    @Override
+    public Array createArrayOf(String typeName, Object[] elements) throws SQLException {
+        checkOpen();
+        return delegate.createArrayOf(typeName, elements);
+    }
+
+    @Override
+    public Struct createStruct(String typeName, Object[] attributes) throws SQLException {
+        checkOpen();
+        return delegate.createStruct(typeName, attributes);
+    }
+
+    @Override
+    public void setSchema(String schema) throws SQLException {
+        checkOpen();
+        try {
+            captureDefaults();
+            delegate.setSchema(schema);
+        } catch (SQLException e) {
+            throw checkException(e);
+        }
+        this.schema = schema;
+        dirtyBits |= DIRTY_SCHEMA;
+    }
+
+    @Override
+    public String getSchema() throws SQLException {
+        checkOpen();
+        return delegate.getSchema();
+    }
+
+    @Override
+    public void setNetworkTimeout(Executor executor, int milliseconds) throws SQLException {
+        checkOpen();
+        captureDefaults();
+        delegate.setNetworkTimeout(executor, milliseconds);
+        networkTimeout = milliseconds;
+        dirtyBits |= DIRTY_NETWORK_TIMEOUT;
+    }
+
+    @Override
+    public int getNetworkTimeout() throws SQLException {
+        checkOpen();
+        return delegate.getNetworkTimeout();
+    }
+
+    @Override
+    public void beginRequest() throws SQLException {
+        checkOpen();
+        delegate.beginRequest();
+    }
+
+    @Override
+    public void endRequest() throws SQLException {
+        checkOpen();
+        delegate.endRequest();
+    }
+
+    @Override
+    public boolean setShardingKeyIfValid(ShardingKey shardingKey, ShardingKey superShardingKey, int timeout) throws SQLException {
+        checkOpen();
+        return delegate.setShardingKeyIfValid(shardingKey, superShardingKey, timeout);
+    }
+
+    @Override
+    public boolean setShardingKeyIfValid(ShardingKey shardingKey, int timeout) throws SQLException {
+        checkOpen();
+        return delegate.setShardingKeyIfValid(shardingKey, timeout);
+    }
+
+    @Override
+    public void setShardingKey(ShardingKey shardingKey, ShardingKey superShardingKey) throws SQLException {
+        checkOpen();
+        delegate.setShardingKey(shardingKey, superShardingKey);
+    }
+
+    @Override
+    public void setShardingKey(ShardingKey shardingKey) throws SQLException {
+        checkOpen();
+        delegate.setShardingKey(shardingKey);
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(delegate)) {
+            return iface.cast(delegate);
+        }
+        return delegate.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(delegate) || delegate.isWrapperFor(iface);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.bookshop.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Источник данных, направляющий транзакции {@code readOnly = true} на реплику,
+ * а все остальные обращения — на основную БД.
+ * <p>
+ * Признак транзакции только для чтения становится известен уже после того, как
+ * менеджер транзакций запросил соединение, поэтому этот источник нужно оборачивать
+ * в {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}:
+ * тогда физическое соединение берется при первом запросе внутри транзакции.
+ * Если {@link ReplicaHealthMonitor} считает реплику недоступной или отстающей,
+ * чтение также выполняется на основной БД.
+ * <p>
+ * Источник не регистрируется как отдельный бин, поэтому создающий его код
+ * должен вызвать {@link #afterPropertiesSet()}.
+ */
+public class ReadReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Route {
+        PRIMARY,
+        REPLICA
+    }
+
+    private final ReplicaHealthMonitor healthMonitor;
+
+    public ReadReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaHealthMonitor healthMonitor) {
+        this.healthMonitor = healthMonitor;
+        setTargetDataSources(Map.<Object, Object>of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && healthMonitor.isReplicaAvailable()) {
+            return Route.REPLICA;
+        }
+        return Route.PRIMARY;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.bookshop.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Фоновая проверка реплики для чтения.
+ * <p>
+ * С заданным периодом проверяет, что реплика отвечает, и измеряет отставание
+ * применения WAL. Реплика считается доступной, пока запрос выполняется успешно
+ * и отставание не превышает {@code maxLagMillis}. Если база не находится в режиме
+ * восстановления (например, при локальной проверке на второй базе того же сервера),
+ * отставание считается нулевым.
+ * <p>
+ * Проверка запускается методом {@link #start()}. До первой проверки реплика
+ * считается недоступной, и чтение идет на основную БД.
+ */
+public class ReplicaHealthMonitor {
+    private static final Logger log = LoggerFactory.getLogger(ReplicaHealthMonitor.class);
+
+    /**
+     * Отставание в миллисекундах. Если реплика уже применила все полученные записи WAL,
+     * отставание нулевое, даже если на основном сервере давно не было изменений.
+     */
+    private static final String LAG_QUERY =
+            "SELECT CASE " +
+            "WHEN NOT pg_is_in_recovery() THEN 0 " +
+            "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE COALESCE(EXTRACT(EPOCH FROM (now() - pg_last_xact_replay_timestamp())) * 1000, 0) " +
+            "END";
+
+    private final DataSource replica;
+    private final long maxLagMillis;
+    private final long checkPeriodMillis;
+    private final int queryTimeoutSeconds;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile boolean available;
+    private volatile long lagMillis = -1;
+
+    /**
+     * @param replica источник соединений с репликой
+     * @param maxLagMillis допустимое отставание реплики в миллисекундах
+     * @param checkPeriodMillis период проверки в миллисекундах
+     * @param queryTimeoutSeconds время ожидания ответа реплики в секундах
+     */
+    public ReplicaHealthMonitor(DataSource replica, long maxLagMillis, long checkPeriodMillis, int queryTimeoutSeconds) {
+        this.replica = replica;
+        this.maxLagMillis = maxLagMillis;
+        this.checkPeriodMillis = checkPeriodMillis;
+        this.queryTimeoutSeconds = queryTimeoutSeconds;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "bookshop-replica-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Запускает фоновую проверку. Первая проверка выполняется сразу, но в потоке
+     * проверки, чтобы запуск приложения не ждал ответа реплики.
+     */
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::check, 0, checkPeriodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void check() {
+        boolean wasAvailable = available;
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(queryTimeoutSeconds);
+            try (ResultSet rs = statement.executeQuery(LAG_QUERY)) {
+                rs.next();
+                lagMillis = rs.getLong(1);
+            }
+            available = lagMillis <= maxLagMillis;
+            if (!available && wasAvailable) {
+                log.warn("Реплика отстает на {} мс (допустимо {} мс), чтение переключено на основную БД",
+                        lagMillis, maxLagMillis);
+            }
+        } catch (SQLException e) {
+            available = false;
+            lagMillis = -1;
+            if (wasAvailable) {
+                log.warn("Реплика недоступна, чтение переключено на основную БД: {}", e.getMessage());
+            } else {
+                log.debug("Реплика по-прежнему недоступна: {}", e.getMessage());
+            }
+        } catch (RuntimeException e) {
+            available = false;
+            log.error("Ошибка при проверке реплики", e);
+        }
+        if (available && !wasAvailable) {
+            log.info("Реплика доступна (отставание {} мс), чтение направляется на нее", lagMillis);
+        }
+    }
+
+    /**
+     * @return true, если реплика отвечает и отставание не превышает допустимое
+     */
+    public boolean isReplicaAvailable() {
+        return available;
+    }
+
+    /**
+     * @return отставание реплики по последней проверке в миллисекундах или -1, если реплика недоступна
+     */
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    /**
+     * Останавливает фоновую проверку
+     */
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
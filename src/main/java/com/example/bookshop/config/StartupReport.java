@@ -0,0 +1,49 @@
+package com.example.bookshop.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Отчет о длительности этапов запуска приложения.
+ * Конфигурационные классы записывают время своих этапов (открытие пула,
+ * миграции), а после обновления контекста в лог выводится сводка вместе
+ * с общим временем запуска контекста.
+ */
+@Component
+public class StartupReport implements ApplicationListener<ContextRefreshedEvent> {
+    private static final Logger log = LoggerFactory.getLogger(StartupReport.class);
+
+    private final Map<String, Long> phases = Collections.synchronizedMap(new LinkedHashMap<>());
+    private volatile boolean reported;
+
+    /**
+     * Записывает длительность этапа запуска
+     *
+     * @param phase название этапа
+     * @param startNanos момент начала этапа по {@link System#nanoTime()}
+     */
+    public void record(String phase, long startNanos) {
+        phases.put(phase, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    }
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        if (reported) {
+            return;
+        }
+        reported = true;
+        long totalMillis = event.getTimestamp() - event.getApplicationContext().getStartupDate();
+        StringBuilder report = new StringBuilder("Приложение запущено за ").append(totalMillis).append(" мс");
+        phases.forEach((phase, millis) ->
+                report.append(System.lineSeparator()).append("  ").append(phase).append(": ").append(millis).append(" мс"));
+        log.info(report.toString());
+    }
+}
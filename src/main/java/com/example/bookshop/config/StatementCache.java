@@ -0,0 +1,134 @@
+package com.example.bookshop.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Кэш подготовленных выражений одного физического соединения.
+ * <p>
+ * Хранит не более {@code maxSize} выражений и вытесняет давно не использованные
+ * (LRU), закрывая их. Выражение извлекается из кэша на время использования и
+ * возвращается в него при логическом закрытии, поэтому одно выражение драйвера
+ * никогда не выдается дважды. Кэш не потокобезопасен: им пользуется только
+ * поток, которому в данный момент выдано соединение.
+ */
+final class StatementCache {
+    private static final Logger log = LoggerFactory.getLogger(StatementCache.class);
+
+    private final int maxSize;
+    private final LinkedHashMap<Key, PreparedStatement> statements;
+
+    StatementCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, PreparedStatement> eldest) {
+                if (size() > StatementCache.this.maxSize) {
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    /**
+     * Извлекает выражение из кэша
+     *
+     * @param key SQL и параметры выражения
+     * @return закэшированное выражение или null, если его нет
+     */
+    PreparedStatement take(Key key) {
+        return statements.remove(key);
+    }
+
+    /**
+     * Возвращает выражение в кэш. Если в кэше уже есть выражение с тем же
+     * ключом (одновременно были открыты два одинаковых выражения), лишнее закрывается.
+     *
+     * @param key SQL и параметры выражения
+     * @param statement выражение драйвера
+     */
+    void put(Key key, PreparedStatement statement) {
+        PreparedStatement previous = statements.put(key, statement);
+        if (previous != null && previous != statement) {
+            closeQuietly(previous);
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            log.debug("Ошибка при закрытии закэшированного выражения: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Ключ кэша: SQL и параметры, с которыми было подготовлено выражение.
+     * Значение -1 означает, что параметр не задавался и используется значение драйвера.
+     */
+    record Key(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability,
+               int autoGeneratedKeys, List<String> columnNames) {
+
+        private static final int UNSPECIFIED = -1;
+
+        static Key of(String sql) {
+            return new Key(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY,
+                    UNSPECIFIED, UNSPECIFIED, null);
+        }
+
+        static Key of(String sql, int resultSetType, int resultSetConcurrency) {
+            return new Key(sql, resultSetType, resultSetConcurrency, UNSPECIFIED, UNSPECIFIED, null);
+        }
+
+        static Key of(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) {
+            return new Key(sql, resultSetType, resultSetConcurrency, resultSetHoldability, UNSPECIFIED, null);
+        }
+
+        static Key withGeneratedKeys(String sql, int autoGeneratedKeys) {
+            return new Key(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY,
+                    UNSPECIFIED, autoGeneratedKeys, null);
+        }
+
+        static Key withGeneratedKeys(String sql, String[] columnNames) {
+            return new Key(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY,
+                    UNSPECIFIED, UNSPECIFIED, List.of(columnNames));
+        }
+
+        /**
+         * Подготавливает выражение драйвера с параметрами этого ключа
+         *
+         * @param connection физическое соединение
+         * @return новое выражение
+         * @throws SQLException если драйвер не смог подготовить выражение
+         */
+        PreparedStatement prepare(Connection connection) throws SQLException {
+            if (columnNames != null) {
+                return connection.prepareStatement(sql, columnNames.toArray(String[]::new));
+            }
+            if (autoGeneratedKeys != UNSPECIFIED) {
+                return connection.prepareStatement(sql, autoGeneratedKeys);
+            }
+            if (resultSetHoldability != UNSPECIFIED) {
+                return connection.prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+            }
+            if (resultSetType != ResultSet.TYPE_FORWARD_ONLY || resultSetConcurrency != ResultSet.CONCUR_READ_ONLY) {
+                return connection.prepareStatement(sql, resultSetType, resultSetConcurrency);
+            }
+            return connection.prepareStatement(sql);
+        }
+    }
+}
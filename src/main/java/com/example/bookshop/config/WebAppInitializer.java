@@ -1,5 +1,6 @@
 package com.example.bookshop.config;
 
+import jakarta.servlet.FilterRegistration;
 import jakarta.servlet.ServletContext;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.ServletRegistration;
@@ -26,13 +27,28 @@ public class WebAppInitializer implements WebApplicationInitializer {
         ServletRegistration.Dynamic dispatcher = servletContext.addServlet(
                 "dispatcher", new DispatcherServlet(dispatcherContext));
         dispatcher.setLoadOnStartup(1);
+        // Асинхронные обработчики выполняются на виртуальных потоках (см. WebMvcConfig)
+        dispatcher.setAsyncSupported(true);
         dispatcher.addMapping("/");
 
         servletContext.setInitParameter("defaultHtmlEscape", "true");
         servletContext.setInitParameter("spring.profiles.active", "default");
 
-        servletContext.addFilter("characterEncodingFilter", 
-                       new org.springframework.web.filter.CharacterEncodingFilter())
-                .addMappingForUrlPatterns(null, false, "/*");
+        // Контроль допуска стоит первым, чтобы лишние запросы отклонялись до безопасности и MVC
+        FilterRegistration.Dynamic admissionControl = servletContext.addFilter("admissionControlFilter",
+                new AdmissionControlFilter());
+        admissionControl.setAsyncSupported(true);
+        admissionControl.setInitParameter("initialLimit", "20");
+        admissionControl.setInitParameter("minLimit", "4");
+        admissionControl.setInitParameter("maxLimit", "200");
+        admissionControl.setInitParameter("targetLatencyMillis", "1000");
+        admissionControl.setInitParameter("browseShare", "0.8");
+        admissionControl.setInitParameter("adminShare", "0.5");
+        admissionControl.addMappingForUrlPatterns(null, false, "/*");
+
+        FilterRegistration.Dynamic encodingFilter = servletContext.addFilter("characterEncodingFilter",
+                new org.springframework.web.filter.CharacterEncodingFilter());
+        encodingFilter.setAsyncSupported(true);
+        encodingFilter.addMappingForUrlPatterns(null, false, "/*");
     }
 }
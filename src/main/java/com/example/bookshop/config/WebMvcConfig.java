@@ -3,6 +3,8 @@ package com.example.bookshop.config;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -18,6 +20,16 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 @Import(ThymeleafConfig.class)
 public class WebMvcConfig implements WebMvcConfigurer {
 
+    /**
+     * Асинхронные обработчики (Callable, DeferredResult) выполняются на виртуальных потоках:
+     * ожидание соединения из пула и JDBC-ввод-вывод не занимают потоки ОС. Потоки обычных
+     * запросов задает коннектор Tomcat (useVirtualThreads), см. README.
+     */
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(new VirtualThreadTaskExecutor("bookshop-mvc-"));
+    }
+
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
         // Обработка статических ресурсов
@@ -0,0 +1,58 @@
+package com.example.bookshop.controller;
+
+import com.example.bookshop.config.ConnectionPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+
+/**
+ * Контроллер страницы состояния пула соединений для администраторов
+ */
+@Controller
+@RequestMapping("/admin/pool")
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminPoolController {
+
+    private static final Logger log = LoggerFactory.getLogger(AdminPoolController.class);
+
+    private final ConnectionPool connectionPool;
+
+    public AdminPoolController(ConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+    }
+
+    /**
+     * Состояние пула, метрики и выданные соединения
+     */
+    @GetMapping
+    public String poolStatus(Model model) {
+        model.addAttribute("pool", connectionPool);
+        model.addAttribute("borrowed", connectionPool.getBorrowedConnections());
+        model.addAttribute("waitTime", connectionPool.getWaitTime());
+        model.addAttribute("holdTime", connectionPool.getHoldTime());
+        model.addAttribute("partitions", connectionPool.getPartitions());
+        return "admin/pool";
+    }
+
+    /**
+     * Принудительный возврат соединений, удерживаемых дольше заданного времени
+     */
+    @PostMapping("/reclaim")
+    public String reclaim(@RequestParam(name = "heldSeconds") long heldSeconds, RedirectAttributes redirect) {
+        if (heldSeconds <= 0) {
+            redirect.addFlashAttribute("error", "Время удержания должно быть положительным");
+            return "redirect:/admin/pool";
+        }
+        int reclaimed = connectionPool.reclaimConnectionsHeldLongerThan(heldSeconds * 1000);
+        log.info("Администратор отозвал {} соединений, удерживаемых дольше {} с", reclaimed, heldSeconds);
+        redirect.addFlashAttribute("success", "Отозвано соединений: " + reclaimed);
+        return "redirect:/admin/pool";
+    }
+}
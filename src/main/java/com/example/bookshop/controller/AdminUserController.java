@@ -1,5 +1,6 @@
 package com.example.bookshop.controller;
 
+import com.example.bookshop.config.PoolPartition;
 import com.example.bookshop.model.Role;
 import com.example.bookshop.model.User;
 import com.example.bookshop.service.OrderService;
@@ -20,6 +21,7 @@ import java.util.List;
 @Controller
 @RequestMapping("/admin/users")
 @PreAuthorize("hasRole('ADMIN')")
+@PoolPartition("admin")
 public class AdminUserController {
 
     private static final Logger log = LoggerFactory.getLogger(AdminUserController.class);
@@ -40,10 +40,15 @@ public class AuthorViewController {
     @GetMapping
     public String getAllAuthors(@RequestParam(defaultValue = "0", name = "page") int page,
                                 @RequestParam(defaultValue = "10", name = "size") int size,
+                                @RequestParam(required = false, name = "cursor") String cursor,
                                 Model model) {
-        log.debug("Запрос списка авторов page={}, size={}", page, size);
-        PageResponse<Author> authorPage = authorFacade.getAllAuthors(page, size);
-        model.addAttribute("authorPage", authorPage);
+        log.debug("Запрос списка авторов page={}, size={}, cursor={}", page, size, cursor);
+        // Переход на страницу по номеру идет через OFFSET, листание — по курсору
+        if (page > 0 && cursor == null) {
+            model.addAttribute("authorPage", authorFacade.getAllAuthors(page, size));
+        } else {
+            model.addAttribute("authorPage", authorFacade.getAllAuthors(cursor, size));
+        }
         return "authors/list";
     }
 
@@ -85,9 +90,13 @@ public class AuthorViewController {
     @GetMapping("/user/authors")
     public String getAuthorsForUser(@RequestParam(defaultValue = "0", name = "page") int page,
                                     @RequestParam(defaultValue = "10", name = "size") int size,
+                                    @RequestParam(required = false, name = "cursor") String cursor,
                                     Model model) {
-        PageResponse<Author> authorPage = authorFacade.getAllAuthors(page, size);
-        model.addAttribute("authorPage", authorPage);
+        if (page > 0 && cursor == null) {
+            model.addAttribute("authorPage", authorFacade.getAllAuthors(page, size));
+        } else {
+            model.addAttribute("authorPage", authorFacade.getAllAuthors(cursor, size));
+        }
         return "authors/listForUser";
     }
 
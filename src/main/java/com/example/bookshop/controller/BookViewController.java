@@ -1,9 +1,13 @@
 package com.example.bookshop.controller;
 
+import com.example.bookshop.dto.BookFilter;
+import com.example.bookshop.dto.FacetedPageResponse;
 import com.example.bookshop.dto.PageResponse;
 import com.example.bookshop.facade.BookFacade;
 import com.example.bookshop.model.Author;
 import com.example.bookshop.model.Book;
+import com.example.bookshop.model.Currency;
+import com.example.bookshop.model.Language;
 import com.example.bookshop.service.AuthorService;
 import com.example.bookshop.service.BookService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,6 +15,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriComponentsBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -44,10 +49,15 @@ public class BookViewController {
     @GetMapping
     public String getAllBooks(@RequestParam(defaultValue = "0", name = "page") int page,
                               @RequestParam(defaultValue = "10", name = "size") int size,
+                              @RequestParam(required = false, name = "cursor") String cursor,
                               Model model) {
-        log.debug("Запрос всех книг page={}, size={}", page, size);
-        PageResponse<Book> bookPage = bookService.getAllBooks(page, size);
-        model.addAttribute("page", bookPage);
+        log.debug("Запрос всех книг page={}, size={}, cursor={}", page, size, cursor);
+        // Переход на страницу по номеру идет через OFFSET, листание — по курсору
+        if (page > 0 && cursor == null) {
+            model.addAttribute("page", bookService.getAllBooks(page, size));
+        } else {
+            model.addAttribute("page", bookService.getAllBooks(cursor, size));
+        }
         return "books/list";
     }
 
@@ -55,10 +65,14 @@ public class BookViewController {
     @GetMapping("user/books")
     public String getAllBoosForUser(@RequestParam(defaultValue = "0",name = "page") int page,
                                     @RequestParam(defaultValue = "10", name = "size") int size,
+                                    @RequestParam(required = false, name = "cursor") String cursor,
                                     Model model) {
-        log.debug("Запрос всех книг для пользователя page={}, size={}", page, size);
-        PageResponse<Book> bookPage = bookService.getAllBooks(page, size);
-        model.addAttribute("bookPage", bookPage);
+        log.debug("Запрос всех книг для пользователя page={}, size={}, cursor={}", page, size, cursor);
+        if (page > 0 && cursor == null) {
+            model.addAttribute("bookPage", bookService.getAllBooks(page, size));
+        } else {
+            model.addAttribute("bookPage", bookService.getAllBooks(cursor, size));
+        }
         return "books/listForUser";
     }
 
@@ -89,6 +103,51 @@ public class BookViewController {
         return "books/list";
     }
 
+    /**
+     * Подбор книг по нескольким признакам сразу со счетчиками по каждому значению
+     */
+    @PreAuthorize("hasRole('USER')")
+    @GetMapping("/user/browse")
+    public String browseBooksForUser(@ModelAttribute("filter") BookFilter filter,
+                                     @RequestParam(defaultValue = "0", name = "page") int page,
+                                     @RequestParam(defaultValue = "12", name = "size") int size,
+                                     Model model) {
+        log.debug("Подбор книг {} page={}, size={}", filter, page, size);
+        FacetedPageResponse<Book> bookPage = bookFacade.browseBooks(filter, page, size);
+        model.addAttribute("bookPage", bookPage);
+        model.addAttribute("languages", Language.values());
+        model.addAttribute("currencies", Currency.values());
+        if (bookPage.getFacets() == null) {
+            model.addAttribute("allGenres", bookService.getAllGenres());
+        }
+        model.addAttribute("filterQuery", filterQuery(filter));
+        return "books/browseForUser";
+    }
+
+    /**
+     * Параметры фильтра в виде строки запроса для ссылок на другие страницы
+     */
+    private static String filterQuery(BookFilter filter) {
+        UriComponentsBuilder builder = UriComponentsBuilder.newInstance();
+        filter.getGenres().forEach(genre -> builder.queryParam("genres", genre));
+        filter.getLanguages().forEach(language -> builder.queryParam("languages", language));
+        filter.getCurrencies().forEach(currency -> builder.queryParam("currencies", currency));
+        if (filter.getMinPrice() != null) {
+            builder.queryParam("minPrice", filter.getMinPrice());
+        }
+        if (filter.getMaxPrice() != null) {
+            builder.queryParam("maxPrice", filter.getMaxPrice());
+        }
+        if (filter.getYearFrom() != null) {
+            builder.queryParam("yearFrom", filter.getYearFrom());
+        }
+        if (filter.getYearTo() != null) {
+            builder.queryParam("yearTo", filter.getYearTo());
+        }
+        String query = builder.encode().build().getQuery();
+        return query != null ? query + "&" : "";
+    }
+
     @PreAuthorize("hasRole('USER')")
     @GetMapping("/user/genre/{name}")
     public String getBooksByGenreForUser(@PathVariable("name") String genre,
@@ -112,7 +171,7 @@ public class BookViewController {
             Model model) {
         PageResponse<Book> bookPage;
         if (title != null && !title.isEmpty()) {
-            bookPage = bookService.searchBooksByTitle(title, page, size);
+            bookPage = bookFacade.searchBooks(title, page, size);
             model.addAttribute("searchTerm", title);
         } else {
             bookPage = bookService.getAllBooks(page, size);
@@ -130,7 +189,7 @@ public class BookViewController {
             Model model) {
         PageResponse<Book> bookPage;
         if (title != null && !title.isEmpty()) {
-            bookPage = bookService.searchBooksByTitle(title, page, size);
+            bookPage = bookFacade.searchBooks(title, page, size);
             model.addAttribute("searchTerm", title);
         } else {
             bookPage = bookService.getAllBooks(page, size);
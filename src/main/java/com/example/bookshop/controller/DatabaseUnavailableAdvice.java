@@ -0,0 +1,50 @@
+package com.example.bookshop.controller;
+
+import com.example.bookshop.exception.DatabaseUnavailableException;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.servlet.ModelAndView;
+
+/**
+ * Обработка недоступности базы данных: вместо зависшего запроса
+ * или ошибки 500 пользователь сразу получает страницу 503
+ */
+@ControllerAdvice
+public class DatabaseUnavailableAdvice {
+
+    private static final Logger log = LoggerFactory.getLogger(DatabaseUnavailableAdvice.class);
+
+    /**
+     * Соединение с БД получить не удалось: пул отклонил запрос или истекло время ожидания
+     */
+    @ExceptionHandler({CannotGetJdbcConnectionException.class, CannotCreateTransactionException.class})
+    public ModelAndView handleDatabaseUnavailable(Exception e, HttpServletResponse response) {
+        DatabaseUnavailableException unavailable = findCause(e);
+        if (unavailable != null) {
+            log.debug("Запрос отклонен, база данных недоступна: {}", unavailable.getMessage());
+            long retryAfterSeconds = Math.max(1, (unavailable.getRetryAfterMillis() + 999) / 1000);
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        } else {
+            log.error("Не удалось получить соединение с базой данных", e);
+        }
+        ModelAndView modelAndView = new ModelAndView("errors/service-unavailable");
+        modelAndView.setStatus(HttpStatus.SERVICE_UNAVAILABLE);
+        return modelAndView;
+    }
+
+    private static DatabaseUnavailableException findCause(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DatabaseUnavailableException unavailable) {
+                return unavailable;
+            }
+        }
+        return null;
+    }
+}
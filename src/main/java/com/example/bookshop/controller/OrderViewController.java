@@ -1,5 +1,8 @@
 package com.example.bookshop.controller;
 
+import com.example.bookshop.config.PoolPartition;
+import com.example.bookshop.dto.CursorPageResponse;
+import com.example.bookshop.dto.PageResponse;
 import com.example.bookshop.facade.OrderFacade;
 import com.example.bookshop.model.Order;
 import com.example.bookshop.model.OrderEntry;
@@ -45,19 +48,23 @@ public class OrderViewController {
      * Отображение списка заказов с пагинацией
      */
     @GetMapping
+    @PoolPartition("reporting")
     public String listOrders(
             @RequestParam(name = "page", defaultValue = "0") int page,
             @RequestParam(name = "size", defaultValue = "10") int size,
+            @RequestParam(name = "cursor", required = false) String cursor,
             Model model) {
 
-        List<Order> orders = orderFacade.getOrdersPage(page, size);
-        long totalOrders = orderFacade.getOrdersCount();
-        long totalPages = (totalOrders + size - 1) / size;
-
-        model.addAttribute("orders", orders);
-        model.addAttribute("currentPage", page);
-        model.addAttribute("totalPages", totalPages);
-        model.addAttribute("pageSize", size);
+        // Переход на страницу по номеру идет через OFFSET, листание — по курсору
+        if (page > 0 && cursor == null) {
+            PageResponse<Order> orderPage = orderFacade.getOrdersPage(page, size);
+            model.addAttribute("orders", orderPage.getContent());
+            model.addAttribute("page", orderPage);
+        } else {
+            CursorPageResponse<Order> orderPage = orderFacade.getOrdersPage(cursor, size);
+            model.addAttribute("orders", orderPage.getContent());
+            model.addAttribute("page", orderPage);
+        }
 
         return "orders/list";
     }
@@ -206,6 +213,7 @@ public class OrderViewController {
      * Поиск заказов за период
      */
     @GetMapping("/search")
+    @PoolPartition("reporting")
     public String searchOrdersByPeriod(
             @RequestParam(name = "startDate", required = false) LocalDate startDate,
             @RequestParam(name = "endDate", required = false) LocalDate endDate,
@@ -26,6 +26,28 @@ public interface AuthorDao {
      */
     List<Author> findAll(int pageNumber, int pageSize);
 
+    /**
+     * Получить авторов, следующих за указанным в порядке (last_name, first_name, id), без OFFSET
+     *
+     * @param lastName фамилия последнего автора предыдущей страницы
+     * @param firstName имя последнего автора предыдущей страницы
+     * @param id id последнего автора предыдущей страницы
+     * @param limit максимальное количество авторов
+     * @return авторы в порядке (last_name, first_name, id)
+     */
+    List<Author> findAllAfter(String lastName, String firstName, long id, int limit);
+
+    /**
+     * Получить авторов, предшествующих указанному в порядке (last_name, first_name, id), без OFFSET
+     *
+     * @param lastName фамилия первого автора следующей страницы
+     * @param firstName имя первого автора следующей страницы
+     * @param id id первого автора следующей страницы
+     * @param limit максимальное количество авторов
+     * @return авторы в обратном порядке, начиная с ближайшего к указанному
+     */
+    List<Author> findAllBefore(String lastName, String firstName, long id, int limit);
+
     /**
      * Получить общее количество авторов
      * 
@@ -42,23 +64,38 @@ public interface AuthorDao {
     Optional<Author> findById(long id);
 
     /**
-     * Найти авторов по имени и фамилии (частичное совпадение)
+     * Найти авторов по имени и фамилии (частичное совпадение).
+     * Строка сравнивается с полным именем в порядке "имя фамилия" и "фамилия имя",
+     * результаты упорядочены по релевантности
      * 
-     * @param name часть имени или фамилии автора
+     * @param name часть имени, фамилии или полного имени автора
      * @return список авторов, соответствующих поисковому запросу
      */
     List<Author> findByName(String name);
 
     /**
-     * Найти авторов по имени и фамилии с пагинацией (частичное совпадение)
+     * Найти авторов по имени и фамилии с пагинацией (частичное совпадение),
+     * в том числе по полному имени; результаты упорядочены по релевантности
      * 
-     * @param name часть имени или фамилии автора
+     * @param name часть имени, фамилии или полного имени автора
      * @param pageNumber номер страницы (начиная с 0)
      * @param pageSize размер страницы
      * @return список авторов, соответствующих поисковому запросу для указанной страницы
      */
     List<Author> findByName(String name, int pageNumber, int pageSize);
 
+    /**
+     * Найти страницу авторов по части имени и общее количество найденных авторов одним запросом
+     *
+     * @param name часть имени или фамилии
+     * @param pageNumber номер страницы (начиная с 0)
+     * @param pageSize размер страницы
+     * @param knownTotal общее количество, уже известное вызывающему (например, из кэша);
+     *                   если задано, количество не считается
+     * @return авторы страницы и общее количество
+     */
+    PageResult<Author> findPageByName(String name, int pageNumber, int pageSize, Long knownTotal);
+
     /**
      * Получить общее количество авторов, соответствующих поисковому запросу
      * 
@@ -1,7 +1,9 @@
 package com.example.bookshop.dao;
 
+import com.example.bookshop.dto.BookFilter;
 import com.example.bookshop.model.Book;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -27,6 +29,62 @@ public interface BookDao {
      */
     List<Book> findAll(int pageNumber, int pageSize);
 
+    /**
+     * Получить страницу книг и общее количество книг одним запросом
+     *
+     * @param pageNumber номер страницы (начиная с 0)
+     * @param pageSize размер страницы
+     * @param knownTotal общее количество, уже известное вызывающему (например, из кэша);
+     *                   если задано, количество не считается
+     * @return книги страницы и общее количество
+     */
+    PageResult<Book> findPage(int pageNumber, int pageSize, Long knownTotal);
+
+    /**
+     * Получить книги, следующие за указанной в порядке (title, id), без OFFSET
+     *
+     * @param title название последней книги предыдущей страницы
+     * @param id id последней книги предыдущей страницы
+     * @param limit максимальное количество книг
+     * @return книги в порядке (title, id)
+     */
+    List<Book> findAllAfter(String title, long id, int limit);
+
+    /**
+     * Получить книги, предшествующие указанной в порядке (title, id), без OFFSET
+     *
+     * @param title название первой книги следующей страницы
+     * @param id id первой книги следующей страницы
+     * @param limit максимальное количество книг
+     * @return книги в обратном порядке, начиная с ближайшей к указанной
+     */
+    List<Book> findAllBefore(String title, long id, int limit);
+
+    /**
+     * Получить книги по списку идентификаторов
+     *
+     * @param ids идентификаторы книг
+     * @return найденные книги в порядке переданных идентификаторов
+     */
+    List<Book> findByIds(Collection<Long> ids);
+
+    /**
+     * Получить книги с идентификаторами из диапазона; используется
+     * для загрузки каталога частями
+     *
+     * @param fromId нижняя граница идентификатора (включительно)
+     * @param toId верхняя граница идентификатора (не включительно)
+     * @return книги диапазона, упорядоченные по id
+     */
+    List<Book> findByIdRange(long fromId, long toId);
+
+    /**
+     * Получить наибольший идентификатор книги
+     *
+     * @return наибольший id или 0, если книг нет
+     */
+    long findMaxId();
+
     /**
      * Получить общее количество книг
      *
@@ -43,7 +101,8 @@ public interface BookDao {
     Optional<Book> findById(long id);
 
     /**
-     * Найти книги по заголовку (частичное совпадение)
+     * Найти книги по заголовку (частичное совпадение) или по словам названия и описания.
+     * Результаты упорядочены по релевантности
      *
      * @param title часть заголовка книги
      * @return список книг, соответствующих поисковому запросу
@@ -51,7 +110,8 @@ public interface BookDao {
     List<Book> findByTitle(String title);
 
     /**
-     * Найти книги по заголовку с пагинацией (частичное совпадение)
+     * Найти книги по заголовку с пагинацией (частичное совпадение) или по словам
+     * названия и описания. Результаты упорядочены по релевантности
      *
      * @param title часть заголовка книги
      * @param pageNumber номер страницы (начиная с 0)
@@ -60,6 +120,18 @@ public interface BookDao {
      */
     List<Book> findByTitle(String title, int pageNumber, int pageSize);
 
+    /**
+     * Найти страницу книг по части названия и общее количество найденных книг одним запросом
+     *
+     * @param title часть названия книги
+     * @param pageNumber номер страницы (начиная с 0)
+     * @param pageSize размер страницы
+     * @param knownTotal общее количество, уже известное вызывающему (например, из кэша);
+     *                   если задано, количество не считается
+     * @return книги страницы и общее количество
+     */
+    PageResult<Book> findPageByTitle(String title, int pageNumber, int pageSize, Long knownTotal);
+
     /**
      * Получить общее количество книг, соответствующих поисковому запросу
      *
@@ -156,6 +228,18 @@ public interface BookDao {
      */
     List<Book> findByGenre(String genreName, int pageNumber, int pageSize);
 
+    /**
+     * Получить страницу книг жанра и общее количество книг жанра одним запросом
+     *
+     * @param genreName название жанра
+     * @param pageNumber номер страницы (начиная с 0)
+     * @param pageSize размер страницы
+     * @param knownTotal общее количество, уже известное вызывающему (например, из кэша);
+     *                   если задано, количество не считается
+     * @return книги страницы и общее количество
+     */
+    PageResult<Book> findPageByGenre(String genreName, int pageNumber, int pageSize, Long knownTotal);
+
     /**
      * Получить количество книг указанного жанра
      *
@@ -164,6 +248,17 @@ public interface BookDao {
      */
     long countByGenre(String genreName);
 
+    /**
+     * Получить страницу книг, подходящих под фильтр, вместе с общим количеством.
+     * Книги упорядочены от новых к старым (по убыванию id)
+     *
+     * @param filter условия фильтрации
+     * @param pageNumber номер страницы (начиная с 0)
+     * @param pageSize размер страницы
+     * @return книги страницы и общее количество
+     */
+    PageResult<Book> findPageByFilter(BookFilter filter, int pageNumber, int pageSize);
+
     /**
      * Найти все книги автора
      *
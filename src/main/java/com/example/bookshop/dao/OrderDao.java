@@ -3,6 +3,7 @@ package com.example.bookshop.dao;
 import com.example.bookshop.model.Order;
 import com.example.bookshop.model.OrderStatus;
 
+import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -28,6 +29,37 @@ public interface OrderDao {
      */
     List<Order> findAll(int pageNumber, int pageSize);
 
+    /**
+     * Найти страницу заказов и общее количество заказов одним запросом
+     *
+     * @param pageNumber номер страницы (начиная с 0)
+     * @param pageSize размер страницы
+     * @param knownTotal общее количество, уже известное вызывающему (например, из кэша);
+     *                   если задано, количество не считается
+     * @return заказы страницы и общее количество
+     */
+    PageResult<Order> findPage(int pageNumber, int pageSize, Long knownTotal);
+
+    /**
+     * Найти заказы, следующие за указанным в порядке (order_date DESC, id DESC), без OFFSET
+     *
+     * @param orderDate дата последнего заказа предыдущей страницы
+     * @param id id последнего заказа предыдущей страницы
+     * @param limit максимальное количество заказов
+     * @return более старые заказы, от новых к старым
+     */
+    List<Order> findAllAfter(OffsetDateTime orderDate, long id, int limit);
+
+    /**
+     * Найти заказы, предшествующие указанному в порядке (order_date DESC, id DESC), без OFFSET
+     *
+     * @param orderDate дата первого заказа следующей страницы
+     * @param id id первого заказа следующей страницы
+     * @param limit максимальное количество заказов
+     * @return более новые заказы, от старых к новым (начиная с ближайшего к указанному)
+     */
+    List<Order> findAllBefore(OffsetDateTime orderDate, long id, int limit);
+
     /**
      * Получить общее количество заказов
      *
@@ -85,6 +117,35 @@ public interface OrderDao {
      */
     Order save(Order order);
 
+    /**
+     * Найти открытый заказ пользователя (в статусе NEW или IN_PROCESS).
+     * Такой заказ у пользователя может быть только один.
+     *
+     * @param userId идентификатор пользователя
+     * @return открытый заказ или пустой Optional
+     */
+    Optional<Order> findOpenByUserId(long userId);
+
+    /**
+     * Сохранить новый открытый заказ, если у пользователя еще нет открытого заказа.
+     * Проверка и вставка выполняются одним запросом, поэтому параллельные запросы
+     * не создают второй открытый заказ.
+     *
+     * @param order данные заказа в статусе NEW или IN_PROCESS
+     * @return сохраненный заказ с установленным ID или пустой Optional, если
+     * у пользователя уже есть открытый заказ
+     */
+    Optional<Order> saveIfNoOpenOrder(Order order);
+
+    /**
+     * Увеличить сумму заказа без чтения и перезаписи всей строки
+     *
+     * @param id идентификатор заказа
+     * @param amount прибавляемая сумма
+     * @return новая сумма заказа
+     */
+    BigDecimal addToTotalPrice(long id, BigDecimal amount);
+
     /**
      * Обновить существующий заказ
      *
@@ -35,13 +35,37 @@ public interface OrderEntryDao {
     OrderEntry save(OrderEntry orderEntry);
 
     /**
-     * Сохранить список позиций заказа
+     * Сохранить список позиций заказа. Позиции одного заказа с одной книгой
+     * сливаются в одну с суммарным количеством.
      *
      * @param orderEntries список позиций заказа для сохранения
      * @return список сохраненных позиций заказа с установленными ID
      */
     List<OrderEntry> saveAll(List<OrderEntry> orderEntries);
 
+    /**
+     * Добавить книгу в заказ: создать позицию или, если книга уже есть в заказе,
+     * увеличить количество существующей позиции. Цена существующей позиции не меняется.
+     *
+     * @param orderEntry заказ, книга, добавляемое количество и цена
+     * @return позиция заказа после добавления
+     * @throws IllegalArgumentException если количество в позиции выйдет за пределы от 1 до 32767
+     */
+    OrderEntry addQuantity(OrderEntry orderEntry);
+
+    /**
+     * Привести позиции заказа к заданному списку. Позиции сопоставляются по книге:
+     * удаляются позиции книг, которых нет в списке, обновляются позиции с изменившимся
+     * количеством или ценой и вставляются позиции новых книг. Позиции одной книги
+     * в списке объединяются с суммированием количества; переданные позиции не меняются.
+     *
+     * @param orderId идентификатор заказа
+     * @param orderEntries желаемые позиции заказа
+     * @return позиции заказа с установленными ID
+     * @throws IllegalArgumentException если количество книги выходит за допустимые пределы
+     */
+    List<OrderEntry> replaceByOrderId(long orderId, List<OrderEntry> orderEntries);
+
     /**
      * Обновить существующую позицию заказа
      *
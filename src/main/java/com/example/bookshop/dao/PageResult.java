@@ -0,0 +1,26 @@
+package com.example.bookshop.dao;
+
+import java.util.List;
+
+/**
+ * Страница строк вместе с общим количеством строк, удовлетворяющих запросу
+ *
+ * @param <T> тип строк
+ */
+public class PageResult<T> {
+    private final List<T> content;
+    private final long totalElements;
+
+    public PageResult(List<T> content, long totalElements) {
+        this.content = content;
+        this.totalElements = totalElements;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public long getTotalElements() {
+        return totalElements;
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.bookshop.dao.impl;
 
 import com.example.bookshop.dao.AuthorDao;
+import com.example.bookshop.dao.PageResult;
 import com.example.bookshop.model.Author;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
@@ -27,6 +28,22 @@ public class AuthorDaoImpl implements AuthorDao {
 
     private final JdbcTemplate jdbcTemplate;
 
+    /**
+     * Поиск по подстроке полного имени в обоих порядках, поэтому находятся и "Лев Толстой",
+     * и "Толстой Лев"; оба выражения покрыты триграммными индексами.
+     * Параметры: два шаблона LIKE в нижнем регистре
+     */
+    private static final String NAME_SEARCH_SQL = "WHERE LOWER(first_name || ' ' || last_name) LIKE ? " +
+            "OR LOWER(last_name || ' ' || first_name) LIKE ? ";
+
+    /**
+     * Сначала имена, ближе всего совпадающие со строкой поиска.
+     * Параметры: строка поиска в нижнем регистре, дважды
+     */
+    private static final String NAME_RELEVANCE_ORDER_SQL = "ORDER BY GREATEST(" +
+            "similarity(LOWER(first_name || ' ' || last_name), ?), " +
+            "similarity(LOWER(last_name || ' ' || first_name), ?)) DESC, last_name, first_name, id ";
+
     private final RowMapper<Author> authorRowMapper = (rs, rowNum) -> {
         Author author = new Author();
         author.setId(rs.getLong("id"));
@@ -60,10 +77,26 @@ public class AuthorDaoImpl implements AuthorDao {
     public List<Author> findAll(int pageNumber, int pageSize) {
         int offset = pageNumber * pageSize;
         log.debug("Получение авторов: страница={}, размер={}", pageNumber, pageSize);
-        String sql = "SELECT * FROM authors ORDER BY last_name, first_name LIMIT ? OFFSET ?";
+        String sql = "SELECT * FROM authors ORDER BY last_name, first_name, id LIMIT ? OFFSET ?";
         return jdbcTemplate.query(sql, authorRowMapper, pageSize, offset);
     }
 
+    @Override
+    public List<Author> findAllAfter(String lastName, String firstName, long id, int limit) {
+        log.debug("Получение {} авторов после ({}, {}, {})", limit, lastName, firstName, id);
+        String sql = "SELECT * FROM authors WHERE (last_name, first_name, id) > (?, ?, ?) " +
+                "ORDER BY last_name, first_name, id LIMIT ?";
+        return jdbcTemplate.query(sql, authorRowMapper, lastName, firstName, id, limit);
+    }
+
+    @Override
+    public List<Author> findAllBefore(String lastName, String firstName, long id, int limit) {
+        log.debug("Получение {} авторов перед ({}, {}, {})", limit, lastName, firstName, id);
+        String sql = "SELECT * FROM authors WHERE (last_name, first_name, id) < (?, ?, ?) " +
+                "ORDER BY last_name DESC, first_name DESC, id DESC LIMIT ?";
+        return jdbcTemplate.query(sql, authorRowMapper, lastName, firstName, id, limit);
+    }
+
     @Override
     public long countAll() {
         log.debug("Подсчет общего количества авторов");
@@ -82,29 +115,46 @@ public class AuthorDaoImpl implements AuthorDao {
 
     @Override
     public List<Author> findByName(String name) {
-        String searchPattern = "%" + name.toLowerCase() + "%";
+        String term = normalizeName(name);
+        String searchPattern = "%" + term + "%";
         log.debug("Поиск авторов по имени {}", name);
-        String sql = "SELECT * FROM authors WHERE LOWER(first_name) LIKE ? OR LOWER(last_name) LIKE ? ORDER BY last_name, first_name";
-        return jdbcTemplate.query(sql, authorRowMapper, searchPattern, searchPattern);
+        String sql = "SELECT * FROM authors " + NAME_SEARCH_SQL + NAME_RELEVANCE_ORDER_SQL;
+        return jdbcTemplate.query(sql, authorRowMapper, searchPattern, searchPattern, term, term);
     }
 
     @Override
     public List<Author> findByName(String name, int pageNumber, int pageSize) {
-
-        String searchPattern = "%" + name.toLowerCase() + "%";
+        String term = normalizeName(name);
+        String searchPattern = "%" + term + "%";
         log.debug("Поиск авторов по имени {} страница={}, размер={}", name, pageNumber, pageSize);
-        String sql = "SELECT * FROM authors WHERE LOWER(first_name) LIKE ? OR LOWER(last_name) LIKE ? " +
-                "ORDER BY last_name, first_name LIMIT ? OFFSET ?";
+        String sql = "SELECT * FROM authors " + NAME_SEARCH_SQL + NAME_RELEVANCE_ORDER_SQL + "LIMIT ? OFFSET ?";
         return jdbcTemplate.query(sql, authorRowMapper,
-                searchPattern, searchPattern,
+                searchPattern, searchPattern, term, term,
                 pageSize, pageNumber * pageSize);
     }
 
+    @Override
+    public PageResult<Author> findPageByName(String name, int pageNumber, int pageSize, Long knownTotal) {
+        if (knownTotal != null) {
+            return new PageResult<>(findByName(name, pageNumber, pageSize), knownTotal);
+        }
+        String term = normalizeName(name);
+        String searchPattern = "%" + term + "%";
+        int offset = pageNumber * pageSize;
+        log.debug("Поиск авторов по имени с общим количеством: {} страница={}, размер={}", name, pageNumber, pageSize);
+        String sql = "SELECT *, COUNT(*) OVER() AS total_count FROM authors " +
+                NAME_SEARCH_SQL + NAME_RELEVANCE_ORDER_SQL + "LIMIT ? OFFSET ?";
+        CountingRowMapper<Author> mapper = new CountingRowMapper<>(authorRowMapper);
+        List<Author> authors = jdbcTemplate.query(sql, mapper,
+                searchPattern, searchPattern, term, term, pageSize, offset);
+        return new PageResult<>(authors, mapper.getTotal(offset, () -> countByName(name)));
+    }
+
     @Override
     public long countByName(String name) {
-        String searchPattern = "%" + name.toLowerCase() + "%";
+        String searchPattern = "%" + normalizeName(name) + "%";
         log.debug("Подсчет авторов по имени {}", name);
-        String sql = "SELECT COUNT(*) FROM authors WHERE LOWER(first_name) LIKE ? OR LOWER(last_name) LIKE ?";
+        String sql = "SELECT COUNT(*) FROM authors " + NAME_SEARCH_SQL;
         Long count = jdbcTemplate.queryForObject(sql, Long.class, searchPattern, searchPattern);
         return count != null ? count : 0L;
     }
@@ -192,4 +242,12 @@ public class AuthorDaoImpl implements AuthorDao {
         String sql = "DELETE FROM book_authors WHERE book_id = ? AND author_id = ?";
         return jdbcTemplate.update(sql, bookId, authorId) > 0;
     }
+
+    /**
+     * Приводит строку поиска к нижнему регистру и схлопывает пробелы между словами,
+     * чтобы "лев   толстой" совпадало с полным именем
+     */
+    private static String normalizeName(String name) {
+        return name.trim().replaceAll("\\s+", " ").toLowerCase();
+    }
 }
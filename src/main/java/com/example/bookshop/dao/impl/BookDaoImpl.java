@@ -1,6 +1,8 @@
 package com.example.bookshop.dao.impl;
 
 import com.example.bookshop.dao.BookDao;
+import com.example.bookshop.dao.PageResult;
+import com.example.bookshop.dto.BookFilter;
 import com.example.bookshop.model.Book;
 import com.example.bookshop.model.Currency;
 import com.example.bookshop.model.Language;
@@ -16,6 +18,7 @@ import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.Statement;
 import java.sql.Timestamp;
 import java.time.LocalDate;
@@ -32,7 +35,35 @@ public class BookDaoImpl implements BookDao {
     private static final Logger log = LoggerFactory.getLogger(BookDaoImpl.class);
 
     private final JdbcTemplate jdbcTemplate;
+    private final GenreDictionary genreDictionary;
 
+    private static final String GENRES_BY_BOOK_IDS_SQL = "SELECT bg.book_id, g.name FROM book_genres bg " +
+            "JOIN genres g ON g.id = bg.genre_id " +
+            "WHERE bg.book_id = ANY(?)";
+
+    private static final String AUTHORS_BY_BOOK_IDS_SQL = "SELECT ba.book_id, a.* FROM book_authors ba " +
+            "JOIN authors a ON a.id = ba.author_id " +
+            "WHERE ba.book_id = ANY(?) ORDER BY a.last_name, a.first_name";
+
+    /**
+     * Поиск по названию: подстрока через триграммный индекс по LOWER(title)
+     * или слова названия и описания через полнотекстовый индекс по search_vector.
+     * Параметры: поисковая строка, шаблон LIKE в нижнем регистре
+     */
+    private static final String TITLE_SEARCH_SQL = "FROM books b, plainto_tsquery('simple', ?) q " +
+            "WHERE LOWER(b.title) LIKE ? OR b.search_vector @@ q ";
+
+    /**
+     * Сначала совпадения по словам, затем по близости названия к строке поиска.
+     * Параметр: поисковая строка в нижнем регистре
+     */
+    private static final String TITLE_RELEVANCE_ORDER_SQL = "ORDER BY ts_rank(b.search_vector, q) DESC, " +
+            "similarity(LOWER(b.title), ?) DESC, b.title, b.id ";
+
+    /**
+     * Маппер строки книги без связей; жанры и авторы загружаются
+     * для всего списка книг в {@link #withRelations(List)}
+     */
     private final RowMapper<Book> bookRowMapper = (rs, rowNum) -> {
         Book book = new Book();
         book.setId(rs.getLong("id"));
@@ -46,67 +77,101 @@ public class BookDaoImpl implements BookDao {
         book.setCurrency(Currency.valueOf(rs.getString("currency")));
         book.setCreatedAt(rs.getObject("created_at", OffsetDateTime.class));
         book.setSoldCount(rs.getInt("sold_count"));
+        return book;
+    };
 
-        // Загрузка жанров и авторов для книги
-        loadGenresForBook(book);
-        loadAuthorsForBook(book);
+    private final RowMapper<Author> authorRowMapper = (rs, rowNum) -> {
+        Author author = new Author();
+        author.setId(rs.getLong("id"));
+        author.setFirstName(rs.getString("first_name"));
+        author.setLastName(rs.getString("last_name"));
+        author.setBio(rs.getString("bio"));
 
-        return book;
+        java.sql.Date birthdate = rs.getDate("birthdate");
+        if (birthdate != null) {
+            author.setBirthdate(birthdate.toLocalDate());
+        }
+
+        author.setCountry(rs.getString("country"));
+        return author;
     };
 
     public BookDaoImpl(JdbcTemplate jdbcTemplate) {
         this.jdbcTemplate = jdbcTemplate;
+        this.genreDictionary = new GenreDictionary(jdbcTemplate);
     }
 
     /**
-     * Загружает названия жанров для указанной книги из базы данных
+     * Загружает жанры и авторов для списка книг двумя запросами
+     * ({@code book_id = ANY(?)}) вместо двух запросов на каждую книгу.
+     * Автор, написавший несколько книг из списка, представлен одним объектом.
      *
-     * @param book книга, для которой нужно загрузить жанры
+     * @param books книги без жанров и авторов
+     * @return те же книги с заполненными жанрами и авторами
      */
-    private void loadGenresForBook(Book book) {
-        String sql = "SELECT g.name FROM genres g " +
-                "JOIN book_genres bg ON g.id = bg.genre_id " +
-                "WHERE bg.book_id = ?";
+    private List<Book> withRelations(List<Book> books) {
+        if (books.isEmpty()) {
+            return books;
+        }
+
+        Map<Long, Book> booksById = new LinkedHashMap<>();
+        for (Book book : books) {
+            Book first = booksById.putIfAbsent(book.getId(), book);
+            if (first == null) {
+                book.setGenres(new ArrayList<>());
+                book.setAuthors(new ArrayList<>());
+            } else {
+                // Одна и та же книга встречается в списке несколько раз
+                book.setGenres(first.getGenres());
+                book.setAuthors(first.getAuthors());
+            }
+        }
+        Long[] bookIds = booksById.keySet().toArray(new Long[0]);
+
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(GENRES_BY_BOOK_IDS_SQL);
+            ps.setArray(1, connection.createArrayOf("bigint", bookIds));
+            return ps;
+        }, (ResultSet rs) -> {
+            booksById.get(rs.getLong("book_id")).getGenres().add(rs.getString("name"));
+        });
+
+        Map<Long, Author> authorsById = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(AUTHORS_BY_BOOK_IDS_SQL);
+            ps.setArray(1, connection.createArrayOf("bigint", bookIds));
+            return ps;
+        }, (ResultSet rs) -> {
+            Author author = authorsById.get(rs.getLong("id"));
+            if (author == null) {
+                author = authorRowMapper.mapRow(rs, rs.getRow());
+                authorsById.put(author.getId(), author);
+            }
+            booksById.get(rs.getLong("book_id")).getAuthors().add(author);
+        });
 
-        List<String> genres = jdbcTemplate.queryForList(sql, String.class, book.getId());
-        book.setGenres(genres);
+        log.debug("Загружены жанры и авторы для {} книг", bookIds.length);
+        return books;
     }
 
     /**
-     * Загружает авторов для указанной книги из базы данных
+     * Загружает жанры и авторов для одной книги
      *
-     * @param book книга, для которой нужно загрузить авторов
+     * @param book книга без жанров и авторов
+     * @return та же книга или null, если книга не передана
      */
-    private void loadAuthorsForBook(Book book) {
-        String sql = "SELECT a.* FROM authors a " +
-                "JOIN book_authors ba ON a.id = ba.author_id " +
-                "WHERE ba.book_id = ? ORDER BY a.last_name, a.first_name";
-
-        RowMapper<Author> authorRowMapper = (rs, rowNum) -> {
-            Author author = new Author();
-            author.setId(rs.getLong("id"));
-            author.setFirstName(rs.getString("first_name"));
-            author.setLastName(rs.getString("last_name"));
-            author.setBio(rs.getString("bio"));
-
-            java.sql.Date birthdate = rs.getDate("birthdate");
-            if (birthdate != null) {
-                author.setBirthdate(birthdate.toLocalDate());
-            }
-
-            author.setCountry(rs.getString("country"));
-            return author;
-        };
-
-        List<Author> authors = jdbcTemplate.query(sql, authorRowMapper, book.getId());
-        book.setAuthors(authors);
+    private Book withRelations(Book book) {
+        if (book != null) {
+            withRelations(Collections.singletonList(book));
+        }
+        return book;
     }
 
     @Override
     public List<Book> findAll() {
         log.debug("Получение списка всех книг");
         String sql = "SELECT * FROM books ORDER BY title";
-        List<Book> books = jdbcTemplate.query(sql, bookRowMapper);
+        List<Book> books = withRelations(jdbcTemplate.query(sql, bookRowMapper));
         log.debug("Найдено {} книг", books.size());
         return books;
     }
@@ -115,12 +180,39 @@ public class BookDaoImpl implements BookDao {
     public List<Book> findAll(int pageNumber, int pageSize) {
         int offset = pageNumber * pageSize;
         log.debug("Получение книг: страница={}, размер={}", pageNumber, pageSize);
-        String sql = "SELECT * FROM books ORDER BY title LIMIT ? OFFSET ?";
-        List<Book> books = jdbcTemplate.query(sql, bookRowMapper, pageSize, offset);
+        String sql = "SELECT * FROM books ORDER BY title, id LIMIT ? OFFSET ?";
+        List<Book> books = withRelations(jdbcTemplate.query(sql, bookRowMapper, pageSize, offset));
         log.debug("Найдено {} книг на странице {}", books.size(), pageNumber);
         return books;
     }
 
+    @Override
+    public PageResult<Book> findPage(int pageNumber, int pageSize, Long knownTotal) {
+        if (knownTotal != null) {
+            return new PageResult<>(findAll(pageNumber, pageSize), knownTotal);
+        }
+        int offset = pageNumber * pageSize;
+        log.debug("Получение книг с общим количеством: страница={}, размер={}", pageNumber, pageSize);
+        String sql = "SELECT *, COUNT(*) OVER() AS total_count FROM books ORDER BY title, id LIMIT ? OFFSET ?";
+        CountingRowMapper<Book> mapper = new CountingRowMapper<>(bookRowMapper);
+        List<Book> books = withRelations(jdbcTemplate.query(sql, mapper, pageSize, offset));
+        return new PageResult<>(books, mapper.getTotal(offset, this::countAll));
+    }
+
+    @Override
+    public List<Book> findAllAfter(String title, long id, int limit) {
+        log.debug("Получение {} книг после ({}, {})", limit, title, id);
+        String sql = "SELECT * FROM books WHERE (title, id) > (?, ?) ORDER BY title, id LIMIT ?";
+        return withRelations(jdbcTemplate.query(sql, bookRowMapper, title, id, limit));
+    }
+
+    @Override
+    public List<Book> findAllBefore(String title, long id, int limit) {
+        log.debug("Получение {} книг перед ({}, {})", limit, title, id);
+        String sql = "SELECT * FROM books WHERE (title, id) < (?, ?) ORDER BY title DESC, id DESC LIMIT ?";
+        return withRelations(jdbcTemplate.query(sql, bookRowMapper, title, id, limit));
+    }
+
     @Override
     public long countAll() {
         log.debug("Подсчет общего количества книг");
@@ -129,12 +221,52 @@ public class BookDaoImpl implements BookDao {
         return count != null ? count : 0L;
     }
 
+    @Override
+    public List<Book> findByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        log.debug("Получение {} книг по списку id", ids.size());
+        Long[] bookIds = ids.toArray(new Long[0]);
+        List<Book> books = jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement("SELECT * FROM books WHERE id = ANY(?)");
+            ps.setArray(1, connection.createArrayOf("bigint", bookIds));
+            return ps;
+        }, bookRowMapper);
+
+        Map<Long, Book> booksById = new HashMap<>();
+        for (Book book : books) {
+            booksById.put(book.getId(), book);
+        }
+        List<Book> ordered = new ArrayList<>(books.size());
+        for (Long id : ids) {
+            Book book = booksById.get(id);
+            if (book != null) {
+                ordered.add(book);
+            }
+        }
+        return withRelations(ordered);
+    }
+
+    @Override
+    public List<Book> findByIdRange(long fromId, long toId) {
+        log.debug("Получение книг с id в диапазоне [{}, {})", fromId, toId);
+        String sql = "SELECT * FROM books WHERE id >= ? AND id < ? ORDER BY id";
+        return withRelations(jdbcTemplate.query(sql, bookRowMapper, fromId, toId));
+    }
+
+    @Override
+    public long findMaxId() {
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM books", Long.class);
+        return maxId != null ? maxId : 0L;
+    }
+
     @Override
     public Optional<Book> findById(long id) {
         try {
             log.debug("Поиск книги по id: {}", id);
             String sql = "SELECT * FROM books WHERE id = ?";
-            Book book = jdbcTemplate.queryForObject(sql, bookRowMapper, id);
+            Book book = withRelations(jdbcTemplate.queryForObject(sql, bookRowMapper, id));
             return Optional.ofNullable(book);
         } catch (EmptyResultDataAccessException e) {
             log.warn("Книга с id {} не найдена", id);
@@ -145,23 +277,42 @@ public class BookDaoImpl implements BookDao {
     @Override
     public List<Book> findByTitle(String title) {
         log.debug("Поиск книг по названию: {}", title);
-        String sql = "SELECT * FROM books WHERE LOWER(title) LIKE LOWER(?) ORDER BY title";
-        return jdbcTemplate.query(sql, bookRowMapper, "%" + title + "%");
+        String term = title.toLowerCase();
+        String sql = "SELECT b.* " + TITLE_SEARCH_SQL + TITLE_RELEVANCE_ORDER_SQL;
+        return withRelations(jdbcTemplate.query(sql, bookRowMapper, title, "%" + term + "%", term));
     }
 
     @Override
     public List<Book> findByTitle(String title, int pageNumber, int pageSize) {
         int offset = pageNumber * pageSize;
         log.debug("Поиск книг по названию: {} страница={}, размер={}", title, pageNumber, pageSize);
-        String sql = "SELECT * FROM books WHERE LOWER(title) LIKE LOWER(?) ORDER BY title LIMIT ? OFFSET ?";
-        return jdbcTemplate.query(sql, bookRowMapper, "%" + title + "%", pageSize, offset);
+        String term = title.toLowerCase();
+        String sql = "SELECT b.* " + TITLE_SEARCH_SQL + TITLE_RELEVANCE_ORDER_SQL + "LIMIT ? OFFSET ?";
+        return withRelations(jdbcTemplate.query(sql, bookRowMapper,
+                title, "%" + term + "%", term, pageSize, offset));
+    }
+
+    @Override
+    public PageResult<Book> findPageByTitle(String title, int pageNumber, int pageSize, Long knownTotal) {
+        if (knownTotal != null) {
+            return new PageResult<>(findByTitle(title, pageNumber, pageSize), knownTotal);
+        }
+        int offset = pageNumber * pageSize;
+        log.debug("Поиск книг по названию с общим количеством: {} страница={}, размер={}", title, pageNumber, pageSize);
+        String term = title.toLowerCase();
+        String sql = "SELECT b.*, COUNT(*) OVER() AS total_count " + TITLE_SEARCH_SQL +
+                TITLE_RELEVANCE_ORDER_SQL + "LIMIT ? OFFSET ?";
+        CountingRowMapper<Book> mapper = new CountingRowMapper<>(bookRowMapper);
+        List<Book> books = withRelations(jdbcTemplate.query(sql, mapper,
+                title, "%" + term + "%", term, pageSize, offset));
+        return new PageResult<>(books, mapper.getTotal(offset, () -> countByTitle(title)));
     }
 
     @Override
     public long countByTitle(String title) {
         log.debug("Подсчет книг по названию: {}", title);
-        String sql = "SELECT COUNT(*) FROM books WHERE LOWER(title) LIKE LOWER(?)";
-        Long count = jdbcTemplate.queryForObject(sql, Long.class, "%" + title + "%");
+        String sql = "SELECT COUNT(*) " + TITLE_SEARCH_SQL;
+        Long count = jdbcTemplate.queryForObject(sql, Long.class, title, "%" + title.toLowerCase() + "%");
         return count != null ? count : 0L;
     }
 
@@ -170,7 +321,7 @@ public class BookDaoImpl implements BookDao {
         try {
             log.debug("Поиск книги по ISBN {}", isbn);
             String sql = "SELECT * FROM books WHERE isbn = ?";
-            Book book = jdbcTemplate.queryForObject(sql, bookRowMapper, isbn);
+            Book book = withRelations(jdbcTemplate.queryForObject(sql, bookRowMapper, isbn));
             return Optional.ofNullable(book);
         } catch (EmptyResultDataAccessException e) {
             log.warn("Книга с ISBN {} не найдена", isbn);
@@ -261,7 +412,7 @@ public class BookDaoImpl implements BookDao {
     @Override
     public List<Book> findTopSellingBooks(int limit) {
         String sql = "SELECT * FROM books ORDER BY sold_count DESC LIMIT ?";
-        return jdbcTemplate.query(sql, bookRowMapper, limit);
+        return withRelations(jdbcTemplate.query(sql, bookRowMapper, limit));
     }
 
     @Override
@@ -304,7 +455,23 @@ public class BookDaoImpl implements BookDao {
                 "JOIN genres g ON bg.genre_id = g.id " +
                 "WHERE LOWER(g.name) = LOWER(?) " +
                 "ORDER BY b.title LIMIT ? OFFSET ?";
-        return jdbcTemplate.query(sql, bookRowMapper, genreName, pageSize, offset);
+        return withRelations(jdbcTemplate.query(sql, bookRowMapper, genreName, pageSize, offset));
+    }
+
+    @Override
+    public PageResult<Book> findPageByGenre(String genreName, int pageNumber, int pageSize, Long knownTotal) {
+        if (knownTotal != null) {
+            return new PageResult<>(findByGenre(genreName, pageNumber, pageSize), knownTotal);
+        }
+        int offset = pageNumber * pageSize;
+        String sql = "SELECT b.*, COUNT(*) OVER() AS total_count FROM books b " +
+                "JOIN book_genres bg ON b.id = bg.book_id " +
+                "JOIN genres g ON bg.genre_id = g.id " +
+                "WHERE LOWER(g.name) = LOWER(?) " +
+                "ORDER BY b.title LIMIT ? OFFSET ?";
+        CountingRowMapper<Book> mapper = new CountingRowMapper<>(bookRowMapper);
+        List<Book> books = withRelations(jdbcTemplate.query(sql, mapper, genreName, pageSize, offset));
+        return new PageResult<>(books, mapper.getTotal(offset, () -> countByGenre(genreName)));
     }
 
     @Override
@@ -317,13 +484,80 @@ public class BookDaoImpl implements BookDao {
         return count != null ? count : 0L;
     }
 
+    @Override
+    public PageResult<Book> findPageByFilter(BookFilter filter, int pageNumber, int pageSize) {
+        int offset = pageNumber * pageSize;
+        log.debug("Фильтрация книг: {} страница={}, размер={}", filter, pageNumber, pageSize);
+        List<Object> params = new ArrayList<>();
+        String condition = filterCondition(filter, params);
+
+        String sql = "SELECT b.*, COUNT(*) OVER() AS total_count FROM books b " + condition +
+                " ORDER BY b.id DESC LIMIT ? OFFSET ?";
+        List<Object> pageParams = new ArrayList<>(params);
+        pageParams.add(pageSize);
+        pageParams.add(offset);
+        CountingRowMapper<Book> mapper = new CountingRowMapper<>(bookRowMapper);
+        List<Book> books = withRelations(jdbcTemplate.query(sql, mapper, pageParams.toArray()));
+        return new PageResult<>(books, mapper.getTotal(offset, () -> {
+            Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM books b " + condition,
+                    Long.class, params.toArray());
+            return count != null ? count : 0L;
+        }));
+    }
+
+    /**
+     * Строит условие WHERE для фильтра каталога
+     *
+     * @param filter условия фильтрации
+     * @param params список, в который добавляются параметры условия
+     * @return условие, начинающееся с WHERE
+     */
+    private String filterCondition(BookFilter filter, List<Object> params) {
+        StringBuilder condition = new StringBuilder("WHERE TRUE");
+        if (!filter.getGenres().isEmpty()) {
+            condition.append(" AND b.id IN (SELECT bg.book_id FROM book_genres bg ")
+                    .append("JOIN genres g ON g.id = bg.genre_id WHERE LOWER(g.name) IN (")
+                    .append(placeholders(filter.getGenres().size())).append("))");
+            filter.getGenres().forEach(genre -> params.add(genre.toLowerCase()));
+        }
+        if (!filter.getLanguages().isEmpty()) {
+            condition.append(" AND b.language_code IN (").append(placeholders(filter.getLanguages().size())).append(")");
+            filter.getLanguages().forEach(language -> params.add(language.name()));
+        }
+        if (!filter.getCurrencies().isEmpty()) {
+            condition.append(" AND b.currency IN (").append(placeholders(filter.getCurrencies().size())).append(")");
+            filter.getCurrencies().forEach(currency -> params.add(currency.name()));
+        }
+        if (filter.getMinPrice() != null) {
+            condition.append(" AND b.price >= ?");
+            params.add(filter.getMinPrice());
+        }
+        if (filter.getMaxPrice() != null) {
+            condition.append(" AND b.price <= ?");
+            params.add(filter.getMaxPrice());
+        }
+        if (filter.getYearFrom() != null) {
+            condition.append(" AND b.published_at >= ?");
+            params.add(LocalDate.of(filter.getYearFrom(), 1, 1));
+        }
+        if (filter.getYearTo() != null) {
+            condition.append(" AND b.published_at < ?");
+            params.add(LocalDate.of(filter.getYearTo() + 1, 1, 1));
+        }
+        return condition.toString();
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
     @Override
     public List<Book> findByAuthorId(long authorId) {
         String sql = "SELECT b.* FROM books b " +
                 "JOIN book_authors ba ON b.id = ba.book_id " +
                 "WHERE ba.author_id = ? " +
                 "ORDER BY b.title";
-        return jdbcTemplate.query(sql, bookRowMapper, authorId);
+        return withRelations(jdbcTemplate.query(sql, bookRowMapper, authorId));
     }
 
     @Override
@@ -380,73 +614,81 @@ public class BookDaoImpl implements BookDao {
         return !existingBookIds.isEmpty();
     }
     /**
-     * Сохраняет связи книги с жанрами
+     * Сохраняет связи книги с жанрами одним запросом; id жанров берутся из справочника
      *
      * @param book книга с жанрами для сохранения
      */
     private void saveBookGenres(Book book) {
-        if (book.getGenres() == null || book.getGenres().isEmpty()) {
-            return;
-        }
-
-        for (String genreName : book.getGenres()) {
-            // Получаем id жанра по его названию
-            Long genreId = getGenreIdByName(genreName);
-            if (genreId == null) {
-                // Если жанр не найден, можно создать новый, но по условию задачи
-                // предполагаем, что все жанры уже есть в базе данных
-                continue;
-            }
-
-            // Добавляем связь книги с жанром
-            String sql = "INSERT INTO book_genres (book_id, genre_id) VALUES (?, ?)";
-            jdbcTemplate.update(sql, book.getId(), genreId);
-        }
+        insertBookGenres(book.getId(), resolveGenreIds(book));
     }
 
     /**
-     * Обновляет связи книги с жанрами (удаляет старые и создает новые)
+     * Приводит связи книги с жанрами к жанрам книги: удаляются только убранные жанры
+     * и добавляются только новые, остальные строки book_genres не меняются
      *
      * @param book книга с обновленными жанрами
      */
     private void updateBookGenres(Book book) {
-        // Сначала удаляем все текущие связи книги с жанрами
-        String deleteSql = "DELETE FROM book_genres WHERE book_id = ?";
-        jdbcTemplate.update(deleteSql, book.getId());
+        List<Long> currentIds = jdbcTemplate.queryForList(
+                "SELECT genre_id FROM book_genres WHERE book_id = ?", Long.class, book.getId());
+        RelationDiff<Long, Long> diff = RelationDiff.of(currentIds, resolveGenreIds(book));
+        if (diff.isEmpty()) {
+            return;
+        }
 
-        // Затем добавляем новые связи
-        saveBookGenres(book);
+        if (!diff.removed().isEmpty()) {
+            Long[] removedIds = diff.removed().toArray(new Long[0]);
+            jdbcTemplate.update(connection -> {
+                PreparedStatement ps = connection.prepareStatement(
+                        "DELETE FROM book_genres WHERE book_id = ? AND genre_id = ANY(?)");
+                ps.setLong(1, book.getId());
+                ps.setArray(2, connection.createArrayOf("bigint", removedIds));
+                return ps;
+            });
+        }
+        insertBookGenres(book.getId(), diff.added());
+        log.debug("Жанры книги {} обновлены: добавлено {}, удалено {}",
+                book.getId(), diff.added().size(), diff.removed().size());
     }
 
     /**
-     * Получает id жанра по его названию
-     *
-     * @param genreName название жанра
-     * @return id жанра или null, если жанр не найден
+     * @return id известных жанров книги без повторов; неизвестные жанры пропускаются
      */
-    private Long getGenreIdByName(String genreName) {
-        try {
-            String sql = "SELECT id FROM genres WHERE name = ?"; 
-            return jdbcTemplate.queryForObject(sql, Long.class, genreName);
-        } catch (EmptyResultDataAccessException e) {
-            return null;
+    private Set<Long> resolveGenreIds(Book book) {
+        Set<Long> genreIds = new LinkedHashSet<>();
+        if (book.getGenres() == null) {
+            return genreIds;
+        }
+        for (String genreName : book.getGenres()) {
+            Long genreId = genreDictionary.idOf(genreName);
+            if (genreId == null) {
+                // По условию задачи все жанры уже есть в базе данных, неизвестные пропускаем
+                log.debug("Жанр {} не найден, связь с книгой {} не создается", genreName, book.getId());
+                continue;
+            }
+            genreIds.add(genreId);
+        }
+        return genreIds;
+    }
+
+    private void insertBookGenres(long bookId, Collection<Long> genreIds) {
+        if (genreIds.isEmpty()) {
+            return;
         }
+        BulkInsert.<Long>into("book_genres")
+                .column("book_id", "bigint", genreId -> bookId)
+                .column("genre_id", "bigint", genreId -> genreId)
+                .onConflictDoNothing()
+                .execute(jdbcTemplate, genreIds);
     }
 
     @Override
     public List<Map<String, Object>> searchGenres(String query) {
-        String sql = "SELECT id, name FROM genres WHERE LOWER(name) LIKE LOWER(?) ORDER BY name LIMIT 10";
-        return jdbcTemplate.query(sql, (rs, rowNum) -> {
-            Map<String, Object> map = new HashMap<>();
-            map.put("id", rs.getLong("id"));
-            map.put("name", rs.getString("name"));
-            return map;
-        }, "%" + query + "%");
+        return genreDictionary.search(query, 10);
     }
 
     @Override
     public List<String> findAllGenres() {
-        String sql = "SELECT name FROM genres ORDER BY name";
-        return jdbcTemplate.queryForList(sql, String.class);
+        return genreDictionary.names();
     }
 }
@@ -0,0 +1,183 @@
+package com.example.bookshop.dao.impl;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Вставка множества строк одним запросом.
+ * <p>
+ * Значения каждого столбца передаются одним массивом, и строки разворачиваются
+ * через {@code unnest(...) WITH ORDINALITY}:
+ * <pre>
+ * INSERT INTO t (a, b) SELECT a, b FROM unnest(?::bigint[], ?::integer[]) WITH ORDINALITY AS r(a, b, n) ORDER BY n
+ * </pre>
+ * Текст запроса не зависит от количества строк, поэтому подготовленный запрос
+ * переиспользуется, а вставка любого числа строк — один обмен с базой.
+ *
+ * @param <T> тип вставляемых объектов
+ */
+final class BulkInsert<T> {
+
+    private record Column<T>(String name, String sqlType, Function<T, ?> value) {
+    }
+
+    private record Returned(List<Object> key, long id) {
+    }
+
+    private final String table;
+    private final List<Column<T>> columns = new ArrayList<>();
+    private String conflictClause = "";
+
+    private BulkInsert(String table) {
+        this.table = table;
+    }
+
+    static <T> BulkInsert<T> into(String table) {
+        return new BulkInsert<>(table);
+    }
+
+    /**
+     * @param name имя столбца
+     * @param sqlType тип элементов массива в PostgreSQL (bigint, integer, numeric, text...)
+     * @param value значение столбца для вставляемого объекта
+     */
+    BulkInsert<T> column(String name, String sqlType, Function<T, ?> value) {
+        columns.add(new Column<>(name, sqlType, value));
+        return this;
+    }
+
+    /**
+     * Пропускать строки, нарушающие уникальность, вместо ошибки
+     */
+    BulkInsert<T> onConflictDoNothing() {
+        conflictClause = " ON CONFLICT DO NOTHING";
+        return this;
+    }
+
+    /**
+     * Вставляет строки
+     *
+     * @return количество вставленных строк
+     */
+    int execute(JdbcTemplate jdbcTemplate, Collection<T> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update(connection -> prepare(connection, sql(""), rows));
+    }
+
+    /**
+     * Вставляет строки и возвращает сгенерированные id в порядке строк.
+     * PostgreSQL не обещает, что {@code RETURNING} вернет строки в порядке вставки,
+     * поэтому вместе с id возвращается естественный ключ строки, и id сопоставляются
+     * строкам по нему. Значения ключевых столбцов должны иметь тот же Java-тип, что
+     * возвращает драйвер (bigint — {@link Long}, text — {@link String}).
+     *
+     * @param keyColumns столбцы, однозначно определяющие строку среди вставляемых
+     * @return id вставленных строк в порядке {@code rows}
+     */
+    List<Long> executeReturningIds(JdbcTemplate jdbcTemplate, Collection<T> rows, String... keyColumns) {
+        if (rows.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (!conflictClause.isEmpty()) {
+            throw new IllegalStateException("id пропущенных при конфликте строк не возвращаются");
+        }
+        List<Column<T>> keys = keyColumns(keyColumns);
+        List<List<Object>> rowKeys = new ArrayList<>(rows.size());
+        Set<List<Object>> distinctKeys = new HashSet<>();
+        for (T row : rows) {
+            List<Object> key = new ArrayList<>(keys.size());
+            for (Column<T> column : keys) {
+                key.add(column.value().apply(row));
+            }
+            if (!distinctKeys.add(key)) {
+                throw new IllegalArgumentException("Ключ " + key + " повторяется среди строк для " + table);
+            }
+            rowKeys.add(key);
+        }
+
+        StringBuilder returning = new StringBuilder(" RETURNING id");
+        for (Column<T> column : keys) {
+            returning.append(", ").append(column.name());
+        }
+        List<Returned> returned = jdbcTemplate.query(connection -> prepare(connection, sql(returning.toString()), rows),
+                (rs, rowNum) -> {
+                    List<Object> key = new ArrayList<>(keys.size());
+                    for (int i = 0; i < keys.size(); i++) {
+                        key.add(rs.getObject(i + 2));
+                    }
+                    return new Returned(key, rs.getLong(1));
+                });
+        Map<List<Object>, Long> idsByKey = new HashMap<>();
+        for (Returned row : returned) {
+            idsByKey.put(row.key(), row.id());
+        }
+
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (List<Object> key : rowKeys) {
+            Long id = idsByKey.get(key);
+            if (id == null) {
+                throw new IllegalStateException("Не возвращен id строки " + key + " в " + table);
+            }
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    private List<Column<T>> keyColumns(String... names) {
+        if (names.length == 0) {
+            throw new IllegalArgumentException("Не указаны ключевые столбцы для " + table);
+        }
+        List<Column<T>> keys = new ArrayList<>(names.length);
+        for (String name : names) {
+            Column<T> key = columns.stream()
+                    .filter(column -> column.name().equals(name))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Столбец " + name + " не вставляется в " + table));
+            keys.add(key);
+        }
+        return keys;
+    }
+
+    private String sql(String returning) {
+        StringBuilder names = new StringBuilder();
+        StringBuilder arrays = new StringBuilder();
+        for (Column<T> column : columns) {
+            if (names.length() > 0) {
+                names.append(", ");
+                arrays.append(", ");
+            }
+            names.append(column.name());
+            arrays.append("?::").append(column.sqlType()).append("[]");
+        }
+        return "INSERT INTO " + table + " (" + names + ") SELECT " + names
+                + " FROM unnest(" + arrays + ") WITH ORDINALITY AS r(" + names + ", n) ORDER BY n"
+                + conflictClause + returning;
+    }
+
+    private PreparedStatement prepare(Connection connection, String sql, Collection<T> rows) throws SQLException {
+        PreparedStatement ps = connection.prepareStatement(sql);
+        int index = 1;
+        for (Column<T> column : columns) {
+            Object[] values = new Object[rows.size()];
+            int i = 0;
+            for (T row : rows) {
+                values[i++] = column.value().apply(row);
+            }
+            ps.setArray(index++, connection.createArrayOf(column.sqlType(), values));
+        }
+        return ps;
+    }
+}
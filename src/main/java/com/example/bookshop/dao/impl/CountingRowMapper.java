@@ -0,0 +1,50 @@
+package com.example.bookshop.dao.impl;
+
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.function.LongSupplier;
+
+/**
+ * Маппер строк страницы, выбранной вместе с {@code COUNT(*) OVER() AS total_count}.
+ * Общее количество читается из первой строки, поэтому страница и количество
+ * получаются одним запросом.
+ *
+ * @param <T> тип строк
+ */
+class CountingRowMapper<T> implements RowMapper<T> {
+
+    static final String TOTAL_COUNT_COLUMN = "total_count";
+
+    private final RowMapper<T> delegate;
+    private long total = -1;
+
+    CountingRowMapper(RowMapper<T> delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public T mapRow(ResultSet rs, int rowNum) throws SQLException {
+        if (total < 0) {
+            total = rs.getLong(TOTAL_COUNT_COLUMN);
+        }
+        return delegate.mapRow(rs, rowNum);
+    }
+
+    /**
+     * Возвращает общее количество строк. Если страница пуста, оконная функция
+     * ничего не вернула: для первой страницы это означает ноль, а для страницы
+     * за пределами данных количество считается отдельным запросом.
+     *
+     * @param offset смещение страницы
+     * @param countQuery отдельный запрос количества
+     * @return общее количество строк
+     */
+    long getTotal(int offset, LongSupplier countQuery) {
+        if (total >= 0) {
+            return total;
+        }
+        return offset == 0 ? 0 : countQuery.getAsLong();
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.bookshop.dao.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Справочник жанров в памяти: id по названию и список названий по алфавиту.
+ * <p>
+ * Жанров немного, и меняются они миграциями, а не из приложения, поэтому справочник
+ * загружается одним запросом при первом обращении и перечитывается, когда устарел
+ * ({@link #REFRESH_INTERVAL_NANOS}) или когда запрошено неизвестное название —
+ * не чаще раза в {@link #MISS_RELOAD_INTERVAL_NANOS}, чтобы опечатки в запросах
+ * не превращались в запросы к базе.
+ */
+class GenreDictionary {
+    private static final Logger log = LoggerFactory.getLogger(GenreDictionary.class);
+
+    static final long REFRESH_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(5);
+    static final long MISS_RELOAD_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Snapshot snapshot;
+
+    GenreDictionary(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @param name точное название жанра
+     * @return id жанра или null, если такого жанра нет
+     */
+    Long idOf(String name) {
+        Snapshot current = current();
+        Long id = current.idsByName.get(name);
+        if (id == null && System.nanoTime() - current.loadedAt > MISS_RELOAD_INTERVAL_NANOS) {
+            id = reload(current).idsByName.get(name);
+        }
+        return id;
+    }
+
+    /**
+     * @return названия всех жанров по алфавиту
+     */
+    List<String> names() {
+        return current().names;
+    }
+
+    /**
+     * Ищет жанры, название которых содержит строку, без учета регистра
+     *
+     * @param query часть названия
+     * @param limit максимальное количество жанров
+     * @return жанры по алфавиту: пары id и name
+     */
+    List<Map<String, Object>> search(String query, int limit) {
+        Snapshot current = current();
+        String needle = query.toLowerCase(Locale.ROOT);
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (String name : current.names) {
+            if (result.size() >= limit) {
+                break;
+            }
+            if (name.toLowerCase(Locale.ROOT).contains(needle)) {
+                Map<String, Object> genre = new HashMap<>();
+                genre.put("id", current.idsByName.get(name));
+                genre.put("name", name);
+                result.add(genre);
+            }
+        }
+        return result;
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null || System.nanoTime() - current.loadedAt > REFRESH_INTERVAL_NANOS) {
+            current = reload(current);
+        }
+        return current;
+    }
+
+    /**
+     * Перечитывает справочник, если его не перечитал другой поток, пока этот ждал блокировку
+     *
+     * @param seen снимок, который вызывающий поток счел устаревшим, или null
+     */
+    private synchronized Snapshot reload(Snapshot seen) {
+        Snapshot latest = snapshot;
+        if (latest != null && (seen == null || latest.loadedAt - seen.loadedAt > 0)) {
+            return latest;
+        }
+        Map<String, Long> idsByName = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT id, name FROM genres ORDER BY name",
+                rs -> {
+                    idsByName.put(rs.getString("name"), rs.getLong("id"));
+                });
+        Snapshot loaded = new Snapshot(idsByName);
+        snapshot = loaded;
+        log.debug("Справочник жанров загружен: {} жанров", idsByName.size());
+        return loaded;
+    }
+
+    private static final class Snapshot {
+        private final Map<String, Long> idsByName;
+        private final List<String> names;
+        private final long loadedAt = System.nanoTime();
+
+        private Snapshot(Map<String, Long> idsByName) {
+            this.idsByName = Collections.unmodifiableMap(idsByName);
+            this.names = List.copyOf(idsByName.keySet());
+        }
+    }
+}
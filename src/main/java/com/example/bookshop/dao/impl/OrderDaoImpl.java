@@ -2,6 +2,7 @@
 package com.example.bookshop.dao.impl;
 
 import com.example.bookshop.dao.OrderDao;
+import com.example.bookshop.dao.PageResult;
 import com.example.bookshop.model.Currency;
 import com.example.bookshop.model.Order;
 import com.example.bookshop.model.OrderStatus;
@@ -32,6 +33,12 @@ public class OrderDaoImpl implements OrderDao {
     private static final Logger log = LoggerFactory.getLogger(OrderDaoImpl.class);
     private final JdbcTemplate jdbcTemplate;
 
+    /**
+     * Открытый заказ; условие совпадает с условием уникального индекса
+     * ux_orders_open_user, чтобы по нему работали ON CONFLICT и поиск заказа
+     */
+    private static final String OPEN_ORDER_CONDITION = "status IN ('NEW', 'IN_PROCESS')";
+
     private final RowMapper<Order> orderRowMapper = (rs, rowNum) -> {
         Order order = new Order();
         order.setId(rs.getLong("id"));
@@ -58,10 +65,37 @@ public class OrderDaoImpl implements OrderDao {
     @Override
     public List<Order> findAll(int pageNumber, int pageSize) {
         int offset = pageNumber * pageSize;
-        String sql = "SELECT * FROM orders ORDER BY order_date DESC LIMIT ? OFFSET ?";
+        String sql = "SELECT * FROM orders ORDER BY order_date DESC, id DESC LIMIT ? OFFSET ?";
         return jdbcTemplate.query(sql, orderRowMapper, pageSize, offset);
     }
 
+    @Override
+    public PageResult<Order> findPage(int pageNumber, int pageSize, Long knownTotal) {
+        if (knownTotal != null) {
+            return new PageResult<>(findAll(pageNumber, pageSize), knownTotal);
+        }
+        int offset = pageNumber * pageSize;
+        String sql = "SELECT *, COUNT(*) OVER() AS total_count FROM orders " +
+                "ORDER BY order_date DESC, id DESC LIMIT ? OFFSET ?";
+        CountingRowMapper<Order> mapper = new CountingRowMapper<>(orderRowMapper);
+        List<Order> orders = jdbcTemplate.query(sql, mapper, pageSize, offset);
+        return new PageResult<>(orders, mapper.getTotal(offset, this::countAll));
+    }
+
+    @Override
+    public List<Order> findAllAfter(OffsetDateTime orderDate, long id, int limit) {
+        String sql = "SELECT * FROM orders WHERE (order_date, id) < (?, ?) " +
+                "ORDER BY order_date DESC, id DESC LIMIT ?";
+        return jdbcTemplate.query(sql, orderRowMapper, orderDate, id, limit);
+    }
+
+    @Override
+    public List<Order> findAllBefore(OffsetDateTime orderDate, long id, int limit) {
+        String sql = "SELECT * FROM orders WHERE (order_date, id) > (?, ?) " +
+                "ORDER BY order_date, id LIMIT ?";
+        return jdbcTemplate.query(sql, orderRowMapper, orderDate, id, limit);
+    }
+
     @Override
     public long countAll() {
         String sql = "SELECT COUNT(*) FROM orders";
@@ -146,6 +180,45 @@ public class OrderDaoImpl implements OrderDao {
         return order;
     }
 
+    @Override
+    public Optional<Order> findOpenByUserId(long userId) {
+        String sql = "SELECT * FROM orders WHERE user_id = ? AND " + OPEN_ORDER_CONDITION;
+        return jdbcTemplate.query(sql, orderRowMapper, userId).stream().findFirst();
+    }
+
+    @Override
+    public Optional<Order> saveIfNoOpenOrder(Order order) {
+        String sql = "INSERT INTO orders (user_id, order_date, order_code, total_price, currency, status) "
+                + "VALUES (?, ?, ?, ?, ?, ?) "
+                + "ON CONFLICT (user_id) WHERE " + OPEN_ORDER_CONDITION + " DO NOTHING RETURNING id";
+
+        List<Long> ids = jdbcTemplate.query(sql, (rs, rowNum) -> rs.getLong("id"),
+                order.getUserId(),
+                Timestamp.from(order.getOrderDate().toInstant()),
+                order.getOrderCode(),
+                order.getTotalPrice(),
+                order.getCurrency().name(),
+                order.getStatus().name());
+        if (ids.isEmpty()) {
+            log.debug("У пользователя {} уже есть открытый заказ", order.getUserId());
+            return Optional.empty();
+        }
+
+        order.setId(ids.get(0));
+        log.info("Создан новый заказ с id: {}", order.getId());
+        return Optional.of(order);
+    }
+
+    @Override
+    public BigDecimal addToTotalPrice(long id, BigDecimal amount) {
+        String sql = "UPDATE orders SET total_price = total_price + ? WHERE id = ? RETURNING total_price";
+        List<BigDecimal> totals = jdbcTemplate.query(sql, (rs, rowNum) -> rs.getBigDecimal("total_price"), amount, id);
+        if (totals.isEmpty()) {
+            throw new RuntimeException("Не удалось обновить сумму заказа с ID: " + id);
+        }
+        return totals.get(0);
+    }
+
     @Override
     public Order update(Order order) {
         String sql = "UPDATE orders SET user_id = ?, order_date = ?, order_code = ?, "
@@ -15,7 +15,9 @@ import java.math.BigDecimal;
 import java.sql.PreparedStatement;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -28,6 +30,16 @@ public class OrderEntryDaoImpl implements OrderEntryDao {
     private static final Logger log = LoggerFactory.getLogger(OrderEntryDaoImpl.class);
     private final JdbcTemplate jdbcTemplate;
 
+    /** Наибольшее количество книги в позиции: столбец quantity имеет тип SMALLINT */
+    static final int MAX_QUANTITY = Short.MAX_VALUE;
+
+    /** Вставка всех позиций одним запросом, см. {@link #saveAll(List)} */
+    private static final BulkInsert<OrderEntry> BULK_INSERT = BulkInsert.<OrderEntry>into("order_entry")
+            .column("order_id", "bigint", OrderEntry::getOrderId)
+            .column("book_id", "bigint", OrderEntry::getBookId)
+            .column("quantity", "integer", OrderEntry::getQuantity)
+            .column("unit_price", "numeric", OrderEntry::getUnitPrice);
+
     private final RowMapper<OrderEntry> orderEntryRowMapper = (rs, rowNum) -> {
         OrderEntry orderEntry = new OrderEntry();
         orderEntry.setId(rs.getLong("id"));
@@ -84,11 +96,119 @@ public class OrderEntryDaoImpl implements OrderEntryDao {
 
     @Override
     public List<OrderEntry> saveAll(List<OrderEntry> orderEntries) {
-        List<OrderEntry> savedEntries = new ArrayList<>();
+        List<OrderEntry> merged = mergeByBook(orderEntries);
+        insertAll(merged);
+        return merged;
+    }
+
+    /**
+     * Вставляет позиции одним запросом и присваивает им id. Книги в позициях одного заказа не повторяются.
+     */
+    private void insertAll(List<OrderEntry> orderEntries) {
+        if (orderEntries.isEmpty()) {
+            return;
+        }
+        List<Long> ids = BULK_INSERT.executeReturningIds(jdbcTemplate, orderEntries, "order_id", "book_id");
+        for (int i = 0; i < orderEntries.size(); i++) {
+            orderEntries.get(i).setId(ids.get(i));
+        }
+        log.info("Создано {} позиций заказа", orderEntries.size());
+    }
+
+    /**
+     * Сливает позиции одного заказа с одной книгой в одну, складывая количество:
+     * в заказе на книгу приходится одна строка. Переданные позиции не меняются,
+     * сливаются их копии; цена берется из первой позиции книги.
+     *
+     * @return копии позиций без повторяющихся книг в порядке первого появления
+     * @throws IllegalArgumentException если количество книги выходит за 1..{@link #MAX_QUANTITY}
+     */
+    static List<OrderEntry> mergeByBook(List<OrderEntry> orderEntries) {
+        Map<BookInOrder, OrderEntry> merged = new LinkedHashMap<>();
         for (OrderEntry entry : orderEntries) {
-            savedEntries.add(save(entry));
+            if (entry.getQuantity() < 1) {
+                throw new IllegalArgumentException("Количество книги должно быть от 1 до " + MAX_QUANTITY);
+            }
+            OrderEntry copy = merged.computeIfAbsent(new BookInOrder(entry.getOrderId(), entry.getBookId()),
+                    key -> new OrderEntry(entry.getId(), key.orderId(), key.bookId(), 0, entry.getUnitPrice()));
+            long quantity = (long) copy.getQuantity() + entry.getQuantity();
+            if (quantity > MAX_QUANTITY) {
+                throw new IllegalArgumentException("Количество книги " + entry.getBookId() + " в заказе "
+                        + entry.getOrderId() + " превысит " + MAX_QUANTITY);
+            }
+            copy.setQuantity((int) quantity);
         }
-        return savedEntries;
+        return new ArrayList<>(merged.values());
+    }
+
+    private record BookInOrder(long orderId, long bookId) {
+    }
+
+    @Override
+    public OrderEntry addQuantity(OrderEntry orderEntry) {
+        if (orderEntry.getQuantity() < 1 || orderEntry.getQuantity() > MAX_QUANTITY) {
+            throw new IllegalArgumentException("Количество книги должно быть от 1 до " + MAX_QUANTITY);
+        }
+        // Условие DO UPDATE не дает сумме выйти за SMALLINT: строка тогда не возвращается
+        String sql = "INSERT INTO order_entry (order_id, book_id, quantity, unit_price) VALUES (?, ?, ?, ?) "
+                + "ON CONFLICT (order_id, book_id) DO UPDATE SET quantity = order_entry.quantity + EXCLUDED.quantity "
+                + "WHERE order_entry.quantity + EXCLUDED.quantity <= " + MAX_QUANTITY + " "
+                + "RETURNING *";
+        List<OrderEntry> rows = jdbcTemplate.query(sql, orderEntryRowMapper,
+                orderEntry.getOrderId(),
+                orderEntry.getBookId(),
+                orderEntry.getQuantity(),
+                orderEntry.getUnitPrice());
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException("Количество книги " + orderEntry.getBookId() + " в заказе "
+                    + orderEntry.getOrderId() + " превысит " + MAX_QUANTITY);
+        }
+        OrderEntry saved = rows.get(0);
+        log.info("Книга {} добавлена в заказ {}: позиция {}, количество {}",
+                orderEntry.getBookId(), orderEntry.getOrderId(), saved.getId(), saved.getQuantity());
+        return saved;
+    }
+
+    @Override
+    public List<OrderEntry> replaceByOrderId(long orderId, List<OrderEntry> orderEntries) {
+        // Позиции переносятся в заказ и сливаются в копиях: переданные объекты не меняются
+        List<OrderEntry> inOrder = new ArrayList<>(orderEntries.size());
+        for (OrderEntry entry : orderEntries) {
+            inOrder.add(new OrderEntry(entry.getId(), orderId, entry.getBookId(), entry.getQuantity(), entry.getUnitPrice()));
+        }
+        List<OrderEntry> merged = mergeByBook(inOrder);
+
+        RelationDiff<Long, OrderEntry> diff = RelationDiff.of(findByOrderId(orderId), merged,
+                OrderEntry::getBookId,
+                (current, desired) -> current.getQuantity() == desired.getQuantity()
+                        && Objects.equals(current.getUnitPrice(), desired.getUnitPrice()));
+
+        if (!diff.removed().isEmpty()) {
+            Long[] removedIds = diff.removed().stream().map(OrderEntry::getId).toArray(Long[]::new);
+            jdbcTemplate.update(connection -> {
+                PreparedStatement ps = connection.prepareStatement("DELETE FROM order_entry WHERE id = ANY(?)");
+                ps.setArray(1, connection.createArrayOf("bigint", removedIds));
+                return ps;
+            });
+        }
+
+        for (RelationDiff.Match<OrderEntry> match : diff.matched()) {
+            match.desired().setId(match.current().getId());
+        }
+        if (!diff.changed().isEmpty()) {
+            List<Object[]> params = new ArrayList<>(diff.changed().size());
+            for (RelationDiff.Match<OrderEntry> match : diff.changed()) {
+                OrderEntry entry = match.desired();
+                params.add(new Object[]{entry.getQuantity(), entry.getUnitPrice(), entry.getId()});
+            }
+            jdbcTemplate.batchUpdate("UPDATE order_entry SET quantity = ?, unit_price = ? WHERE id = ?", params);
+        }
+
+        insertAll(diff.added());
+
+        log.info("Позиции заказа с id {} обновлены: добавлено {}, изменено {}, удалено {}",
+                orderId, diff.added().size(), diff.changed().size(), diff.removed().size());
+        return merged;
     }
 
     @Override
@@ -0,0 +1,123 @@
+package com.example.bookshop.dao.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * Разница между текущими строками связующей или дочерней таблицы и желаемым набором.
+ * <p>
+ * Строки сопоставляются по ключу: строки без пары в текущем наборе нужно вставить,
+ * строки без пары в желаемом — удалить, а пары с отличающимся содержимым — обновить.
+ * Так изменение связей пишет в базу только то, что действительно поменялось,
+ * вместо удаления и повторной вставки всех строк.
+ *
+ * @param <K> тип ключа строки
+ * @param <R> тип строки
+ */
+final class RelationDiff<K, R> {
+
+    /**
+     * Пара строк с одинаковым ключом
+     *
+     * @param current строка из базы
+     * @param desired желаемая строка
+     */
+    record Match<R>(R current, R desired) {
+    }
+
+    private final List<R> added = new ArrayList<>();
+    private final List<R> removed = new ArrayList<>();
+    private final List<Match<R>> matched = new ArrayList<>();
+    private final List<Match<R>> changed = new ArrayList<>();
+
+    private RelationDiff() {
+    }
+
+    /**
+     * Сравнивает наборы строк, у которых нет содержимого кроме ключа (например, связи многие-ко-многим)
+     */
+    static <K> RelationDiff<K, K> of(Collection<K> current, Collection<K> desired) {
+        return of(current, desired, Function.identity(), (a, b) -> true);
+    }
+
+    /**
+     * Сравнивает наборы строк
+     *
+     * @param current строки, которые сейчас в базе
+     * @param desired строки, которые должны остаться после сохранения
+     * @param key ключ, по которому сопоставляются строки
+     * @param sameContent true, если содержимое пары строк совпадает и обновлять нечего
+     * @return разница наборов; из повторяющихся по ключу текущих строк лишние попадают
+     * в удаляемые, из повторяющихся желаемых учитывается первая
+     */
+    static <K, R> RelationDiff<K, R> of(Collection<R> current, Collection<R> desired,
+                                        Function<R, K> key, BiPredicate<R, R> sameContent) {
+        RelationDiff<K, R> diff = new RelationDiff<>();
+        Map<K, R> currentByKey = new LinkedHashMap<>();
+        for (R row : current) {
+            if (currentByKey.putIfAbsent(key.apply(row), row) != null) {
+                diff.removed.add(row);
+            }
+        }
+        Map<K, R> desiredByKey = new LinkedHashMap<>();
+        for (R row : desired) {
+            desiredByKey.putIfAbsent(key.apply(row), row);
+        }
+
+        for (Map.Entry<K, R> entry : desiredByKey.entrySet()) {
+            R existing = currentByKey.remove(entry.getKey());
+            if (existing == null) {
+                diff.added.add(entry.getValue());
+            } else {
+                Match<R> match = new Match<>(existing, entry.getValue());
+                diff.matched.add(match);
+                if (!sameContent.test(existing, entry.getValue())) {
+                    diff.changed.add(match);
+                }
+            }
+        }
+        diff.removed.addAll(currentByKey.values());
+        return diff;
+    }
+
+    /**
+     * @return желаемые строки, которых нет в базе
+     */
+    List<R> added() {
+        return Collections.unmodifiableList(added);
+    }
+
+    /**
+     * @return строки из базы, которых нет в желаемом наборе
+     */
+    List<R> removed() {
+        return Collections.unmodifiableList(removed);
+    }
+
+    /**
+     * @return все пары строк с одинаковым ключом, включая неизмененные
+     */
+    List<Match<R>> matched() {
+        return Collections.unmodifiableList(matched);
+    }
+
+    /**
+     * @return пары строк с одинаковым ключом и разным содержимым
+     */
+    List<Match<R>> changed() {
+        return Collections.unmodifiableList(changed);
+    }
+
+    /**
+     * @return true, если сохранять нечего
+     */
+    boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+    }
+}
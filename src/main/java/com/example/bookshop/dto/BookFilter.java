@@ -0,0 +1,111 @@
+package com.example.bookshop.dto;
+
+import com.example.bookshop.model.Currency;
+import com.example.bookshop.model.Language;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Условия фильтрации каталога книг.
+ * Внутри одного признака значения объединяются через ИЛИ (любой из выбранных жанров),
+ * разные признаки — через И. Незаданный признак не ограничивает выборку.
+ */
+public class BookFilter {
+    private List<String> genres = new ArrayList<>();
+    private List<Language> languages = new ArrayList<>();
+    private List<Currency> currencies = new ArrayList<>();
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private Integer yearFrom;
+    private Integer yearTo;
+
+    public List<String> getGenres() {
+        return genres;
+    }
+
+    public void setGenres(List<String> genres) {
+        this.genres = genres != null ? genres : new ArrayList<>();
+    }
+
+    public List<Language> getLanguages() {
+        return languages;
+    }
+
+    public void setLanguages(List<Language> languages) {
+        this.languages = languages != null ? languages : new ArrayList<>();
+    }
+
+    public List<Currency> getCurrencies() {
+        return currencies;
+    }
+
+    public void setCurrencies(List<Currency> currencies) {
+        this.currencies = currencies != null ? currencies : new ArrayList<>();
+    }
+
+    public BigDecimal getMinPrice() {
+        return minPrice;
+    }
+
+    public void setMinPrice(BigDecimal minPrice) {
+        this.minPrice = minPrice;
+    }
+
+    public BigDecimal getMaxPrice() {
+        return maxPrice;
+    }
+
+    public void setMaxPrice(BigDecimal maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+    public Integer getYearFrom() {
+        return yearFrom;
+    }
+
+    public void setYearFrom(Integer yearFrom) {
+        this.yearFrom = yearFrom;
+    }
+
+    public Integer getYearTo() {
+        return yearTo;
+    }
+
+    public void setYearTo(Integer yearTo) {
+        this.yearTo = yearTo;
+    }
+
+    public boolean hasPriceRange() {
+        return minPrice != null || maxPrice != null;
+    }
+
+    public boolean hasYearRange() {
+        return yearFrom != null || yearTo != null;
+    }
+
+    /**
+     * @return true, если цена попадает в заданный диапазон (границы включительно)
+     */
+    public boolean matchesPrice(BigDecimal price) {
+        if (price == null) {
+            return !hasPriceRange();
+        }
+        return (minPrice == null || price.compareTo(minPrice) >= 0)
+                && (maxPrice == null || price.compareTo(maxPrice) <= 0);
+    }
+
+    @Override
+    public String toString() {
+        return "BookFilter{" +
+                "genres=" + genres +
+                ", languages=" + languages +
+                ", currencies=" + currencies +
+                ", minPrice=" + minPrice +
+                ", maxPrice=" + maxPrice +
+                ", yearFrom=" + yearFrom +
+                ", yearTo=" + yearTo +
+                '}';
+    }
+}
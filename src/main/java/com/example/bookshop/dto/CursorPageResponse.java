@@ -0,0 +1,110 @@
+package com.example.bookshop.dto;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Страница данных, полученная по курсору ({@link PageCursor}).
+ * Вместо номера страницы несет непрозрачные курсоры на предыдущую и следующую
+ * страницы; общее количество элементов сохраняется для перехода на страницу по номеру.
+ *
+ * @param <T> тип данных в коллекции
+ */
+public class CursorPageResponse<T> {
+    private final List<T> content;
+    private final int pageSize;
+    private final long totalElements;
+    private final int totalPages;
+    private final String previousCursor;
+    private final String nextCursor;
+
+    public CursorPageResponse(List<T> content, int pageSize, long totalElements,
+                              String previousCursor, String nextCursor) {
+        this.content = content;
+        this.pageSize = pageSize;
+        this.totalElements = totalElements;
+        this.totalPages = (pageSize > 0 && totalElements > 0) ? (int) Math.ceil((double) totalElements / pageSize) : 0;
+        this.previousCursor = previousCursor;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Собирает страницу из строк, выбранных по курсору.
+     * Запрос должен выбрать на одну строку больше размера страницы: по лишней строке
+     * видно, есть ли данные дальше. При движении назад строки приходят в обратном
+     * порядке и переворачиваются здесь.
+     *
+     * @param fetched строки в порядке выборки, не более pageSize + 1
+     * @param cursor курсор запроса или null для первой страницы
+     * @param pageSize размер страницы
+     * @param totalElements общее количество элементов
+     * @param keyExtractor значения ключа сортировки элемента
+     * @return страница с курсорами соседних страниц
+     */
+    public static <T> CursorPageResponse<T> of(List<T> fetched, PageCursor cursor, int pageSize, long totalElements,
+                                               Function<T, List<String>> keyExtractor) {
+        boolean backward = cursor != null && cursor.isBackward();
+        boolean more = fetched.size() > pageSize;
+        List<T> content = new ArrayList<>(more ? fetched.subList(0, pageSize) : fetched);
+        if (backward) {
+            Collections.reverse(content);
+        }
+        if (content.isEmpty()) {
+            return new CursorPageResponse<>(content, pageSize, totalElements, null, null);
+        }
+
+        // Назад идем только со страницы, которая была дальше, поэтому следующая страница есть всегда
+        boolean hasNext = backward || more;
+        boolean hasPrevious = backward ? more : cursor != null;
+        String previous = hasPrevious ? PageCursor.before(keyExtractor.apply(content.get(0))).encode() : null;
+        String next = hasNext ? PageCursor.after(keyExtractor.apply(content.get(content.size() - 1))).encode() : null;
+        return new CursorPageResponse<>(content, pageSize, totalElements, previous, next);
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public long getTotalElements() {
+        return totalElements;
+    }
+
+    public int getTotalPages() {
+        return totalPages;
+    }
+
+    /**
+     * @return курсор предыдущей страницы или null, если это первая страница
+     */
+    public String getPreviousCursor() {
+        return previousCursor;
+    }
+
+    /**
+     * @return курсор следующей страницы или null, если это последняя страница
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean isFirst() {
+        return previousCursor == null;
+    }
+
+    public boolean isLast() {
+        return nextCursor == null;
+    }
+
+    /**
+     * @return true: навигация по этой странице идет по курсорам
+     */
+    public boolean isCursorBased() {
+        return true;
+    }
+}
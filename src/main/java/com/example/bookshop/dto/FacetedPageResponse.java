@@ -0,0 +1,25 @@
+package com.example.bookshop.dto;
+
+import com.example.bookshop.search.FacetCounts;
+
+import java.util.List;
+
+/**
+ * Страница отфильтрованного каталога вместе со счетчиками по признакам
+ * @param <T> тип данных в коллекции
+ */
+public class FacetedPageResponse<T> extends PageResponse<T> {
+    private final FacetCounts facets;
+
+    public FacetedPageResponse(List<T> content, int pageNumber, int pageSize, long totalElements, FacetCounts facets) {
+        super(content, pageNumber, pageSize, totalElements);
+        this.facets = facets;
+    }
+
+    /**
+     * @return счетчики по признакам или null, если индекс каталога еще загружается
+     */
+    public FacetCounts getFacets() {
+        return facets;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.bookshop.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Курсор постраничной навигации по ключу сортировки (keyset pagination).
+ * <p>
+ * Курсор хранит значения ключа сортировки крайней строки страницы и направление:
+ * вперед — строки после ключа, назад — строки перед ним. Для клиента курсор
+ * непрозрачен: он передается в URL как строка Base64.
+ */
+public final class PageCursor {
+
+    private static final char SEPARATOR = '\u001F';
+    private static final String FORWARD = "a";
+    private static final String BACKWARD = "b";
+
+    private final boolean backward;
+    private final List<String> keys;
+
+    private PageCursor(boolean backward, List<String> keys) {
+        this.backward = backward;
+        this.keys = Collections.unmodifiableList(keys);
+    }
+
+    /**
+     * @param keys значения ключа сортировки последней строки страницы
+     * @return курсор на строки после указанного ключа
+     */
+    public static PageCursor after(List<String> keys) {
+        return new PageCursor(false, keys);
+    }
+
+    /**
+     * @param keys значения ключа сортировки первой строки страницы
+     * @return курсор на строки перед указанным ключом
+     */
+    public static PageCursor before(List<String> keys) {
+        return new PageCursor(true, keys);
+    }
+
+    /**
+     * Разбирает курсор, полученный от клиента
+     *
+     * @param value строка курсора
+     * @param keyCount ожидаемое количество значений ключа
+     * @return курсор или null, если строка пустая или не является курсором с таким ключом
+     */
+    public static PageCursor decode(String value, int keyCount) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(value.trim()), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        String[] parts = decoded.split(String.valueOf(SEPARATOR), -1);
+        if (parts.length != keyCount + 1 || !(FORWARD.equals(parts[0]) || BACKWARD.equals(parts[0]))) {
+            return null;
+        }
+        return new PageCursor(BACKWARD.equals(parts[0]), Arrays.asList(parts).subList(1, parts.length));
+    }
+
+    /**
+     * @return строка курсора для передачи в URL
+     */
+    public String encode() {
+        StringBuilder value = new StringBuilder(backward ? BACKWARD : FORWARD);
+        for (String key : keys) {
+            value.append(SEPARATOR).append(key);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return true, если курсор указывает на строки перед ключом
+     */
+    public boolean isBackward() {
+        return backward;
+    }
+
+    /**
+     * @param index номер значения в ключе сортировки
+     * @return значение ключа
+     */
+    public String getKey(int index) {
+        return keys.get(index);
+    }
+
+    /**
+     * @param index номер значения в ключе сортировки
+     * @return значение ключа как число
+     * @throws NumberFormatException если значение не является числом
+     */
+    public long getLongKey(int index) {
+        return Long.parseLong(keys.get(index));
+    }
+}
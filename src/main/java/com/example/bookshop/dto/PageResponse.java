@@ -52,4 +52,11 @@ public class PageResponse<T> {
     public boolean isFirst() {
         return isFirst;
     }
+
+    /**
+     * @return false: навигация по этой странице идет по номерам страниц
+     */
+    public boolean isCursorBased() {
+        return false;
+    }
 }
@@ -0,0 +1,22 @@
+package com.example.bookshop.event;
+
+/**
+ * Событие изменения или удаления автора. Затрагивает все книги автора,
+ * поэтому подписчики сами определяют, какие книги перечитать.
+ */
+public class AuthorChangedEvent {
+    private final long authorId;
+
+    public AuthorChangedEvent(long authorId) {
+        this.authorId = authorId;
+    }
+
+    public long getAuthorId() {
+        return authorId;
+    }
+
+    @Override
+    public String toString() {
+        return "AuthorChangedEvent{authorId=" + authorId + '}';
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.bookshop.event;
+
+/**
+ * Событие изменения книги: создание, обновление, удаление или изменение
+ * связей с авторами и жанрами. Публикуется сервисным слоем; подписчики
+ * перечитывают книгу по id, а если ее больше нет — считают удаленной.
+ */
+public class BookChangedEvent {
+    private final long bookId;
+
+    public BookChangedEvent(long bookId) {
+        this.bookId = bookId;
+    }
+
+    public long getBookId() {
+        return bookId;
+    }
+
+    @Override
+    public String toString() {
+        return "BookChangedEvent{bookId=" + bookId + '}';
+    }
+}
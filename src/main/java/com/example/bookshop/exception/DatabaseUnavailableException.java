@@ -0,0 +1,30 @@
+package com.example.bookshop.exception;
+
+import java.sql.SQLTransientConnectionException;
+
+/**
+ * Исключение, выбрасываемое пулом соединений, когда база данных считается
+ * недоступной и запросы соединений отклоняются без ожидания
+ */
+public class DatabaseUnavailableException extends SQLTransientConnectionException {
+
+    private final long retryAfterMillis;
+
+    /**
+     * Создает новое исключение
+     *
+     * @param message сообщение об ошибке
+     * @param retryAfterMillis через сколько миллисекунд имеет смысл повторить запрос
+     */
+    public DatabaseUnavailableException(String message, long retryAfterMillis) {
+        super(message, "08001");
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * @return через сколько миллисекунд имеет смысл повторить запрос
+     */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
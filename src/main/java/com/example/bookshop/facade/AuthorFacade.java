@@ -1,5 +1,6 @@
 package com.example.bookshop.facade;
 
+import com.example.bookshop.dto.CursorPageResponse;
 import com.example.bookshop.dto.PageResponse;
 import com.example.bookshop.model.Author;
 import com.example.bookshop.service.AuthorService;
@@ -28,6 +29,11 @@ public class AuthorFacade {
     }
 
 
+    public CursorPageResponse<Author> getAllAuthors(String cursor, int pageSize) {
+        return authorService.getAllAuthors(cursor, pageSize);
+    }
+
+
     public Author getAuthorById(long id) {
         return authorService.getAuthorById(id);
     }
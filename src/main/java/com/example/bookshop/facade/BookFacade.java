@@ -1,19 +1,58 @@
 package com.example.bookshop.facade;
 
+import com.example.bookshop.dto.BookFilter;
+import com.example.bookshop.dto.FacetedPageResponse;
+import com.example.bookshop.dto.PageResponse;
 import com.example.bookshop.model.Book;
+import com.example.bookshop.search.BookFacetIndex;
+import com.example.bookshop.search.BookSearchIndex;
+import com.example.bookshop.search.FacetResult;
+import com.example.bookshop.search.SearchResult;
 import com.example.bookshop.service.BookService;
 import org.springframework.stereotype.Component;
 
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
+import java.util.List;
 
 @Component
 public class BookFacade {
 
     private final BookService bookService;
+    private final BookSearchIndex searchIndex;
+    private final BookFacetIndex facetIndex;
 
-    public BookFacade(BookService bookService) {
+    public BookFacade(BookService bookService, BookSearchIndex searchIndex, BookFacetIndex facetIndex) {
         this.bookService = bookService;
+        this.searchIndex = searchIndex;
+        this.facetIndex = facetIndex;
+    }
+
+    /**
+     * Поиск книг по каталогу. Пока поисковый индекс строится, поиск
+     * выполняется по названию запросом к базе.
+     */
+    public PageResponse<Book> searchBooks(String query, int page, int size) {
+        if (!searchIndex.isReady()) {
+            return bookService.searchBooksByTitle(query, page, size);
+        }
+        SearchResult result = searchIndex.search(query, page * size, size);
+        List<Book> books = bookService.getBooksByIds(result.getBookIds());
+        return new PageResponse<>(books, page, size, result.getTotal());
+    }
+
+    /**
+     * Просмотр каталога с фильтрами по признакам и счетчиками. Пока индекс каталога
+     * загружается, книги фильтруются запросом к базе, а счетчики не показываются.
+     */
+    public FacetedPageResponse<Book> browseBooks(BookFilter filter, int page, int size) {
+        if (!facetIndex.isReady()) {
+            PageResponse<Book> books = bookService.getBooksByFilter(filter, page, size);
+            return new FacetedPageResponse<>(books.getContent(), page, size, books.getTotalElements(), null);
+        }
+        FacetResult result = facetIndex.browse(filter, page * size, size);
+        List<Book> books = bookService.getBooksByIds(result.getBookIds());
+        return new FacetedPageResponse<>(books, page, size, result.getTotal(), result.getFacets());
     }
 
     public Book createBook(Book book) {
@@ -1,5 +1,7 @@
 package com.example.bookshop.facade;
 
+import com.example.bookshop.dto.CursorPageResponse;
+import com.example.bookshop.dto.PageResponse;
 import com.example.bookshop.model.Order;
 import com.example.bookshop.model.OrderEntry;
 import com.example.bookshop.model.OrderStatus;
@@ -47,10 +49,20 @@ public class OrderFacade {
      * Получить список заказов с пагинацией
      * @param pageNumber номер страницы (начиная с 0)
      * @param pageSize размер страницы
-     * @return список заказов на указанной странице
+     * @return страница заказов с общим количеством
      */
-    public List<Order> getOrdersPage(int pageNumber, int pageSize) {
-        return orderService.getAllOrders(pageNumber, pageSize);
+    public PageResponse<Order> getOrdersPage(int pageNumber, int pageSize) {
+        return orderService.getOrdersPage(pageNumber, pageSize);
+    }
+
+    /**
+     * Получить страницу заказов по курсору
+     * @param cursor курсор из предыдущего ответа или null для первой страницы
+     * @param pageSize размер страницы
+     * @return страница заказов с курсорами соседних страниц
+     */
+    public CursorPageResponse<Order> getOrdersPage(String cursor, int pageSize) {
+        return orderService.getAllOrders(cursor, pageSize);
     }
 
     /**
@@ -182,14 +194,10 @@ public class OrderFacade {
         Order updatedOrder = orderService.updateOrder(order);
         long orderId = updatedOrder.getId();
 
-        // Удаляем существующие позиции
-        orderEntryService.deleteOrderEntriesByOrderId(orderId);
-
-        // Сохраняем новые позиции
-        List<OrderEntry> entries = order.getEntries();
-        if (entries != null && !entries.isEmpty()) {
-            entries.forEach(entry -> entry.setOrderId(orderId));
-            List<OrderEntry> savedEntries = orderEntryService.createOrderEntries(entries);
+        // Приводим позиции к новому списку: пишутся только изменившиеся позиции
+        List<OrderEntry> entries = order.getEntries() != null ? order.getEntries() : List.of();
+        List<OrderEntry> savedEntries = orderEntryService.replaceOrderEntries(orderId, entries);
+        if (!savedEntries.isEmpty()) {
             updatedOrder.setEntries(savedEntries);
         }
 
@@ -211,38 +219,35 @@ public class OrderFacade {
 
     /**
      * Добавить книгу в заказ пользователя. Создает новый заказ, если актуального нет.
+     * Открытый заказ у пользователя один (уникальный индекс), повторное добавление книги
+     * увеличивает количество в ее позиции, а сумма заказа увеличивается в базе атомарно,
+     * поэтому параллельные добавления не создают лишних заказов и не теряют сумму.
      */
     @Transactional
     public Order addBookToUserOrder(long userId, long bookId, int quantity) {
-        List<Order> orders = orderService.getOrdersByUserId(userId);
-        Order order = orders.stream()
-                .filter(o -> o.getStatus() != OrderStatus.PAID && o.getStatus() != OrderStatus.DECLINED)
-                .findFirst()
-                .orElse(null);
-
         Book book = bookService.getBookById(bookId);
 
+        Order draft = new Order();
+        draft.setUserId(userId);
+        draft.setOrderDate(OffsetDateTime.now());
+        draft.setOrderCode("ORD-" + System.currentTimeMillis());
+        draft.setCurrency(book.getCurrency());
+        draft.setTotalPrice(java.math.BigDecimal.ZERO);
+        draft.setStatus(OrderStatus.NEW);
+        Order order = orderService.getOrCreateOpenOrder(draft);
+
         OrderEntry entry = new OrderEntry();
+        entry.setOrderId(order.getId());
         entry.setBookId(bookId);
         entry.setQuantity(quantity);
         entry.setUnitPrice(book.getPrice().doubleValue());
+        OrderEntry saved = orderEntryService.addToOrder(entry);
 
-        if (order == null) {
-            order = new Order();
-            order.setUserId(userId);
-            order.setOrderDate(OffsetDateTime.now());
-            order.setOrderCode("ORD-" + System.currentTimeMillis());
-            order.setCurrency(book.getCurrency());
-            order.setTotalPrice(book.getPrice().multiply(java.math.BigDecimal.valueOf(quantity)));
-            order.setEntries(java.util.List.of(entry));
-            return createOrderWithEntries(order);
-        } else {
-            entry.setOrderId(order.getId());
-            orderEntryService.createOrderEntry(entry);
-            order.setTotalPrice(order.getTotalPrice().add(book.getPrice().multiply(java.math.BigDecimal.valueOf(quantity))));
-            orderService.updateOrder(order);
-            return order;
-        }
+        // Цена уже лежащей в заказе книги не меняется, поэтому сумма считается по цене позиции
+        java.math.BigDecimal amount = java.math.BigDecimal.valueOf(saved.getUnitPrice())
+                .multiply(java.math.BigDecimal.valueOf(quantity));
+        order.setTotalPrice(orderService.addToTotalPrice(order.getId(), amount));
+        return order;
     }
 
     /**
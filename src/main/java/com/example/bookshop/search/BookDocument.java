@@ -0,0 +1,76 @@
+package com.example.bookshop.search;
+
+import com.example.bookshop.model.Author;
+import com.example.bookshop.model.Book;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Книга в поисковом индексе: взвешенные частоты терминов по всем полям.
+ * Строится вне блокировки индекса, поэтому при загрузке каталога
+ * разбор текста выполняется параллельно.
+ */
+final class BookDocument {
+
+    private static final float TITLE_WEIGHT = 3.0f;
+    private static final float ISBN_WEIGHT = 3.0f;
+    private static final float AUTHOR_WEIGHT = 2.0f;
+    private static final float GENRE_WEIGHT = 1.5f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+
+    private final long bookId;
+    private final Map<String, Float> termFrequencies;
+    private final float length;
+
+    private BookDocument(long bookId, Map<String, Float> termFrequencies, float length) {
+        this.bookId = bookId;
+        this.termFrequencies = termFrequencies;
+        this.length = length;
+    }
+
+    static BookDocument of(Book book) {
+        Map<String, Float> frequencies = new HashMap<>();
+        addField(frequencies, book.getTitle(), TITLE_WEIGHT);
+        addField(frequencies, book.getDescription(), DESCRIPTION_WEIGHT);
+        if (book.getIsbn() != null) {
+            frequencies.merge(book.getIsbn(), ISBN_WEIGHT, Float::sum);
+        }
+
+        if (book.getAuthors() != null) {
+            for (Author author : book.getAuthors()) {
+                addField(frequencies, author.getFirstName(), AUTHOR_WEIGHT);
+                addField(frequencies, author.getLastName(), AUTHOR_WEIGHT);
+            }
+        }
+        if (book.getGenres() != null) {
+            for (String genre : book.getGenres()) {
+                addField(frequencies, genre, GENRE_WEIGHT);
+            }
+        }
+
+        float length = 0;
+        for (float frequency : frequencies.values()) {
+            length += frequency;
+        }
+        return new BookDocument(book.getId(), frequencies, length);
+    }
+
+    private static void addField(Map<String, Float> frequencies, String text, float weight) {
+        for (String term : TextAnalyzer.tokenize(text)) {
+            frequencies.merge(term, weight, Float::sum);
+        }
+    }
+
+    long getBookId() {
+        return bookId;
+    }
+
+    Map<String, Float> getTermFrequencies() {
+        return termFrequencies;
+    }
+
+    float getLength() {
+        return length;
+    }
+}
@@ -0,0 +1,330 @@
+package com.example.bookshop.search;
+
+import com.example.bookshop.dto.BookFilter;
+import com.example.bookshop.model.Book;
+import com.example.bookshop.model.Currency;
+import com.example.bookshop.model.Language;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Битовые индексы признаков каталога в памяти.
+ * <p>
+ * Для каждого значения признака (жанр, язык, валюта, год издания, диапазон цены)
+ * хранится {@link BitSet}, в котором номер бита — id книги. Фильтр по нескольким
+ * признакам — пересечение битовых множеств, а счетчики по признакам считаются
+ * пересечением с уже отфильтрованным множеством без запросов к базе.
+ * Идентификаторы книг плотные (BIGSERIAL), поэтому множество занимает около
+ * одного бита на книгу каталога и не требует отдельного сжатия.
+ * <p>
+ * Для фильтра по цене книги разложены по точным ценам в упорядоченном словаре,
+ * поэтому диапазон цен — объединение множеств цен из этого диапазона. Диапазоны
+ * цены для счетчиков ведутся отдельно для каждой валюты: цены в разных валютах
+ * несравнимы, поэтому счетчики по ценам показываются, только когда выбрана одна валюта.
+ * <p>
+ * Индекс наполняет и обновляет {@link CatalogIndexer}.
+ */
+@Component
+public class BookFacetIndex implements CatalogIndex {
+    private static final Logger log = LoggerFactory.getLogger(BookFacetIndex.class);
+
+    /** Верхние границы диапазонов цены для счетчиков; последний диапазон открыт сверху */
+    private static final BigDecimal[] PRICE_BOUNDS = {
+            new BigDecimal("10"), new BigDecimal("25"), new BigDecimal("50"), new BigDecimal("100")
+    };
+    private static final String[] PRICE_LABELS = {"0-10", "10-25", "25-50", "50-100", "100+"};
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final BitSet all = new BitSet();
+    /** Ключ — название жанра в нижнем регистре */
+    private final Map<String, BitSet> genres = new TreeMap<>();
+    private final Map<String, String> genreNames = new HashMap<>();
+    private final Map<Language, BitSet> languages = new EnumMap<>(Language.class);
+    private final Map<Currency, BitSet> currencies = new EnumMap<>(Currency.class);
+    private final NavigableMap<Integer, BitSet> years = new TreeMap<>();
+    private final NavigableMap<BigDecimal, BitSet> prices = new TreeMap<>();
+    private final Map<Currency, BitSet[]> priceRanges = new EnumMap<>(Currency.class);
+    /** Проиндексированные значения признаков каждой книги, нужны для удаления */
+    private final Map<Integer, Entry> entries = new HashMap<>();
+
+    private volatile boolean ready;
+
+    /**
+     * @return true, если каталог загружен и индекс может обслуживать запросы
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public void markReady() {
+        ready = true;
+    }
+
+    @Override
+    public void index(List<Book> loaded) {
+        lock.writeLock().lock();
+        try {
+            for (Book book : loaded) {
+                if (book.getId() > Integer.MAX_VALUE) {
+                    log.warn("Книга с id {} не помещается в битовый индекс и не будет учтена в фильтрах", book.getId());
+                    continue;
+                }
+                int bit = (int) book.getId();
+                remove(bit);
+                add(bit, book);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Collection<Long> bookIds) {
+        lock.writeLock().lock();
+        try {
+            for (Long bookId : bookIds) {
+                if (bookId <= Integer.MAX_VALUE) {
+                    remove(bookId.intValue());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Фильтрует каталог и считает книги по значениям признаков
+     *
+     * @param filter условия фильтрации
+     * @param offset сколько книг пропустить
+     * @param limit максимальное количество книг страницы
+     * @return id книг страницы, от новых к старым, общее количество и счетчики
+     */
+    public FacetResult browse(BookFilter filter, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            BitSet genreFilter = filter.getGenres().isEmpty() ? null : union(filter.getGenres().stream()
+                    .map(genre -> genres.get(genre.toLowerCase(Locale.ROOT))).toList());
+            BitSet languageFilter = filter.getLanguages().isEmpty() ? null
+                    : union(filter.getLanguages().stream().map(languages::get).toList());
+            BitSet currencyFilter = filter.getCurrencies().isEmpty() ? null
+                    : union(filter.getCurrencies().stream().map(currencies::get).toList());
+            BitSet yearFilter = filter.hasYearRange() ? yearFilter(filter) : null;
+            BitSet priceFilter = filter.hasPriceRange() ? priceFilter(filter) : null;
+
+            BitSet matches = intersect(genreFilter, languageFilter, currencyFilter, yearFilter, priceFilter);
+
+            FacetCounts facets = new FacetCounts();
+            // Пересечения для счетчиков считаются в одном множестве, без копии на каждое значение
+            BitSet scratch = new BitSet(all.length());
+            BitSet withoutGenre = intersect(null, languageFilter, currencyFilter, yearFilter, priceFilter);
+            genres.forEach((key, bits) ->
+                    putCount(facets.getGenres(), genreNames.get(key), withoutGenre, bits, scratch));
+            BitSet withoutLanguage = intersect(genreFilter, null, currencyFilter, yearFilter, priceFilter);
+            languages.forEach((language, bits) ->
+                    putCount(facets.getLanguages(), language.name(), withoutLanguage, bits, scratch));
+            BitSet withoutCurrency = intersect(genreFilter, languageFilter, null, yearFilter, priceFilter);
+            currencies.forEach((currency, bits) ->
+                    putCount(facets.getCurrencies(), currency.name(), withoutCurrency, bits, scratch));
+            BitSet withoutYear = intersect(genreFilter, languageFilter, currencyFilter, null, priceFilter);
+            years.descendingMap().forEach((year, bits) ->
+                    putCount(facets.getYears(), year, withoutYear, bits, scratch));
+            BitSet[] currencyPriceRanges = filter.getCurrencies().size() == 1
+                    ? priceRanges.get(filter.getCurrencies().get(0)) : null;
+            if (currencyPriceRanges != null) {
+                BitSet withoutPrice = intersect(genreFilter, languageFilter, currencyFilter, yearFilter, null);
+                for (int i = 0; i < currencyPriceRanges.length; i++) {
+                    putCount(facets.getPriceRanges(), PRICE_LABELS[i], withoutPrice, currencyPriceRanges[i], scratch);
+                }
+            }
+
+            List<Long> page = new ArrayList<>(limit);
+            int skipped = 0;
+            for (int bit = matches.length() - 1; bit >= 0 && page.size() < limit; bit = matches.previousSetBit(bit - 1)) {
+                if (skipped < offset) {
+                    skipped++;
+                } else {
+                    page.add((long) bit);
+                }
+            }
+            return new FacetResult(page, matches.cardinality(), facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private BitSet yearFilter(BookFilter filter) {
+        int from = filter.getYearFrom() != null ? filter.getYearFrom() : Integer.MIN_VALUE;
+        int to = filter.getYearTo() != null ? filter.getYearTo() : Integer.MAX_VALUE;
+        if (from > to) {
+            return new BitSet();
+        }
+        return union(years.subMap(from, true, to, true).values());
+    }
+
+    /**
+     * Книги, цена которых попадает в диапазон фильтра (границы включаются)
+     */
+    private BitSet priceFilter(BookFilter filter) {
+        NavigableMap<BigDecimal, BitSet> matching = prices;
+        if (filter.getMinPrice() != null) {
+            matching = matching.tailMap(filter.getMinPrice(), true);
+        }
+        if (filter.getMaxPrice() != null) {
+            matching = matching.headMap(filter.getMaxPrice(), true);
+        }
+        return union(matching.values());
+    }
+
+    private static BitSet union(Collection<BitSet> sets) {
+        BitSet result = new BitSet();
+        for (BitSet set : sets) {
+            if (set != null) {
+                result.or(set);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Пересечение всех книг с заданными фильтрами; null означает отсутствие фильтра
+     */
+    private BitSet intersect(BitSet... filters) {
+        BitSet result = (BitSet) all.clone();
+        for (BitSet filter : filters) {
+            if (filter != null) {
+                result.and(filter);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Считает книги значения признака среди {@code base}. Во временное множество сначала
+     * копируется множество значения: оно обычно меньше, и копирование не выходит за его длину.
+     */
+    private static <K> void putCount(Map<K, Long> counts, K key, BitSet base, BitSet values, BitSet scratch) {
+        scratch.clear();
+        scratch.or(values);
+        scratch.and(base);
+        counts.put(key, (long) scratch.cardinality());
+    }
+
+    /**
+     * Вызывается под блокировкой записи
+     */
+    private void add(int bit, Book book) {
+        Entry entry = new Entry(
+                book.getGenres() != null ? book.getGenres().stream().map(g -> g.toLowerCase(Locale.ROOT)).distinct().toList()
+                        : List.of(),
+                book.getLanguage(),
+                book.getCurrency(),
+                book.getPublishedAt() != null ? book.getPublishedAt().getYear() : null,
+                book.getPrice());
+        all.set(bit);
+        if (book.getGenres() != null) {
+            for (String genre : book.getGenres()) {
+                genreNames.putIfAbsent(genre.toLowerCase(Locale.ROOT), genre);
+            }
+        }
+        for (String genre : entry.genres()) {
+            genres.computeIfAbsent(genre, k -> new BitSet()).set(bit);
+        }
+        if (entry.language() != null) {
+            languages.computeIfAbsent(entry.language(), k -> new BitSet()).set(bit);
+        }
+        if (entry.currency() != null) {
+            currencies.computeIfAbsent(entry.currency(), k -> new BitSet()).set(bit);
+        }
+        if (entry.year() != null) {
+            years.computeIfAbsent(entry.year(), k -> new BitSet()).set(bit);
+        }
+        if (entry.price() != null) {
+            prices.computeIfAbsent(entry.price(), k -> new BitSet()).set(bit);
+            if (entry.currency() != null) {
+                priceRanges.computeIfAbsent(entry.currency(), k -> newPriceRanges())[priceRange(entry.price())].set(bit);
+            }
+        }
+        entries.put(bit, entry);
+    }
+
+    /**
+     * Вызывается под блокировкой записи
+     */
+    private void remove(int bit) {
+        Entry entry = entries.remove(bit);
+        if (entry == null) {
+            return;
+        }
+        all.clear(bit);
+        for (String genre : entry.genres()) {
+            BitSet bits = genres.get(genre);
+            bits.clear(bit);
+            if (bits.isEmpty()) {
+                genres.remove(genre);
+                genreNames.remove(genre);
+            }
+        }
+        if (entry.language() != null) {
+            languages.get(entry.language()).clear(bit);
+        }
+        if (entry.currency() != null) {
+            currencies.get(entry.currency()).clear(bit);
+        }
+        if (entry.year() != null) {
+            BitSet bits = years.get(entry.year());
+            bits.clear(bit);
+            if (bits.isEmpty()) {
+                years.remove(entry.year());
+            }
+        }
+        if (entry.price() != null) {
+            BitSet bits = prices.get(entry.price());
+            bits.clear(bit);
+            if (bits.isEmpty()) {
+                prices.remove(entry.price());
+            }
+            if (entry.currency() != null) {
+                priceRanges.get(entry.currency())[priceRange(entry.price())].clear(bit);
+            }
+        }
+    }
+
+    private static BitSet[] newPriceRanges() {
+        BitSet[] ranges = new BitSet[PRICE_LABELS.length];
+        for (int i = 0; i < ranges.length; i++) {
+            ranges[i] = new BitSet();
+        }
+        return ranges;
+    }
+
+    private static int priceRange(BigDecimal price) {
+        for (int i = 0; i < PRICE_BOUNDS.length; i++) {
+            if (price.compareTo(PRICE_BOUNDS[i]) < 0) {
+                return i;
+            }
+        }
+        return PRICE_BOUNDS.length;
+    }
+
+    /**
+     * Значения признаков книги; описание, авторы и прочие поля в индексе не хранятся
+     */
+    private record Entry(List<String> genres, Language language, Currency currency, Integer year, BigDecimal price) {
+    }
+}
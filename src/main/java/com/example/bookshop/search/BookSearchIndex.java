@@ -0,0 +1,288 @@
+package com.example.bookshop.search;
+
+import com.example.bookshop.model.Book;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Инвертированный индекс каталога книг в памяти.
+ * <p>
+ * Индексируются название, описание, ISBN, имена авторов и жанры. Запрос разбивается
+ * на термины, и книга попадает в результат, только если совпал каждый термин запроса:
+ * точно, по префиксу (для подсказок при наборе) или с опечаткой, если ни точных,
+ * ни префиксных совпадений нет. Результаты ранжируются по BM25 с учетом веса поля.
+ * <p>
+ * Индекс наполняет и обновляет {@link CatalogIndexer}. До окончания загрузки каталога
+ * {@link #isReady()} возвращает false, и поиск должен выполняться запросом к базе.
+ */
+@Component
+public class BookSearchIndex implements CatalogIndex {
+
+    /** Параметры BM25 */
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    /** Понижающие коэффициенты для неточных совпадений */
+    private static final double PREFIX_BOOST = 0.7;
+    private static final double ONE_TYPO_BOOST = 0.5;
+    private static final double TWO_TYPOS_BOOST = 0.3;
+
+    /** Сколько терминов словаря максимум подставляется вместо одного префикса */
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MIN_FUZZY_LENGTH = 4;
+    private static final int TWO_TYPOS_LENGTH = 8;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    /** Термин -> (id книги -> взвешенная частота); сортировка нужна для поиска по префиксу */
+    private final NavigableMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    private final Map<Long, BookDocument> documents = new HashMap<>();
+    private double totalLength;
+
+    private volatile boolean ready;
+
+    /**
+     * @return true, если индекс построен и может обслуживать поиск
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * @return количество проиндексированных книг
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return количество терминов в словаре индекса
+     */
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void index(List<Book> books) {
+        // Разбор текста выполняется вне блокировки, параллельно в потоках загрузки
+        List<BookDocument> parsed = new ArrayList<>(books.size());
+        for (Book book : books) {
+            parsed.add(BookDocument.of(book));
+        }
+        lock.writeLock().lock();
+        try {
+            for (BookDocument document : parsed) {
+                add(document);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Collection<Long> bookIds) {
+        lock.writeLock().lock();
+        try {
+            for (Long bookId : bookIds) {
+                remove(bookId.longValue());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void markReady() {
+        ready = true;
+    }
+
+    /**
+     * Ищет книги по запросу
+     *
+     * @param query строка запроса
+     * @param offset сколько результатов пропустить
+     * @param limit максимальное количество результатов
+     * @return id книг страницы в порядке убывания релевантности и общее количество найденных
+     */
+    public SearchResult search(String query, int offset, int limit) {
+        List<String> terms = TextAnalyzer.tokenize(query);
+        String isbn = TextAnalyzer.isbn(query);
+        if (isbn != null) {
+            terms = List.of(isbn);
+        }
+        if (terms.isEmpty()) {
+            return SearchResult.empty();
+        }
+
+        Map<Long, Double> scores = null;
+        lock.readLock().lock();
+        try {
+            for (String term : new HashSet<>(terms)) {
+                Map<Long, Double> termScores = scoreTerm(term);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    scores.keySet().retainAll(termScores.keySet());
+                    scores.replaceAll((bookId, score) -> score + termScores.get(bookId));
+                }
+                if (scores.isEmpty()) {
+                    return SearchResult.empty();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Map.Entry<Long, Double>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Map.Entry.<Long, Double>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey()));
+        List<Long> page = new ArrayList<>(Math.max(0, Math.min(limit, ranked.size() - offset)));
+        for (int i = offset; i < ranked.size() && i < offset + limit; i++) {
+            page.add(ranked.get(i).getKey());
+        }
+        return new SearchResult(page, ranked.size());
+    }
+
+    /**
+     * Оценивает книги по одному термину запроса. Книга, совпавшая с термином
+     * несколькими способами (точно и по префиксу), получает лучшую из оценок.
+     * Вызывается под блокировкой чтения.
+     */
+    private Map<Long, Double> scoreTerm(String term) {
+        Map<String, Double> expansions = new HashMap<>();
+        if (postings.containsKey(term)) {
+            expansions.put(term, 1.0);
+        }
+        if (term.length() >= MIN_PREFIX_LENGTH) {
+            for (String candidate : postings.subMap(term, false, term + Character.MAX_VALUE, false).keySet()) {
+                if (expansions.size() >= MAX_PREFIX_EXPANSIONS) {
+                    break;
+                }
+                expansions.put(candidate, PREFIX_BOOST);
+            }
+        }
+        if (expansions.isEmpty() && term.length() >= MIN_FUZZY_LENGTH) {
+            addTypoExpansions(term, expansions);
+        }
+
+        Map<Long, Double> termScores = new HashMap<>();
+        double averageLength = documents.isEmpty() ? 1 : totalLength / documents.size();
+        for (Map.Entry<String, Double> expansion : expansions.entrySet()) {
+            Map<Long, Float> posting = postings.get(expansion.getKey());
+            double idf = Math.log(1 + (documents.size() - posting.size() + 0.5) / (posting.size() + 0.5));
+            for (Map.Entry<Long, Float> entry : posting.entrySet()) {
+                double frequency = entry.getValue();
+                double length = documents.get(entry.getKey()).getLength();
+                double score = expansion.getValue() * idf * frequency * (K1 + 1)
+                        / (frequency + K1 * (1 - B + B * length / averageLength));
+                termScores.merge(entry.getKey(), score, Math::max);
+            }
+        }
+        return termScores;
+    }
+
+    /**
+     * Подбирает термины словаря, отличающиеся от термина запроса на одну правку
+     * (на две — для длинных слов). Перебираются только термины с той же первой
+     * буквой: опечатка в первой букве встречается редко, а перебор всего словаря дорог.
+     */
+    private void addTypoExpansions(String term, Map<String, Double> expansions) {
+        int maxEdits = term.length() >= TWO_TYPOS_LENGTH ? 2 : 1;
+        String first = term.substring(0, 1);
+        for (String candidate : postings.subMap(first, true, first + Character.MAX_VALUE, false).keySet()) {
+            if (Math.abs(candidate.length() - term.length()) > maxEdits) {
+                continue;
+            }
+            int edits = editDistance(term, candidate, maxEdits);
+            if (edits <= maxEdits) {
+                expansions.put(candidate, edits == 1 ? ONE_TYPO_BOOST : TWO_TYPOS_BOOST);
+            }
+        }
+    }
+
+    /**
+     * Расстояние Дамерау–Левенштейна (вставка, удаление, замена, перестановка соседних
+     * символов) с досрочным выходом, когда расстояние заведомо больше {@code max}
+     *
+     * @return расстояние или {@code max + 1}, если оно больше {@code max}
+     */
+    static int editDistance(String a, String b, int max) {
+        int[] previousPrevious = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previousPrevious[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = previousPrevious;
+            previousPrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[b.length()], max + 1);
+    }
+
+    /**
+     * Вызывается под блокировкой записи
+     */
+    private void add(BookDocument document) {
+        remove(document.getBookId());
+        for (Map.Entry<String, Float> entry : document.getTermFrequencies().entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), term -> new HashMap<>())
+                    .put(document.getBookId(), entry.getValue());
+        }
+        documents.put(document.getBookId(), document);
+        totalLength += document.getLength();
+    }
+
+    /**
+     * Вызывается под блокировкой записи
+     */
+    private void remove(long bookId) {
+        BookDocument document = documents.remove(bookId);
+        if (document == null) {
+            return;
+        }
+        for (String term : document.getTermFrequencies().keySet()) {
+            Map<Long, Float> posting = postings.get(term);
+            posting.remove(bookId);
+            if (posting.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+        totalLength -= document.getLength();
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.bookshop.search;
+
+import com.example.bookshop.model.Book;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Индекс каталога в памяти, который наполняет и обновляет {@link CatalogIndexer}
+ */
+interface CatalogIndex {
+
+    /**
+     * Добавляет книги в индекс, заменяя уже проиндексированные версии.
+     * Может вызываться одновременно из нескольких потоков загрузки.
+     *
+     * @param books книги с заполненными авторами и жанрами
+     */
+    void index(List<Book> books);
+
+    /**
+     * Удаляет книги из индекса
+     *
+     * @param bookIds идентификаторы удаленных книг
+     */
+    void remove(Collection<Long> bookIds);
+
+    /**
+     * Отмечает, что весь каталог загружен и индекс может обслуживать запросы
+     */
+    void markReady();
+}
@@ -0,0 +1,281 @@
+package com.example.bookshop.search;
+
+import com.example.bookshop.dao.BookDao;
+import com.example.bookshop.event.AuthorChangedEvent;
+import com.example.bookshop.event.BookChangedEvent;
+import com.example.bookshop.model.Author;
+import com.example.bookshop.model.Book;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Наполняет и обновляет индексы каталога в памяти ({@link CatalogIndex}).
+ * <p>
+ * После запуска контекста каталог загружается в фоновом потоке: диапазоны id
+ * читаются параллельно в несколько потоков, и каждый диапазон сразу передается
+ * во все индексы. Если база недоступна, загрузка повторяется с растущей паузой.
+ * <p>
+ * Изменения книг и авторов применяются после фиксации транзакции по событиям
+ * {@link BookChangedEvent} и {@link AuthorChangedEvent}. Измененные книги
+ * перечитываются из базы одним потоком обновления, а не в потоке, фиксирующем
+ * транзакцию: чтение и запись в индексы идут строго по очереди, поэтому
+ * последней в индекс попадает версия, прочитанная после последней фиксации,
+ * и устаревшая версия не может перезаписать новую.
+ */
+@Component
+public class CatalogIndexer implements ApplicationListener<ContextRefreshedEvent> {
+    private static final Logger log = LoggerFactory.getLogger(CatalogIndexer.class);
+
+    private static final int LOAD_CHUNK_SIZE = 1000;
+    private static final int LOAD_THREADS = 4;
+    private static final long RETRY_INITIAL_DELAY_MILLIS = 1_000;
+    private static final long RETRY_MAX_DELAY_MILLIS = 60_000;
+
+    private final BookDao bookDao;
+    private final BookSearchIndex searchIndex;
+    private final List<CatalogIndex> indexes;
+    /** Единственный поток, который перечитывает книги и пишет их в индексы после загрузки */
+    private final Executor updater;
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+
+    /** Книги каждого автора, чтобы знать, что перечитать при изменении автора */
+    private final Map<Long, Set<Long>> booksByAuthor = new HashMap<>();
+    private final Map<Long, List<Long>> authorsByBook = new HashMap<>();
+
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final Set<Long> changedDuringBuild = ConcurrentHashMap.newKeySet();
+    private volatile boolean building;
+    private volatile Thread builder;
+
+    @Autowired
+    public CatalogIndexer(BookDao bookDao, BookSearchIndex searchIndex, BookFacetIndex facetIndex) {
+        this(bookDao, searchIndex, facetIndex, Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "catalog-index-updater");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    CatalogIndexer(BookDao bookDao, BookSearchIndex searchIndex, BookFacetIndex facetIndex, Executor updater) {
+        this.bookDao = bookDao;
+        this.searchIndex = searchIndex;
+        this.indexes = List.of(searchIndex, facetIndex);
+        this.updater = updater;
+    }
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+        Thread thread = new Thread(this::build, "catalog-index-builder");
+        thread.setDaemon(true);
+        builder = thread;
+        thread.start();
+    }
+
+    @PreDestroy
+    public void close() {
+        Thread thread = builder;
+        if (thread != null) {
+            thread.interrupt();
+        }
+        if (updater instanceof ExecutorService service) {
+            service.shutdownNow();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        scheduleReindex(List.of(event.getBookId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAuthorChanged(AuthorChangedEvent event) {
+        List<Long> bookIds;
+        synchronized (booksByAuthor) {
+            bookIds = new ArrayList<>(booksByAuthor.getOrDefault(event.getAuthorId(), Set.of()));
+        }
+        scheduleReindex(bookIds);
+    }
+
+    /**
+     * Ставит книги в очередь на перечитывание потоком обновления. Книги,
+     * изменившиеся несколько раз до их перечитывания, читаются один раз.
+     */
+    private void scheduleReindex(Collection<Long> bookIds) {
+        if (bookIds.isEmpty()) {
+            return;
+        }
+        pending.addAll(bookIds);
+        updater.execute(this::reindexPending);
+    }
+
+    private void reindexPending() {
+        // Книги снимаются с очереди до чтения, поэтому изменение, пришедшее во время
+        // чтения, ставит новую задачу и будет прочитано после этой фиксации
+        List<Long> bookIds = new ArrayList<>(pending);
+        pending.removeAll(bookIds);
+        reindex(bookIds);
+    }
+
+    /**
+     * Перечитывает книги из базы и заменяет их во всех индексах; книги,
+     * которых больше нет, удаляются из индексов. Вызывается только потоком обновления.
+     */
+    void reindex(Collection<Long> bookIds) {
+        if (bookIds.isEmpty()) {
+            return;
+        }
+        if (building) {
+            // Диапазон, прочитанный до изменения, мог попасть в индекс позже него
+            changedDuringBuild.addAll(bookIds);
+        }
+        List<Book> books;
+        try {
+            books = bookDao.findByIds(bookIds);
+        } catch (DataAccessException e) {
+            log.warn("Не удалось обновить индексы каталога для книг {}: {}", bookIds, e.getMessage());
+            return;
+        }
+
+        Set<Long> removed = new LinkedHashSet<>(bookIds);
+        for (Book book : books) {
+            removed.remove(book.getId());
+        }
+        for (CatalogIndex index : indexes) {
+            index.remove(removed);
+            index.index(books);
+        }
+        trackAuthors(removed, books);
+        log.debug("Индексы каталога обновлены для книг {}", bookIds);
+    }
+
+    private void build() {
+        building = true;
+        long start = System.nanoTime();
+        long retryDelayMillis = RETRY_INITIAL_DELAY_MILLIS;
+        try {
+            while (true) {
+                try {
+                    load();
+                    break;
+                } catch (ExecutionException | DataAccessException e) {
+                    Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+                    log.error("Не удалось загрузить индексы каталога, повтор через {} мс; "
+                            + "пока поиск и фильтры выполняются запросами к базе", retryDelayMillis, cause);
+                }
+                Thread.sleep(retryDelayMillis);
+                retryDelayMillis = Math.min(retryDelayMillis * 2, RETRY_MAX_DELAY_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.info("Загрузка индексов каталога прервана");
+            return;
+        } finally {
+            building = false;
+        }
+
+        // Книги, изменившиеся во время загрузки, перечитываются в общей очереди обновлений,
+        // и индексы объявляются готовыми только после них
+        List<Long> changed = new ArrayList<>(changedDuringBuild);
+        changedDuringBuild.removeAll(changed);
+        scheduleReindex(changed);
+        updater.execute(() -> {
+            for (CatalogIndex index : indexes) {
+                index.markReady();
+            }
+            log.info("Индексы каталога загружены за {} мс: книг {}, терминов {}",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), searchIndex.size(), searchIndex.termCount());
+        });
+    }
+
+    /**
+     * Читает каталог диапазонами id в несколько потоков и передает каждый диапазон во все индексы
+     */
+    private void load() throws InterruptedException, ExecutionException {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService loaders = Executors.newFixedThreadPool(LOAD_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "catalog-index-loader-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            long maxId = bookDao.findMaxId();
+            List<Future<?>> chunks = new ArrayList<>();
+            for (long fromId = 1; fromId <= maxId; fromId += LOAD_CHUNK_SIZE) {
+                long chunkStart = fromId;
+                chunks.add(loaders.submit(() -> {
+                    List<Book> books = bookDao.findByIdRange(chunkStart, chunkStart + LOAD_CHUNK_SIZE);
+                    for (CatalogIndex index : indexes) {
+                        index.index(books);
+                    }
+                    trackAuthors(List.of(), books);
+                }));
+            }
+            for (Future<?> chunk : chunks) {
+                chunk.get();
+            }
+        } finally {
+            loaders.shutdownNow();
+        }
+    }
+
+    private void trackAuthors(Collection<Long> removed, List<Book> books) {
+        synchronized (booksByAuthor) {
+            for (Long bookId : removed) {
+                untrackAuthors(bookId);
+            }
+            for (Book book : books) {
+                untrackAuthors(book.getId());
+                List<Long> authorIds = new ArrayList<>();
+                if (book.getAuthors() != null) {
+                    for (Author author : book.getAuthors()) {
+                        authorIds.add(author.getId());
+                        booksByAuthor.computeIfAbsent(author.getId(), id -> new HashSet<>()).add(book.getId());
+                    }
+                }
+                authorsByBook.put(book.getId(), authorIds);
+            }
+        }
+    }
+
+    private void untrackAuthors(long bookId) {
+        List<Long> authorIds = authorsByBook.remove(bookId);
+        if (authorIds == null) {
+            return;
+        }
+        for (Long authorId : authorIds) {
+            Set<Long> books = booksByAuthor.get(authorId);
+            books.remove(bookId);
+            if (books.isEmpty()) {
+                booksByAuthor.remove(authorId);
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.bookshop.search;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Количество книг по значениям каждого признака каталога.
+ * Счетчики признака учитывают все выбранные фильтры, кроме фильтра по самому
+ * этому признаку, поэтому показывают, сколько книг прибавится при выборе значения.
+ * Значения без подходящих книг тоже присутствуют, с нулевым счетчиком.
+ */
+public class FacetCounts {
+    private final Map<String, Long> genres = new LinkedHashMap<>();
+    private final Map<String, Long> languages = new LinkedHashMap<>();
+    private final Map<String, Long> currencies = new LinkedHashMap<>();
+    private final Map<String, Long> priceRanges = new LinkedHashMap<>();
+    private final Map<Integer, Long> years = new LinkedHashMap<>();
+
+    /**
+     * @return жанр -> количество книг
+     */
+    public Map<String, Long> getGenres() {
+        return genres;
+    }
+
+    /**
+     * @return код языка -> количество книг
+     */
+    public Map<String, Long> getLanguages() {
+        return languages;
+    }
+
+    /**
+     * @return код валюты -> количество книг
+     */
+    public Map<String, Long> getCurrencies() {
+        return currencies;
+    }
+
+    /**
+     * @return диапазон цены (например, "10-25" или "100+") -> количество книг;
+     * пусто, если в фильтре не выбрана ровно одна валюта
+     */
+    public Map<String, Long> getPriceRanges() {
+        return priceRanges;
+    }
+
+    /**
+     * @return год издания -> количество книг, от новых к старым
+     */
+    public Map<Integer, Long> getYears() {
+        return years;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.bookshop.search;
+
+import java.util.List;
+
+/**
+ * Страница отфильтрованного каталога: id книг страницы, общее количество
+ * подходящих книг и счетчики по признакам
+ */
+public class FacetResult {
+    private final List<Long> bookIds;
+    private final long total;
+    private final FacetCounts facets;
+
+    public FacetResult(List<Long> bookIds, long total, FacetCounts facets) {
+        this.bookIds = bookIds;
+        this.total = total;
+        this.facets = facets;
+    }
+
+    public List<Long> getBookIds() {
+        return bookIds;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public FacetCounts getFacets() {
+        return facets;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.bookshop.search;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Страница результатов поиска: идентификаторы книг в порядке релевантности
+ * и общее количество найденных книг. Сами книги загружаются вызывающим
+ * только для идентификаторов страницы.
+ */
+public class SearchResult {
+    private static final SearchResult EMPTY = new SearchResult(Collections.emptyList(), 0);
+
+    private final List<Long> bookIds;
+    private final long total;
+
+    public SearchResult(List<Long> bookIds, long total) {
+        this.bookIds = bookIds;
+        this.total = total;
+    }
+
+    public static SearchResult empty() {
+        return EMPTY;
+    }
+
+    public List<Long> getBookIds() {
+        return bookIds;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.bookshop.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Разбиение текста на термины для поискового индекса.
+ * Термин — последовательность букв и цифр в нижнем регистре, "ё" приводится к "е".
+ * Однобуквенные слова (предлоги, союзы) отбрасываются, числа сохраняются.
+ */
+final class TextAnalyzer {
+
+    private TextAnalyzer() {
+    }
+
+    /**
+     * @param text произвольный текст, может быть null
+     * @return термины в порядке появления, с повторами
+     */
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return terms;
+        }
+        String normalized = text.toLowerCase(Locale.ROOT).replace('ё', 'е');
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean wordChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                addTerm(terms, normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Возвращает ISBN из строки запроса, если она им является:
+     * 10 или 13 цифр, возможно разделенных дефисами или пробелами
+     *
+     * @return ISBN из одних цифр или null
+     */
+    static String isbn(String text) {
+        if (text == null) {
+            return null;
+        }
+        String digits = text.replaceAll("[\\s-]", "");
+        if ((digits.length() == 10 || digits.length() == 13) && digits.chars().allMatch(Character::isDigit)) {
+            return digits;
+        }
+        return null;
+    }
+
+    private static void addTerm(List<String> terms, String term) {
+        if (term.length() > 1 || Character.isDigit(term.charAt(0))) {
+            terms.add(term);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.bookshop.service;
 
+import com.example.bookshop.dto.CursorPageResponse;
 import com.example.bookshop.dto.PageResponse;
 import com.example.bookshop.model.Author;
 
@@ -26,6 +27,15 @@ public interface AuthorService {
      */
     PageResponse<Author> getAllAuthors(int pageNumber, int pageSize);
 
+    /**
+     * Получить авторов постранично по курсору, без OFFSET
+     *
+     * @param cursor курсор из предыдущего ответа или null для первой страницы
+     * @param pageSize размер страницы
+     * @return объект CursorPageResponse с курсорами соседних страниц
+     */
+    CursorPageResponse<Author> getAllAuthors(String cursor, int pageSize);
+
     /**
      * Получить автора по ID
      * 
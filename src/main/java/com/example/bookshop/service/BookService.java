@@ -1,6 +1,8 @@
 package com.example.bookshop.service;
 
 
+import com.example.bookshop.dto.BookFilter;
+import com.example.bookshop.dto.CursorPageResponse;
 import com.example.bookshop.dto.PageResponse;
 import com.example.bookshop.model.Book;
 import org.springframework.stereotype.Service;
@@ -29,6 +31,15 @@ public interface BookService {
      */
     PageResponse<Book> getAllBooks(int pageNumber, int pageSize);
 
+    /**
+     * Получить книги постранично по курсору, без OFFSET
+     *
+     * @param cursor курсор из предыдущего ответа или null для первой страницы
+     * @param pageSize размер страницы
+     * @return объект CursorPageResponse с курсорами соседних страниц
+     */
+    CursorPageResponse<Book> getAllBooks(String cursor, int pageSize);
+
     /**
      * Получить книгу по ID
      *
@@ -99,6 +110,14 @@ public interface BookService {
      */
     List<Book> getTopSellingBooks(int limit);
 
+    /**
+     * Получить книги по списку идентификаторов
+     *
+     * @param ids идентификаторы книг
+     * @return найденные книги в порядке переданных идентификаторов
+     */
+    List<Book> getBooksByIds(List<Long> ids);
+
     /**
      * Связать книгу с автором
      *
@@ -152,4 +171,14 @@ public interface BookService {
      */
     PageResponse<Book> getBooksByGenre(String genreName, int page, int size);
 
+    /**
+     * Получить книги, подходящие под фильтр, с пагинацией
+     *
+     * @param filter условия фильтрации
+     * @param page   номер страницы
+     * @param size   размер страницы
+     * @return страницу с книгами от новых к старым
+     */
+    PageResponse<Book> getBooksByFilter(BookFilter filter, int page, int size);
+
 }
@@ -38,6 +38,21 @@ public interface OrderEntryService {
      */
     List<OrderEntry> createOrderEntries(List<OrderEntry> orderEntries);
 
+    /**
+     * Добавить книгу в заказ; если книга уже есть в заказе, увеличивается количество
+     * @param orderEntry заказ, книга, количество и цена
+     * @return позиция заказа после добавления
+     */
+    OrderEntry addToOrder(OrderEntry orderEntry);
+
+    /**
+     * Заменить позиции заказа, записав в базу только изменившиеся позиции
+     * @param orderId идентификатор заказа
+     * @param orderEntries новые позиции заказа
+     * @return позиции заказа с присвоенными ID
+     */
+    List<OrderEntry> replaceOrderEntries(long orderId, List<OrderEntry> orderEntries);
+
     /**
      * Обновить существующую позицию заказа
      * @param orderEntry обновленные данные позиции заказа
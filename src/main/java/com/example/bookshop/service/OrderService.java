@@ -1,5 +1,7 @@
 package com.example.bookshop.service;
 
+import com.example.bookshop.dto.CursorPageResponse;
+import com.example.bookshop.dto.PageResponse;
 import com.example.bookshop.model.Order;
 
 import java.time.OffsetDateTime;
@@ -25,6 +27,22 @@ public interface OrderService {
      */
     List<Order> getAllOrders(int pageNumber, int pageSize);
 
+    /**
+     * Получить страницу заказов вместе с общим количеством за один запрос
+     * @param pageNumber номер страницы (начиная с 0)
+     * @param pageSize размер страницы
+     * @return объект PageResponse, содержащий данные пагинации и список заказов
+     */
+    PageResponse<Order> getOrdersPage(int pageNumber, int pageSize);
+
+    /**
+     * Получить заказы постранично по курсору, без OFFSET
+     * @param cursor курсор из предыдущего ответа или null для первой страницы
+     * @param pageSize размер страницы
+     * @return объект CursorPageResponse с курсорами соседних страниц
+     */
+    CursorPageResponse<Order> getAllOrders(String cursor, int pageSize);
+
     /**
      * Получить общее количество заказов
      * @return количество заказов
@@ -76,6 +94,22 @@ public interface OrderService {
      */
     Order createOrder(Order order);
 
+    /**
+     * Получить открытый заказ пользователя или создать его. Если открытый заказ
+     * создается параллельным запросом, возвращается он, а второй заказ не создается.
+     * @param draft данные нового заказа на случай, если открытого заказа нет
+     * @return открытый заказ пользователя
+     */
+    Order getOrCreateOpenOrder(Order draft);
+
+    /**
+     * Увеличить сумму заказа
+     * @param orderId идентификатор заказа
+     * @param amount прибавляемая сумма
+     * @return новая сумма заказа
+     */
+    java.math.BigDecimal addToTotalPrice(long orderId, java.math.BigDecimal amount);
+
     /**
      * Обновить существующий заказ
      * @param order обновленные данные заказа
@@ -1,12 +1,18 @@
 package com.example.bookshop.service.impl;
 
 import com.example.bookshop.dao.AuthorDao;
+import com.example.bookshop.dao.PageResult;
+import com.example.bookshop.dto.CursorPageResponse;
+import com.example.bookshop.dto.PageCursor;
 import com.example.bookshop.dto.PageResponse;
+import com.example.bookshop.event.AuthorChangedEvent;
+import com.example.bookshop.event.BookChangedEvent;
 import com.example.bookshop.exception.ResourceNotFoundException;
 import com.example.bookshop.model.Author;
 import com.example.bookshop.service.AuthorService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,10 +26,15 @@ public class AuthorServiceImpl implements AuthorService {
 
     private static final Logger log = LoggerFactory.getLogger(AuthorServiceImpl.class);
 
+    private static final String ALL_AUTHORS_COUNT = "all";
+
     private final AuthorDao authorDao;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TotalCountCache countCache = new TotalCountCache();
 
-    public AuthorServiceImpl(AuthorDao authorDao) {
+    public AuthorServiceImpl(AuthorDao authorDao, ApplicationEventPublisher eventPublisher) {
         this.authorDao = authorDao;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -40,11 +51,37 @@ public class AuthorServiceImpl implements AuthorService {
     public PageResponse<Author> getAllAuthors(int pageNumber, int pageSize) {
         log.debug("Получение списка авторов с пагинацией: страница={}, размер={}", pageNumber, pageSize);
         List<Author> authors = authorDao.findAll(pageNumber, pageSize);
-        long totalAuthors = authorDao.countAll();
+        long totalAuthors = countAllAuthors();
         log.debug("Найдено {} авторов из {} на странице {}", authors.size(), totalAuthors, pageNumber);
         return new PageResponse<>(authors, pageNumber, pageSize, totalAuthors);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponse<Author> getAllAuthors(String cursor, int pageSize) {
+        log.debug("Получение списка авторов по курсору: размер={}", pageSize);
+        PageCursor pageCursor = PageCursor.decode(cursor, 3);
+        List<Author> authors;
+        try {
+            if (pageCursor == null) {
+                authors = authorDao.findAll(0, pageSize + 1);
+            } else if (pageCursor.isBackward()) {
+                authors = authorDao.findAllBefore(pageCursor.getKey(0), pageCursor.getKey(1),
+                        pageCursor.getLongKey(2), pageSize + 1);
+            } else {
+                authors = authorDao.findAllAfter(pageCursor.getKey(0), pageCursor.getKey(1),
+                        pageCursor.getLongKey(2), pageSize + 1);
+            }
+        } catch (NumberFormatException e) {
+            log.warn("Некорректный курсор страницы авторов: {}", cursor);
+            pageCursor = null;
+            authors = authorDao.findAll(0, pageSize + 1);
+        }
+        long totalAuthors = countAllAuthors();
+        return CursorPageResponse.of(authors, pageCursor, pageSize, totalAuthors,
+                author -> List.of(author.getLastName(), author.getFirstName(), String.valueOf(author.getId())));
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Author getAuthorById(long id) {
@@ -71,10 +108,19 @@ public class AuthorServiceImpl implements AuthorService {
     @Transactional(readOnly = true)
     public PageResponse<Author> searchAuthorsByName(String name, int pageNumber, int pageSize) {
         log.debug("Поиск авторов по имени: {} с пагинацией: страница={}, размер={}", name, pageNumber, pageSize);
-        List<Author> authors = authorDao.findByName(name, pageNumber, pageSize);
-        long totalAuthors = authorDao.countByName(name);
-        log.debug("Найдено {} авторов из {} по имени {} на странице {}", authors.size(), totalAuthors, name, pageNumber);
-        return new PageResponse<>(authors, pageNumber, pageSize, totalAuthors);
+        String countKey = "name:" + name.toLowerCase();
+        PageResult<Author> result = countCache.findPage(countKey,
+                total -> authorDao.findPageByName(name, pageNumber, pageSize, total));
+        log.debug("Найдено {} авторов из {} по имени {} на странице {}",
+                result.getContent().size(), result.getTotalElements(), name, pageNumber);
+        return new PageResponse<>(result.getContent(), pageNumber, pageSize, result.getTotalElements());
+    }
+
+    /**
+     * Возвращает общее количество авторов, по возможности из кэша
+     */
+    private long countAllAuthors() {
+        return countCache.count(ALL_AUTHORS_COUNT, authorDao::countAll);
     }
 
     @Override
@@ -91,6 +137,7 @@ public class AuthorServiceImpl implements AuthorService {
     public Author createAuthor(Author author) {
         log.info("Создание нового автора: {}", author);
         Author savedAuthor = authorDao.save(author);
+        countCache.invalidateAfterCommit();
         log.info("Автор успешно создан с id: {}", savedAuthor.getId());
         return savedAuthor;
     }
@@ -110,6 +157,8 @@ public class AuthorServiceImpl implements AuthorService {
 
         log.debug("Применение обновлений к автору: {}", existingAuthor);
         Author updatedAuthor = authorDao.update(existingAuthor);
+        countCache.invalidateAfterCommit();
+        eventPublisher.publishEvent(new AuthorChangedEvent(id));
         log.info("Автор с id: {} успешно обновлен", id);
         return updatedAuthor;
     }
@@ -125,6 +174,8 @@ public class AuthorServiceImpl implements AuthorService {
             log.error("Не удалось удалить автора с id: {}", id);
             throw new ResourceNotFoundException("Автор", "id", id);
         }
+        countCache.invalidateAfterCommit();
+        eventPublisher.publishEvent(new AuthorChangedEvent(id));
         log.info("Автор с id: {} успешно удален", id);
     }
 
@@ -136,6 +187,7 @@ public class AuthorServiceImpl implements AuthorService {
         getAuthorById(authorId);
 
         authorDao.addBookToAuthor(authorId, bookId);
+        eventPublisher.publishEvent(new BookChangedEvent(bookId));
         log.info("Книга с id: {} успешно добавлена к автору с id: {}", bookId, authorId);
     }
 
@@ -147,6 +199,7 @@ public class AuthorServiceImpl implements AuthorService {
         getAuthorById(authorId);
 
         authorDao.removeBookFromAuthor(authorId, bookId);
+        eventPublisher.publishEvent(new BookChangedEvent(bookId));
         log.info("Книга с id: {} успешно удалена от автора с id: {}", bookId, authorId);
     }
 }
@@ -1,13 +1,19 @@
 package com.example.bookshop.service.impl;
 
 import com.example.bookshop.dao.BookDao;
+import com.example.bookshop.dao.PageResult;
+import com.example.bookshop.dto.BookFilter;
+import com.example.bookshop.dto.CursorPageResponse;
+import com.example.bookshop.dto.PageCursor;
 import com.example.bookshop.dto.PageResponse;
+import com.example.bookshop.event.BookChangedEvent;
 import com.example.bookshop.exception.ResourceNotFoundException;
 import com.example.bookshop.model.Author;
 import com.example.bookshop.model.Book;
 import com.example.bookshop.service.BookService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -26,20 +32,37 @@ public class BookServiceImpl implements BookService {
 
     private static final Logger log = LoggerFactory.getLogger(BookServiceImpl.class);
 
+    private static final String ALL_BOOKS_COUNT = "all";
+
     private final BookDao bookDao;
+    private final ApplicationEventPublisher eventPublisher;
+    final TotalCountCache countCache = new TotalCountCache();
 
-    public BookServiceImpl(BookDao bookDao) {
+    public BookServiceImpl(BookDao bookDao, ApplicationEventPublisher eventPublisher) {
         this.bookDao = bookDao;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
+    @Transactional
     public boolean addGenreToBook(long bookId, long genreId) {
-        return bookDao.addGenreToBook(bookId, genreId);
+        boolean added = bookDao.addGenreToBook(bookId, genreId);
+        if (added) {
+            countCache.invalidateAfterCommit();
+            eventPublisher.publishEvent(new BookChangedEvent(bookId));
+        }
+        return added;
     }
 
     @Override
+    @Transactional
     public boolean removeGenreFromBook(long bookId, long genreId) {
-        return bookDao.removeGenreFromBook(bookId, genreId);
+        boolean removed = bookDao.removeGenreFromBook(bookId, genreId);
+        if (removed) {
+            countCache.invalidateAfterCommit();
+            eventPublisher.publishEvent(new BookChangedEvent(bookId));
+        }
+        return removed;
     }
 
     @Override
@@ -68,10 +91,34 @@ public class BookServiceImpl implements BookService {
     @Transactional(readOnly = true)
     public PageResponse<Book> getAllBooks(int pageNumber, int pageSize) {
         log.debug("Получение списка книг с пагинацией: страница={}, размер={}", pageNumber, pageSize);
-        List<Book> books = bookDao.findAll(pageNumber, pageSize);
-        long totalBooks = bookDao.countAll();
-        log.debug("Найдено {} книг из {} на странице {}", books.size(), totalBooks, pageNumber);
-        return new PageResponse<>(books, pageNumber, pageSize, totalBooks);
+        PageResult<Book> result = countCache.findPage(ALL_BOOKS_COUNT,
+                total -> bookDao.findPage(pageNumber, pageSize, total));
+        log.debug("Найдено {} книг из {} на странице {}", result.getContent().size(), result.getTotalElements(), pageNumber);
+        return new PageResponse<>(result.getContent(), pageNumber, pageSize, result.getTotalElements());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponse<Book> getAllBooks(String cursor, int pageSize) {
+        log.debug("Получение списка книг по курсору: размер={}", pageSize);
+        PageCursor pageCursor = PageCursor.decode(cursor, 2);
+        List<Book> books;
+        try {
+            if (pageCursor == null) {
+                books = bookDao.findAll(0, pageSize + 1);
+            } else if (pageCursor.isBackward()) {
+                books = bookDao.findAllBefore(pageCursor.getKey(0), pageCursor.getLongKey(1), pageSize + 1);
+            } else {
+                books = bookDao.findAllAfter(pageCursor.getKey(0), pageCursor.getLongKey(1), pageSize + 1);
+            }
+        } catch (NumberFormatException e) {
+            log.warn("Некорректный курсор страницы книг: {}", cursor);
+            pageCursor = null;
+            books = bookDao.findAll(0, pageSize + 1);
+        }
+        long totalBooks = countCache.count(ALL_BOOKS_COUNT, bookDao::countAll);
+        return CursorPageResponse.of(books, pageCursor, pageSize, totalBooks,
+                book -> List.of(book.getTitle(), String.valueOf(book.getId())));
     }
 
     @Override
@@ -100,10 +147,12 @@ public class BookServiceImpl implements BookService {
     @Transactional(readOnly = true)
     public PageResponse<Book> searchBooksByTitle(String title, int pageNumber, int pageSize) {
         log.debug("Поиск книг по названию: {} с пагинацией: страница={}, размер={}", title, pageNumber, pageSize);
-        List<Book> books = bookDao.findByTitle(title, pageNumber, pageSize);
-        long totalBooks = bookDao.countByTitle(title);
-        log.debug("Найдено {} книг из {} по названию {} на странице {}", books.size(), totalBooks, title, pageNumber);
-        return new PageResponse<>(books, pageNumber, pageSize, totalBooks);
+        String countKey = "title:" + title.toLowerCase();
+        PageResult<Book> result = countCache.findPage(countKey,
+                total -> bookDao.findPageByTitle(title, pageNumber, pageSize, total));
+        log.debug("Найдено {} книг из {} по названию {} на странице {}",
+                result.getContent().size(), result.getTotalElements(), title, pageNumber);
+        return new PageResponse<>(result.getContent(), pageNumber, pageSize, result.getTotalElements());
     }
 
     @Override
@@ -130,6 +179,8 @@ public class BookServiceImpl implements BookService {
         }
 
         Book savedBook = bookDao.save(book);
+        countCache.invalidateAfterCommit();
+        eventPublisher.publishEvent(new BookChangedEvent(savedBook.getId()));
         log.info("Книга успешно создана с id: {}", savedBook.getId());
         return savedBook;
     }
@@ -138,6 +189,8 @@ public class BookServiceImpl implements BookService {
     @Transactional
     public Book updateBook(Book book) {
         Book updatedBook = bookDao.update(book);
+        countCache.invalidateAfterCommit();
+        eventPublisher.publishEvent(new BookChangedEvent(book.getId()));
         log.info("Книга с id: {} успешно обновлена", book.getId());
         return updatedBook;
     }
@@ -153,9 +206,18 @@ public class BookServiceImpl implements BookService {
             log.error("Не удалось удалить книгу с id: {}", id);
             throw new ResourceNotFoundException("Книга", "id", id);
         }
+        countCache.invalidateAfterCommit();
+        eventPublisher.publishEvent(new BookChangedEvent(id));
         log.info("Книга с id: {} успешно удалена", id);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<Book> getBooksByIds(List<Long> ids) {
+        log.debug("Получение книг по списку id: {}", ids);
+        return bookDao.findByIds(ids);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<Book> getTopSellingBooks(int limit) {
@@ -173,6 +235,7 @@ public class BookServiceImpl implements BookService {
         getBookById(bookId);
 
         bookDao.addAuthorToBook(bookId, authorId);
+        eventPublisher.publishEvent(new BookChangedEvent(bookId));
         log.info("Автор с id: {} успешно добавлен к книге с id: {}", authorId, bookId);
     }
 
@@ -184,6 +247,7 @@ public class BookServiceImpl implements BookService {
         getBookById(bookId);
 
         bookDao.removeAuthorFromBook(bookId, authorId);
+        eventPublisher.publishEvent(new BookChangedEvent(bookId));
         log.info("Автор с id: {} успешно удален из книги с id: {}", authorId, bookId);
     }
 
@@ -200,12 +264,20 @@ public class BookServiceImpl implements BookService {
     @Transactional(readOnly = true)
     public PageResponse<Book> getBooksByGenre(String genreName, int page, int size) {
         log.debug("Получение книг жанра {}: страница={}, размер={}", genreName, page, size);
-        List<Book> books = bookDao.findByGenre(genreName, page, size);
-        long total = bookDao.countByGenre(genreName);
-        log.debug("Найдено {} книг жанра {} из {}", books.size(), genreName, total);
-        return new PageResponse<>(books, page, size, total);
+        String countKey = "genre:" + genreName.toLowerCase();
+        PageResult<Book> result = countCache.findPage(countKey,
+                total -> bookDao.findPageByGenre(genreName, page, size, total));
+        log.debug("Найдено {} книг жанра {} из {}", result.getContent().size(), genreName, result.getTotalElements());
+        return new PageResponse<>(result.getContent(), page, size, result.getTotalElements());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public PageResponse<Book> getBooksByFilter(BookFilter filter, int page, int size) {
+        log.debug("Фильтрация книг {}: страница={}, размер={}", filter, page, size);
+        PageResult<Book> result = bookDao.findPageByFilter(filter, page, size);
+        return new PageResponse<>(result.getContent(), page, size, result.getTotalElements());
+    }
 
     private List<Long> getAuthorIdsFromAuthors(List<Author> authors) {
         if (authors == null) {
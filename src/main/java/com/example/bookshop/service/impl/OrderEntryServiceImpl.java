@@ -50,6 +50,20 @@ public class OrderEntryServiceImpl implements OrderEntryService {
         return orderEntryDao.saveAll(orderEntries);
     }
 
+    @Override
+    @Transactional
+    public OrderEntry addToOrder(OrderEntry orderEntry) {
+        log.info("Добавление книги {} в заказ {}", orderEntry.getBookId(), orderEntry.getOrderId());
+        return orderEntryDao.addQuantity(orderEntry);
+    }
+
+    @Override
+    @Transactional
+    public List<OrderEntry> replaceOrderEntries(long orderId, List<OrderEntry> orderEntries) {
+        log.info("Замена позиций заказа с id: {}", orderId);
+        return orderEntryDao.replaceByOrderId(orderId, orderEntries);
+    }
+
     @Override
     @Transactional
     public OrderEntry updateOrderEntry(OrderEntry orderEntry) {
@@ -1,7 +1,12 @@
 package com.example.bookshop.service.impl;
 
+import com.example.bookshop.config.PoolPartition;
 import com.example.bookshop.dao.OrderDao;
 import com.example.bookshop.dao.OrderEntryDao;
+import com.example.bookshop.dao.PageResult;
+import com.example.bookshop.dto.CursorPageResponse;
+import com.example.bookshop.dto.PageCursor;
+import com.example.bookshop.dto.PageResponse;
 import com.example.bookshop.model.Order;
 import com.example.bookshop.model.OrderStatus;
 import com.example.bookshop.service.OrderService;
@@ -10,6 +15,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.DateTimeException;
 import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -21,8 +28,11 @@ import java.util.Optional;
 public class OrderServiceImpl implements OrderService {
 
     private static final Logger log = LoggerFactory.getLogger(OrderServiceImpl.class);
+    private static final String ALL_ORDERS_COUNT = "all";
+
     private final OrderDao orderDao;
     private final OrderEntryDao orderEntryDao;
+    private final TotalCountCache countCache = new TotalCountCache();
 
     public OrderServiceImpl(OrderDao orderDao, OrderEntryDao orderEntryDao) {
         this.orderDao = orderDao;
@@ -41,10 +51,43 @@ public class OrderServiceImpl implements OrderService {
         return orderDao.findAll(pageNumber, pageSize);
     }
 
+    @Override
+    public PageResponse<Order> getOrdersPage(int pageNumber, int pageSize) {
+        log.debug("Получение страницы заказов с общим количеством: страница {}, размер {}", pageNumber, pageSize);
+        PageResult<Order> result = countCache.findPage(ALL_ORDERS_COUNT,
+                total -> orderDao.findPage(pageNumber, pageSize, total));
+        return new PageResponse<>(result.getContent(), pageNumber, pageSize, result.getTotalElements());
+    }
+
+    @Override
+    public CursorPageResponse<Order> getAllOrders(String cursor, int pageSize) {
+        log.debug("Получение страницы заказов по курсору: размер {}", pageSize);
+        PageCursor pageCursor = PageCursor.decode(cursor, 2);
+        List<Order> orders;
+        try {
+            if (pageCursor == null) {
+                orders = orderDao.findAll(0, pageSize + 1);
+            } else if (pageCursor.isBackward()) {
+                orders = orderDao.findAllBefore(OffsetDateTime.parse(pageCursor.getKey(0)),
+                        pageCursor.getLongKey(1), pageSize + 1);
+            } else {
+                orders = orderDao.findAllAfter(OffsetDateTime.parse(pageCursor.getKey(0)),
+                        pageCursor.getLongKey(1), pageSize + 1);
+            }
+        } catch (NumberFormatException | DateTimeException e) {
+            log.warn("Некорректный курсор страницы заказов: {}", cursor);
+            pageCursor = null;
+            orders = orderDao.findAll(0, pageSize + 1);
+        }
+        long totalOrders = countAllOrders();
+        return CursorPageResponse.of(orders, pageCursor, pageSize, totalOrders,
+                order -> List.of(order.getOrderDate().toString(), String.valueOf(order.getId())));
+    }
+
     @Override
     public long countAllOrders() {
         log.debug("Подсчет общего количества заказов");
-        return orderDao.countAll();
+        return countCache.count(ALL_ORDERS_COUNT, orderDao::countAll);
     }
 
     @Override
@@ -72,6 +115,7 @@ public class OrderServiceImpl implements OrderService {
     }
 
     @Override
+    @PoolPartition("reporting")
     public List<Order> getOrdersByDateRange(OffsetDateTime startDate, OffsetDateTime endDate) {
         log.debug("Поиск заказов в диапазоне дат от {} до {}", startDate, endDate);
         return orderDao.findByDateRange(startDate, endDate);
@@ -84,7 +128,42 @@ public class OrderServiceImpl implements OrderService {
         if (order.getStatus() == null) {
             order.setStatus(OrderStatus.NEW);
         }
-        return orderDao.save(order);
+        countCache.invalidateAfterCommit();
+        if (order.getStatus() != OrderStatus.NEW && order.getStatus() != OrderStatus.IN_PROCESS) {
+            return orderDao.save(order);
+        }
+        // Открытый заказ у пользователя один (уникальный индекс), второй отклоняется понятной ошибкой
+        return orderDao.saveIfNoOpenOrder(order)
+                .orElseThrow(() -> new IllegalArgumentException(
+                        "У пользователя с id " + order.getUserId() + " уже есть открытый заказ"));
+    }
+
+    @Override
+    @Transactional
+    public Order getOrCreateOpenOrder(Order draft) {
+        Optional<Order> open = orderDao.findOpenByUserId(draft.getUserId());
+        if (open.isPresent()) {
+            return open.get();
+        }
+        if (draft.getStatus() == null) {
+            draft.setStatus(OrderStatus.NEW);
+        }
+        Optional<Order> created = orderDao.saveIfNoOpenOrder(draft);
+        if (created.isPresent()) {
+            countCache.invalidateAfterCommit();
+            return created.get();
+        }
+        // Открытый заказ успел создать параллельный запрос
+        return orderDao.findOpenByUserId(draft.getUserId())
+                .orElseThrow(() -> new IllegalStateException(
+                        "Не удалось получить открытый заказ пользователя с id: " + draft.getUserId()));
+    }
+
+    @Override
+    @Transactional
+    public BigDecimal addToTotalPrice(long orderId, BigDecimal amount) {
+        log.debug("Увеличение суммы заказа {} на {}", orderId, amount);
+        return orderDao.addToTotalPrice(orderId, amount);
     }
 
     @Override
@@ -100,6 +179,7 @@ public class OrderServiceImpl implements OrderService {
         log.info("Удаление заказа с id: {}", id);
         // Сначала удаляем все позиции заказа
         orderEntryDao.deleteByOrderId(id);
+        countCache.invalidateAfterCommit();
         // Затем удаляем сам заказ
         return orderDao.deleteById(id);
     }
@@ -0,0 +1,139 @@
+package com.example.bookshop.service.impl;
+
+import com.example.bookshop.dao.PageResult;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Кратковременный кэш общего количества строк для постраничных списков.
+ * <p>
+ * Пока количество в кэше, DAO выбирает только страницу, без {@code COUNT(*) OVER()}.
+ * Сервис сбрасывает кэш после фиксации изменений, а срок жизни ограничивает
+ * расхождение с изменениями, сделанными в обход сервиса или на другом узле.
+ * Срок отсчитывается от подсчета и не продлевается при чтении из кэша.
+ * <p>
+ * Количество, посчитанное до сброса, в кэш не попадает: каждый сброс начинает
+ * новое поколение, и запись из старого поколения отбрасывается.
+ */
+class TotalCountCache {
+
+    private static final long TTL_NANOS = TimeUnit.SECONDS.toNanos(30);
+    /** Поисковые запросы произвольны, поэтому размер кэша ограничен */
+    private static final int MAX_ENTRIES = 1_000;
+
+    private record Entry(long total, long expiresAt) {
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Выбирает страницу, передавая DAO количество из кэша, и кэширует количество,
+     * если DAO посчитало его заново
+     *
+     * @param key ключ списка
+     * @param query запрос страницы; аргумент — известное количество или null
+     * @return страница с общим количеством
+     */
+    <T> PageResult<T> findPage(String key, Function<Long, PageResult<T>> query) {
+        long countedIn = generation.get();
+        Long known = get(key);
+        PageResult<T> result = query.apply(known);
+        if (known == null) {
+            put(key, result.getTotalElements(), countedIn);
+        }
+        return result;
+    }
+
+    /**
+     * Возвращает количество из кэша или считает и кэширует его
+     *
+     * @param key ключ списка
+     * @param counter подсчет количества в базе
+     */
+    long count(String key, LongSupplier counter) {
+        long countedIn = generation.get();
+        Long known = get(key);
+        if (known != null) {
+            return known;
+        }
+        long total = counter.getAsLong();
+        put(key, total, countedIn);
+        return total;
+    }
+
+    /**
+     * @param key ключ списка, например {@code title:война}
+     * @return количество или null, если его нет в кэше или срок истек
+     */
+    Long get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAt() > 0) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.total();
+    }
+
+    /**
+     * @param countedIn поколение кэша на момент начала подсчета
+     */
+    void put(String key, long total, long countedIn) {
+        if (generation.get() != countedIn) {
+            return;
+        }
+        if (entries.size() >= MAX_ENTRIES) {
+            entries.clear();
+        }
+        Entry entry = new Entry(total, System.nanoTime() + TTL_NANOS);
+        entries.put(key, entry);
+        // Сброс мог пройти между проверкой поколения и записью
+        if (generation.get() != countedIn) {
+            entries.remove(key, entry);
+        }
+    }
+
+    /**
+     * @return момент истечения срока количества ({@link System#nanoTime()}) или null, если его нет в кэше
+     */
+    Long expiresAt(String key) {
+        Entry entry = entries.get(key);
+        return entry != null ? entry.expiresAt() : null;
+    }
+
+    /**
+     * Сбрасывает все количества после фиксации текущей транзакции, а вне транзакции — сразу.
+     * Сброс внутри транзакции не помогает: до фиксации параллельный запрос
+     * успеет снова закэшировать количество, не учитывающее изменение.
+     */
+    void invalidateAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidateAll();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidateAll();
+            }
+        });
+    }
+
+    /**
+     * Сбрасывает все количества
+     */
+    void invalidateAll() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+}
@@ -0,0 +1,15 @@
+-- =============================================================
+-- V6__add_keyset_pagination_indexes.sql
+-- Индексы для постраничной навигации по курсору (keyset pagination):
+-- каждый совпадает с порядком сортировки списка, поэтому страница
+-- читается с позиции курсора без пропуска предыдущих строк
+-- =============================================================
+
+-- Каталог книг: ORDER BY title, id
+CREATE INDEX IF NOT EXISTS idx_books_title_id ON books (title, id);
+
+-- Список авторов: ORDER BY last_name, first_name, id
+CREATE INDEX IF NOT EXISTS idx_authors_name_id ON authors (last_name, first_name, id);
+
+-- Список заказов: ORDER BY order_date DESC, id DESC
+CREATE INDEX IF NOT EXISTS idx_orders_date_id ON orders (order_date DESC, id DESC);
@@ -0,0 +1,29 @@
+-- =============================================================
+-- V7__add_search_indexes.sql
+-- Индексы для поиска книг и авторов: триграммные GIN-индексы
+-- обслуживают LIKE '%строка%' без последовательного чтения таблицы,
+-- полнотекстовый вектор книги ищет слова в названии и описании
+-- =============================================================
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Книги: подстрока названия
+CREATE INDEX IF NOT EXISTS idx_books_title_trgm ON books USING GIN (LOWER(title) gin_trgm_ops);
+
+-- Книги: полнотекстовый вектор, название весит больше описания.
+-- Конфигурация 'simple' — каталог содержит и русские, и английские названия
+ALTER TABLE books
+    ADD COLUMN IF NOT EXISTS search_vector TSVECTOR
+        GENERATED ALWAYS AS (
+            setweight(to_tsvector('simple', COALESCE(title, '')), 'A') ||
+            setweight(to_tsvector('simple', COALESCE(description, '')), 'B')
+        ) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_books_search_vector ON books USING GIN (search_vector);
+
+-- Авторы: полное имя в обоих порядках ("имя фамилия" и "фамилия имя")
+CREATE INDEX IF NOT EXISTS idx_authors_full_name_trgm
+    ON authors USING GIN (LOWER(first_name || ' ' || last_name) gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_authors_reversed_name_trgm
+    ON authors USING GIN (LOWER(last_name || ' ' || first_name) gin_trgm_ops);
@@ -0,0 +1,91 @@
+-- =============================================================
+-- V8__add_open_order_constraints.sql
+-- У пользователя не больше одного открытого заказа (корзины), а книга
+-- встречается в заказе одной позицией. Уникальные индексы позволяют
+-- добавлять книгу в корзину через INSERT ... ON CONFLICT без гонок
+-- между параллельными запросами. Перед созданием индексов дубликаты,
+-- накопившиеся до них, объединяются.
+-- =============================================================
+
+-- Открытые заказы пользователя объединяются в самый новый из них
+CREATE TEMPORARY TABLE open_order_merge ON COMMIT DROP AS
+SELECT id, keep_id
+FROM (SELECT id,
+             FIRST_VALUE(id) OVER (PARTITION BY user_id ORDER BY order_date DESC, id DESC) AS keep_id
+      FROM orders
+      WHERE status IN ('NEW', 'IN_PROCESS')) ranked
+WHERE id <> keep_id;
+
+UPDATE order_entry e
+SET order_id = m.keep_id
+FROM open_order_merge m
+WHERE e.order_id = m.id;
+
+DELETE
+FROM orders
+WHERE id IN (SELECT id FROM open_order_merge);
+
+-- Позиции одной книги в заказе объединяются в самую раннюю по цене самой поздней.
+-- В закрытых заказах цены повторяющихся позиций обязаны совпадать, иначе
+-- объединение изменит оплаченную сумму; такие заказы нужно разобрать вручную
+CREATE TEMPORARY TABLE order_entry_dup ON COMMIT DROP AS
+SELECT e.order_id,
+       e.book_id,
+       MIN(e.id)                                          AS keep_id,
+       SUM(e.quantity)                                    AS quantity,
+       (ARRAY_AGG(e.unit_price ORDER BY e.id DESC))[1]    AS unit_price,
+       COUNT(DISTINCT e.unit_price) > 1                   AS prices_differ,
+       o.status IN ('NEW', 'IN_PROCESS')                  AS is_open
+FROM order_entry e
+         JOIN orders o ON o.id = e.order_id
+GROUP BY e.order_id, e.book_id, o.status
+HAVING COUNT(*) > 1;
+
+DO
+$$
+    DECLARE
+        dup RECORD;
+    BEGIN
+        SELECT order_id, book_id INTO dup FROM order_entry_dup WHERE NOT is_open AND prices_differ LIMIT 1;
+        IF FOUND THEN
+            RAISE EXCEPTION 'Позиции книги % в закрытом заказе % имеют разные цены', dup.book_id, dup.order_id;
+        END IF;
+        SELECT order_id, book_id INTO dup FROM order_entry_dup WHERE quantity > 32767 LIMIT 1;
+        IF FOUND THEN
+            RAISE EXCEPTION 'Количество книги % в заказе % после объединения превышает 32767', dup.book_id, dup.order_id;
+        END IF;
+    END
+$$;
+
+UPDATE order_entry e
+SET quantity   = d.quantity,
+    unit_price = d.unit_price
+FROM order_entry_dup d
+WHERE e.id = d.keep_id;
+
+DELETE
+FROM order_entry e
+    USING order_entry_dup d
+WHERE e.order_id = d.order_id
+  AND e.book_id = d.book_id
+  AND e.id <> d.keep_id;
+
+-- Сумма открытых заказов, в которые перенесены или объединены позиции,
+-- пересчитывается по позициям. Суммы закрытых заказов не меняются:
+-- позиции с одной ценой объединяются без изменения суммы
+UPDATE orders o
+SET total_price = COALESCE((SELECT SUM(e.quantity * e.unit_price)
+                            FROM order_entry e
+                            WHERE e.order_id = o.id), 0)
+WHERE o.id IN (SELECT keep_id FROM open_order_merge
+               UNION
+               SELECT order_id FROM order_entry_dup WHERE is_open);
+
+-- Один открытый заказ на пользователя
+CREATE UNIQUE INDEX IF NOT EXISTS ux_orders_open_user ON orders (user_id)
+    WHERE status IN ('NEW', 'IN_PROCESS');
+
+-- Одна позиция на книгу в заказе. Индекс также покрывает поиск позиций
+-- по order_id, поэтому отдельный индекс по order_id больше не нужен
+CREATE UNIQUE INDEX IF NOT EXISTS ux_order_entry_order_book ON order_entry (order_id, book_id);
+DROP INDEX IF EXISTS idx_order_entry_order;
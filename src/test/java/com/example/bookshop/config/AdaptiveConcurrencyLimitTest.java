@@ -0,0 +1,88 @@
+package com.example.bookshop.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(2);
+
+    @Test
+    void tryAcquire_rejectsBeyondShareOfLimit() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(4, 1, 10, 1_000, 0.5);
+
+        assertEquals(0, limit.tryAcquire(0.5));
+        assertEquals(1, limit.tryAcquire(0.5));
+        assertEquals(-1, limit.tryAcquire(0.5));
+        // Полная доля лимита еще не исчерпана
+        assertEquals(2, limit.tryAcquire(1.0));
+        assertEquals(3, limit.getInFlight());
+    }
+
+    @Test
+    void release_slowRequestMultipliesLimitByBackoffRatio() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(8, 2, 10, 1_000, 0.5);
+
+        // Каждый следующий запрос начинается после завершения предыдущего
+        int inFlight = limit.tryAcquire(1.0);
+        limit.release(0, SLOW, inFlight, false);
+        assertEquals(4.0, limit.getLimit());
+
+        inFlight = limit.tryAcquire(1.0);
+        limit.release(SLOW, SLOW + FAST, inFlight, true);
+        assertEquals(2.0, limit.getLimit());
+
+        // Лимит не опускается ниже minLimit
+        inFlight = limit.tryAcquire(1.0);
+        limit.release(SLOW + FAST, 2 * SLOW + FAST, inFlight, false);
+        assertEquals(2.0, limit.getLimit());
+        assertEquals(0, limit.getInFlight());
+    }
+
+    @Test
+    void release_fastRequestGrowsLimitOnlyWhenUtilized() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(4, 1, 10, 1_000, 0.5);
+
+        // Занято меньше половины лимита: рост не нужен
+        limit.release(0, FAST, 0, false);
+        assertEquals(4.0, limit.getLimit());
+
+        limit.release(0, FAST, 2, false);
+        assertEquals(4.25, limit.getLimit());
+    }
+
+    @Test
+    void release_growthStopsAtMaxLimit() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 1, 3, 1_000, 0.5);
+
+        for (int i = 0; i < 100; i++) {
+            limit.release(0, FAST, 3, false);
+        }
+
+        assertEquals(3.0, limit.getLimit());
+    }
+
+    @Test
+    void release_burstOfSlowRequestsBacksOffOnce() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(8, 1, 10, 1_000, 0.5);
+        int[] inFlight = new int[4];
+        for (int i = 0; i < inFlight.length; i++) {
+            inFlight[i] = limit.tryAcquire(1.0);
+        }
+
+        // Все запросы допущены до снижения и медленны из-за одной и той же перегрузки
+        for (int i = 0; i < inFlight.length; i++) {
+            limit.release(0, SLOW + i * FAST, inFlight[i], false);
+        }
+        assertEquals(4.0, limit.getLimit());
+
+        // Запрос, допущенный уже по сниженному лимиту, снова снижает его
+        int next = limit.tryAcquire(1.0);
+        limit.release(SLOW + FAST, 2 * SLOW, next, false);
+        assertEquals(2.0, limit.getLimit());
+    }
+}
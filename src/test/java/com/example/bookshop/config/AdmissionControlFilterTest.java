@@ -0,0 +1,86 @@
+package com.example.bookshop.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.FilterConfig;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AdmissionControlFilterTest {
+
+    private AdmissionControlFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        FilterConfig config = mock(FilterConfig.class);
+        when(config.getInitParameter("initialLimit")).thenReturn("1");
+        when(config.getInitParameter("minLimit")).thenReturn("1");
+        filter = new AdmissionControlFilter();
+        filter.init(config);
+    }
+
+    private static HttpServletRequest request(String path) {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getRequestURI()).thenReturn(path);
+        when(request.getContextPath()).thenReturn("");
+        return request;
+    }
+
+    private static HttpServletResponse response() throws IOException {
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        when(response.getOutputStream()).thenReturn(mock(ServletOutputStream.class));
+        return response;
+    }
+
+    @Test
+    void classify_givesCheckoutAndAdminTheirOwnPriority() {
+        assertEquals(AdmissionControlFilter.Priority.CHECKOUT, AdmissionControlFilter.classify("/orders/buy"));
+        assertEquals(AdmissionControlFilter.Priority.CHECKOUT, AdmissionControlFilter.classify("/orders/42/pay"));
+        assertEquals(AdmissionControlFilter.Priority.ADMIN, AdmissionControlFilter.classify("/admin/books"));
+        assertEquals(AdmissionControlFilter.Priority.BROWSE, AdmissionControlFilter.classify("/books/42"));
+    }
+
+    @Test
+    void doFilter_rejectsRequestOverLimitWith503() throws Exception {
+        HttpServletResponse rejected = response();
+        FilterChain chain = (request, response) ->
+                // Пока первый запрос обрабатывается, лимит занят
+                filter.doFilter(request("/books"), rejected, mock(FilterChain.class));
+
+        filter.doFilter(request("/orders/buy"), response(), chain);
+
+        verify(rejected).setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        verify(rejected).setHeader("Retry-After", "1");
+    }
+
+    @Test
+    void doFilter_releasesPlaceAfterRequest() throws Exception {
+        FilterChain chain = mock(FilterChain.class);
+        HttpServletResponse response = response();
+
+        filter.doFilter(request("/books"), response, chain);
+        filter.doFilter(request("/books"), response, chain);
+
+        verify(chain, times(2)).doFilter(any(), any());
+        verify(response, never()).setStatus(anyInt());
+    }
+
+    @Test
+    void doFilter_doesNotLimitStaticResources() throws Exception {
+        FilterChain chain = (request, response) -> {
+            FilterChain inner = mock(FilterChain.class);
+            filter.doFilter(request("/css/main.css"), response(), inner);
+            verify(inner).doFilter(any(), any());
+        };
+
+        filter.doFilter(request("/books"), response(), chain);
+    }
+}
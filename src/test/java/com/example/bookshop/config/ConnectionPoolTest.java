@@ -0,0 +1,258 @@
+package com.example.bookshop.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.doThrow;
+
+class ConnectionPoolTest {
+
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() {
+        StubDriver.register();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (pool != null) {
+            pool.closeAllConnections();
+        }
+    }
+
+    private static ConnectionPoolSettings settings(int size) {
+        ConnectionPoolSettings settings = new ConnectionPoolSettings();
+        settings.setInitialSize(size);
+        settings.setMinIdle(size);
+        settings.setMaxIdle(size);
+        settings.setMaxTotal(size);
+        settings.setMaxWaitMillis(2_000);
+        return settings;
+    }
+
+    @Test
+    void closeRacingReclaim_neverLeaksOrEvictsTwice() throws Exception {
+        pool = new ConnectionPool(StubDriver.URL, "user", "password", settings(1));
+
+        for (int i = 0; i < 500; i++) {
+            Connection connection = pool.getConnection();
+            long evictedBefore = pool.getConnectionsEvicted();
+            CountDownLatch start = new CountDownLatch(1);
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+
+            Thread client = new Thread(() -> {
+                try {
+                    start.await();
+                    connection.close();
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            });
+            Thread reaper = new Thread(() -> {
+                try {
+                    start.await();
+                    pool.reclaimConnectionsHeldLongerThan(0);
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            });
+            client.start();
+            reaper.start();
+            start.countDown();
+            client.join();
+            reaper.join();
+
+            assertNull(failure.get());
+            assertEquals(0, pool.getUsedConnections(), "слот остался выданным после возврата");
+            assertTrue(pool.getConnectionsEvicted() - evictedBefore <= 1, "слот закрыт дважды");
+            assertTrue(pool.getPoolSize() <= 1);
+        }
+
+        // Пул остается рабочим: соединение выдается, а после возврата снова свободно
+        try (Connection connection = pool.getConnection()) {
+            assertFalse(connection.isClosed());
+        }
+        assertEquals(0, pool.getUsedConnections());
+    }
+
+    @Test
+    void reclaimAfterReturn_doesNotTouchNextBorrower() throws Exception {
+        pool = new ConnectionPool(StubDriver.URL, "user", "password", settings(1));
+
+        Connection first = pool.getConnection();
+        first.close();
+        Connection second = pool.getConnection();
+
+        // Выдача только что началась, поэтому порог в минуту ее не затрагивает
+        assertEquals(0, pool.reclaimConnectionsHeldLongerThan(60_000));
+        assertFalse(second.isClosed());
+        second.close();
+        assertEquals(0, pool.getConnectionsEvicted());
+    }
+
+    @Test
+    void getConnection_reusesReturnedConnection() throws Exception {
+        pool = new ConnectionPool(StubDriver.URL, "user", "password", settings(2));
+
+        Connection first = pool.getConnection();
+        first.close();
+        Connection second = pool.getConnection();
+
+        assertSame(first, second, "поток получает то же соединение, что вернул");
+        assertEquals(1, pool.getUsedConnections());
+        assertEquals(2, pool.getConnectionsCreated());
+        second.close();
+    }
+
+    @Test
+    void close_handsConnectionToWaitingThread() throws Exception {
+        pool = new ConnectionPool(StubDriver.URL, "user", "password", settings(1));
+        Connection held = pool.getConnection();
+        AtomicReference<Connection> received = new AtomicReference<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Thread waiter = new Thread(() -> {
+            try {
+                received.set(pool.getConnection());
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        waiter.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (pool.getWaitingThreads() == 0 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        held.close();
+        waiter.join(2_000);
+
+        assertNull(failure.get());
+        assertNotNull(received.get());
+        assertEquals(1, pool.getUsedConnections());
+        assertEquals(1, pool.getConnectionsCreated());
+        received.get().close();
+    }
+
+    @Test
+    void getConnection_timesOutWhenPoolIsExhausted() throws Exception {
+        ConnectionPoolSettings settings = settings(1);
+        settings.setMaxWaitMillis(100);
+        pool = new ConnectionPool(StubDriver.URL, "user", "password", settings);
+
+        try (Connection ignored = pool.getConnection()) {
+            assertThrows(SQLException.class, pool::getConnection);
+        }
+
+        assertEquals(1, pool.getConnectionTimeouts());
+        assertEquals(0, pool.getUsedConnections());
+    }
+
+    @Test
+    void partitionLimit_leavesConnectionsForOtherPartitions() throws Exception {
+        ConnectionPoolSettings settings = settings(2);
+        settings.setMaxWaitMillis(100);
+        settings.setPartitionLimits(Map.of("reports", 1));
+        pool = new ConnectionPool(StubDriver.URL, "user", "password", settings);
+
+        String previous = PoolPartitionContext.enter("reports");
+        try (Connection report = pool.getConnection()) {
+            assertThrows(SQLException.class, pool::getConnection);
+
+            PoolPartitionContext.restore(previous);
+            try (Connection other = pool.getConnection()) {
+                assertFalse(other.isClosed());
+            }
+        } finally {
+            PoolPartitionContext.restore(previous);
+        }
+
+        PoolPartitionStats stats = pool.getPartitions().get(0);
+        assertEquals(0, stats.getUsedConnections());
+        assertEquals(1, stats.getTimeouts());
+    }
+
+    @Test
+    void returningHealthyConnection_doesNotCloseOpenCircuit() throws Exception {
+        ConnectionPoolSettings settings = settings(2);
+        settings.setCircuitBreakerFailureThreshold(1);
+        settings.setCircuitBreakerOpenMillis(60_000);
+        pool = new ConnectionPool(StubDriver.URL, "user", "password", settings);
+        Connection healthy = pool.getConnection();
+        Connection broken = pool.getConnection();
+
+        // База падает: новые соединения не открываются, открытые не проходят проверку
+        StubDriver.failConnections.set(true);
+        for (Connection physical : StubDriver.connections) {
+            doThrow(new SQLException("Соединение разорвано", "08006")).when(physical).setAutoCommit(false);
+        }
+        assertThrows(SQLException.class, () -> broken.setAutoCommit(false));
+        assertEquals("OPEN", pool.getCircuitBreakerState());
+
+        healthy.close();
+        broken.close();
+
+        assertEquals("OPEN", pool.getCircuitBreakerState());
+        assertThrows(SQLException.class, pool::getConnection);
+    }
+
+    @Test
+    void halfOpenProbe_closesCircuitOnlyAfterValidation() throws Exception {
+        ConnectionPoolSettings settings = settings(1);
+        settings.setCircuitBreakerFailureThreshold(1);
+        settings.setCircuitBreakerOpenMillis(0);
+        pool = new ConnectionPool(StubDriver.URL, "user", "password", settings);
+        Connection connection = pool.getConnection();
+        doThrow(new SQLException("Соединение разорвано", "08006"))
+                .when(StubDriver.connections.get(0)).setAutoCommit(false);
+        assertThrows(SQLException.class, () -> connection.setAutoCommit(false));
+        connection.close();
+        assertEquals("OPEN", pool.getCircuitBreakerState());
+
+        try (Connection probe = pool.getConnection()) {
+            assertFalse(probe.isClosed());
+        }
+
+        assertEquals("CLOSED", pool.getCircuitBreakerState());
+    }
+
+    @Test
+    void halfOpenProbe_timingOutInPartitionReopensCircuit() throws Exception {
+        ConnectionPoolSettings settings = settings(2);
+        settings.setMaxWaitMillis(100);
+        settings.setPartitionLimits(Map.of("reports", 1));
+        settings.setCircuitBreakerFailureThreshold(1);
+        settings.setCircuitBreakerOpenMillis(0);
+        pool = new ConnectionPool(StubDriver.URL, "user", "password", settings);
+
+        String previous = PoolPartitionContext.enter("reports");
+        try (Connection report = pool.getConnection()) {
+            PoolPartitionContext.restore(previous);
+            Connection broken = pool.getConnection();
+            for (Connection physical : StubDriver.connections) {
+                doThrow(new SQLException("Соединение разорвано", "08006")).when(physical).setAutoCommit(false);
+            }
+            assertThrows(SQLException.class, () -> broken.setAutoCommit(false));
+            broken.close();
+            assertEquals("OPEN", pool.getCircuitBreakerState());
+
+            // Пробный запрос не дожидается места в разделе и до проверки соединения не доходит
+            PoolPartitionContext.enter("reports");
+            assertThrows(SQLException.class, pool::getConnection);
+        } finally {
+            PoolPartitionContext.restore(previous);
+        }
+
+        assertEquals("OPEN", pool.getCircuitBreakerState());
+        assertEquals(1, pool.getPartitions().get(0).getTimeouts());
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.bookshop.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartitionLimiterTest {
+
+    @Test
+    void acquire_timesOutWhenPartitionIsFull() throws Exception {
+        PartitionLimiter limiter = new PartitionLimiter("reports", 2);
+
+        limiter.acquire(100);
+        limiter.acquire(100);
+        assertThrows(SQLException.class, () -> limiter.acquire(50));
+
+        PoolPartitionStats stats = limiter.stats();
+        assertEquals(2, stats.getUsedConnections());
+        assertEquals(2, stats.getAcquired());
+        assertEquals(1, stats.getTimeouts());
+    }
+
+    @Test
+    void release_freesPlaceForNextAcquire() throws Exception {
+        PartitionLimiter limiter = new PartitionLimiter("reports", 1);
+
+        limiter.acquire(100);
+        limiter.release();
+        limiter.acquire(100);
+
+        assertEquals(1, limiter.stats().getUsedConnections());
+        assertEquals(0, limiter.stats().getTimeouts());
+    }
+}
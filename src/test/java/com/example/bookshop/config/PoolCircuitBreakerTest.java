@@ -0,0 +1,69 @@
+package com.example.bookshop.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PoolCircuitBreakerTest {
+
+    @Test
+    void recordFailure_opensAfterThresholdOfConsecutiveFailures() {
+        PoolCircuitBreaker breaker = new PoolCircuitBreaker(3, 60_000);
+
+        assertFalse(breaker.recordFailure());
+        assertFalse(breaker.recordFailure());
+        assertTrue(breaker.recordFailure());
+
+        assertEquals(PoolCircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquirePermission());
+        assertTrue(breaker.getRetryAfterMillis() > 0);
+    }
+
+    @Test
+    void recordSuccess_resetsFailureCount() {
+        PoolCircuitBreaker breaker = new PoolCircuitBreaker(2, 60_000);
+
+        breaker.recordFailure();
+        breaker.recordSuccess();
+        assertFalse(breaker.recordFailure());
+
+        assertEquals(PoolCircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    void tryAcquirePermission_letsSingleProbeThroughAfterOpenPeriod() {
+        PoolCircuitBreaker breaker = new PoolCircuitBreaker(1, 0);
+        breaker.recordFailure();
+
+        assertTrue(breaker.tryAcquirePermission());
+        assertEquals(PoolCircuitBreaker.State.HALF_OPEN, breaker.getState());
+        // Пока пробный запрос не завершился, остальные отклоняются
+        assertFalse(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    void halfOpen_successClosesAndFailureReopens() {
+        PoolCircuitBreaker breaker = new PoolCircuitBreaker(1, 0);
+        breaker.recordFailure();
+        breaker.tryAcquirePermission();
+
+        assertTrue(breaker.recordFailure());
+        assertEquals(PoolCircuitBreaker.State.OPEN, breaker.getState());
+
+        breaker.tryAcquirePermission();
+        breaker.recordSuccess();
+        assertEquals(PoolCircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    void zeroThreshold_disablesBreaker() {
+        PoolCircuitBreaker breaker = new PoolCircuitBreaker(0, 60_000);
+
+        for (int i = 0; i < 10; i++) {
+            assertFalse(breaker.recordFailure());
+        }
+        assertEquals(PoolCircuitBreaker.State.CLOSED, breaker.getState());
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.bookshop.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PooledConnectionTest {
+
+    private ConnectionPool pool;
+    private Connection physical;
+
+    @BeforeEach
+    void setUp() {
+        StubDriver.register();
+        ConnectionPoolSettings settings = new ConnectionPoolSettings();
+        settings.setInitialSize(1);
+        settings.setMinIdle(1);
+        settings.setMaxIdle(1);
+        settings.setMaxTotal(1);
+        settings.setMaxWaitMillis(2_000);
+        pool = new ConnectionPool(StubDriver.URL, "user", "password", settings);
+        physical = StubDriver.connections.get(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.closeAllConnections();
+    }
+
+    @Test
+    void close_withoutChangesDoesNotTouchDriver() throws Exception {
+        pool.getConnection().close();
+
+        verify(physical, never()).setAutoCommit(anyBoolean());
+        verify(physical, never()).rollback();
+        verify(physical, never()).setSchema(any());
+        assertEquals(0, pool.getUsedConnections());
+    }
+
+    @Test
+    void close_rollsBackAndRestoresAutoCommit() throws Exception {
+        Connection connection = pool.getConnection();
+        connection.setAutoCommit(false);
+
+        connection.close();
+
+        verify(physical).rollback();
+        verify(physical).setAutoCommit(true);
+        verify(physical, never()).setTransactionIsolation(anyInt());
+    }
+
+    @Test
+    void close_skipsPropertyChangedBackByClient() throws Exception {
+        Connection connection = pool.getConnection();
+        connection.setReadOnly(true);
+        connection.setReadOnly(false);
+
+        connection.close();
+
+        verify(physical, times(2)).setReadOnly(anyBoolean());
+    }
+
+    @Test
+    void close_restoresSchemaHoldabilityAndClientInfo() throws Exception {
+        Connection connection = pool.getConnection();
+        connection.setSchema("reports");
+        connection.setHoldability(ResultSet.CLOSE_CURSORS_AT_COMMIT);
+        connection.setClientInfo("ApplicationName", "reports");
+
+        connection.close();
+
+        verify(physical).setSchema("public");
+        verify(physical).setHoldability(ResultSet.HOLD_CURSORS_OVER_COMMIT);
+        verify(physical).setClientInfo(any(Properties.class));
+    }
+
+    @Test
+    void closedConnection_rejectsUseAndIgnoresSecondClose() throws Exception {
+        Connection connection = pool.getConnection();
+        connection.close();
+
+        assertThrows(SQLException.class, connection::createStatement);
+        assertTrue(connection.isClosed());
+        connection.close();
+        assertEquals(0, pool.getUsedConnections());
+        assertEquals(1, pool.getAvailableConnections());
+    }
+
+    @Test
+    void prepareStatement_reusesCachedDriverStatement() throws Exception {
+        try (Connection connection = pool.getConnection()) {
+            connection.prepareStatement("SELECT 1").close();
+            connection.prepareStatement("SELECT 1").close();
+        }
+        try (Connection connection = pool.getConnection()) {
+            connection.prepareStatement("SELECT 1").close();
+        }
+
+        verify(physical, times(1)).prepareStatement("SELECT 1");
+        assertEquals(2, pool.getStatementCacheHits());
+        assertEquals(1, pool.getStatementCacheMisses());
+    }
+
+    @Test
+    void brokenConnectionError_evictsConnectionOnClose() throws Exception {
+        doThrow(new SQLException("Соединение разорвано", "08006")).when(physical).setAutoCommit(false);
+        Connection connection = pool.getConnection();
+
+        assertThrows(SQLException.class, () -> connection.setAutoCommit(false));
+        connection.close();
+
+        assertEquals(1, pool.getConnectionsEvicted());
+    }
+}
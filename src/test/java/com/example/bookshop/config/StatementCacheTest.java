@@ -0,0 +1,69 @@
+package com.example.bookshop.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class StatementCacheTest {
+
+    @Test
+    void take_removesStatementUntilItIsReturned() {
+        StatementCache cache = new StatementCache(2);
+        StatementCache.Key key = StatementCache.Key.of("SELECT 1");
+        PreparedStatement statement = mock(PreparedStatement.class);
+
+        cache.put(key, statement);
+
+        assertSame(statement, cache.take(key));
+        assertNull(cache.take(key));
+    }
+
+    @Test
+    void put_evictsAndClosesLeastRecentlyUsed() throws Exception {
+        StatementCache cache = new StatementCache(2);
+        StatementCache.Key first = StatementCache.Key.of("SELECT 1");
+        StatementCache.Key second = StatementCache.Key.of("SELECT 2");
+        StatementCache.Key third = StatementCache.Key.of("SELECT 3");
+        PreparedStatement firstStatement = mock(PreparedStatement.class);
+        PreparedStatement secondStatement = mock(PreparedStatement.class);
+
+        cache.put(first, firstStatement);
+        cache.put(second, secondStatement);
+        // Первое выражение использовано последним, поэтому вытесняется второе
+        cache.put(first, cache.take(first));
+        cache.put(third, mock(PreparedStatement.class));
+
+        verify(secondStatement).close();
+        verify(firstStatement, never()).close();
+        assertNull(cache.take(second));
+        assertSame(firstStatement, cache.take(first));
+    }
+
+    @Test
+    void put_closesDuplicateForSameKey() throws Exception {
+        StatementCache cache = new StatementCache(2);
+        StatementCache.Key key = StatementCache.Key.of("SELECT 1");
+        PreparedStatement previous = mock(PreparedStatement.class);
+        PreparedStatement current = mock(PreparedStatement.class);
+
+        cache.put(key, previous);
+        cache.put(key, current);
+
+        verify(previous).close();
+        assertSame(current, cache.take(key));
+    }
+
+    @Test
+    void key_distinguishesPreparationParameters() {
+        assertEquals(StatementCache.Key.of("SELECT 1"), StatementCache.Key.of("SELECT 1"));
+        assertNotEquals(StatementCache.Key.of("SELECT 1"),
+                StatementCache.Key.of("SELECT 1", ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY));
+        assertNotEquals(StatementCache.Key.of("SELECT 1"),
+                StatementCache.Key.withGeneratedKeys("SELECT 1", new String[]{"id"}));
+        assertFalse(new StatementCache(0).isEnabled());
+    }
+}
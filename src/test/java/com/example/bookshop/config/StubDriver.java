@@ -0,0 +1,105 @@
+package com.example.bookshop.config;
+
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * JDBC-драйвер для тестов пула: по адресу {@link #URL} выдает Mockito-заглушки соединений
+ * и по требованию отказывает в открытии соединения. Пока база «недоступна»,
+ * уже открытые соединения не проходят проверку {@link Connection#isValid(int)}.
+ */
+final class StubDriver implements Driver {
+
+    static final String URL = "jdbc:bookshop-stub:test";
+
+    static final AtomicBoolean failConnections = new AtomicBoolean();
+
+    /** Физические соединения, открытые с последнего {@link #register()}, в порядке открытия */
+    static final List<Connection> connections = new CopyOnWriteArrayList<>();
+
+    static {
+        try {
+            DriverManager.registerDriver(new StubDriver());
+        } catch (SQLException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private StubDriver() {
+    }
+
+    /**
+     * Регистрирует драйвер в {@link DriverManager} при первом вызове
+     * и снова разрешает открывать соединения
+     */
+    static void register() {
+        failConnections.set(false);
+        connections.clear();
+    }
+
+    @Override
+    public Connection connect(String url, Properties info) throws SQLException {
+        if (!acceptsURL(url)) {
+            return null;
+        }
+        if (failConnections.get()) {
+            throw new SQLException("Соединение отклонено", "08001");
+        }
+        Connection connection = mock(Connection.class);
+        when(connection.isValid(anyInt())).thenAnswer(invocation -> !failConnections.get());
+        when(connection.getAutoCommit()).thenReturn(true);
+        when(connection.getTransactionIsolation()).thenReturn(Connection.TRANSACTION_READ_COMMITTED);
+        when(connection.getHoldability()).thenReturn(ResultSet.HOLD_CURSORS_OVER_COMMIT);
+        when(connection.getSchema()).thenReturn("public");
+        when(connection.getClientInfo()).thenReturn(new Properties());
+        when(connection.prepareStatement(anyString())).thenAnswer(invocation -> mock(PreparedStatement.class));
+        connections.add(connection);
+        return connection;
+    }
+
+    @Override
+    public boolean acceptsURL(String url) {
+        return url != null && url.startsWith(URL);
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+        return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return 1;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 0;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+}
@@ -9,10 +9,13 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -47,6 +50,22 @@ class BookDaoImplTest {
         assertTrue(dao.findById(2L).isEmpty());
     }
 
+    @Test
+    void findAll_loadsRelationsWithTwoQueriesForWholeList() {
+        Book first = new Book();
+        first.setId(1L);
+        Book second = new Book();
+        second.setId(2L);
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class))).thenReturn(List.of(first, second));
+
+        List<Book> result = dao.findAll();
+
+        assertEquals(2, result.size());
+        verify(jdbcTemplate, times(2)).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+        assertNotNull(first.getGenres());
+        assertNotNull(second.getAuthors());
+    }
+
     @Test
     void deleteById_returnsTrueWhenDeleted() {
         when(jdbcTemplate.update(anyString(), eq(3L))).thenReturn(1);
@@ -3,11 +3,19 @@ package com.example.bookshop.dao.impl;
 import com.example.bookshop.model.OrderEntry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
 import org.springframework.jdbc.core.RowMapper;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -17,6 +25,8 @@ import static org.mockito.Mockito.*;
 class OrderEntryDaoImplTest {
     @Mock
     private JdbcTemplate jdbcTemplate;
+    @Captor
+    private ArgumentCaptor<List<Object[]>> updates;
     private OrderEntryDaoImpl dao;
 
     @BeforeEach
@@ -37,4 +47,126 @@ class OrderEntryDaoImplTest {
         when(jdbcTemplate.update(anyString(), eq(2L))).thenReturn(1);
         assertTrue(dao.deleteById(2L));
     }
+
+    @Test
+    void saveAll_insertsInOneStatementAndAssignsIdsByBook() {
+        when(jdbcTemplate.query(any(PreparedStatementCreator.class), any(RowMapper.class))).thenAnswer(invocation -> {
+            RowMapper<?> mapper = invocation.getArgument(1);
+            // RETURNING возвращает строки не обязательно в порядке вставки
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getLong(1)).thenReturn(8L, 7L);
+            when(rs.getObject(2)).thenReturn(1L, 1L);
+            when(rs.getObject(3)).thenReturn(101L, 100L);
+            return new ArrayList<>(List.of(mapper.mapRow(rs, 0), mapper.mapRow(rs, 1)));
+        });
+        OrderEntry first = new OrderEntry(0L, 1L, 100L, 1, 5.0);
+        OrderEntry second = new OrderEntry(0L, 1L, 101L, 2, 7.0);
+
+        List<OrderEntry> saved = dao.saveAll(List.of(first, second));
+
+        assertEquals(7L, saved.get(0).getId());
+        assertEquals(8L, saved.get(1).getId());
+        verify(jdbcTemplate, times(1)).query(any(PreparedStatementCreator.class), any(RowMapper.class));
+    }
+
+    @Test
+    void saveAll_mergesDuplicateBooksWithoutChangingArguments() {
+        when(jdbcTemplate.query(any(PreparedStatementCreator.class), any(RowMapper.class))).thenAnswer(invocation -> {
+            RowMapper<?> mapper = invocation.getArgument(1);
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getLong(1)).thenReturn(7L);
+            when(rs.getObject(2)).thenReturn(1L);
+            when(rs.getObject(3)).thenReturn(100L);
+            return new ArrayList<>(List.of(mapper.mapRow(rs, 0)));
+        });
+        OrderEntry first = new OrderEntry(0L, 1L, 100L, 1, 5.0);
+        OrderEntry second = new OrderEntry(0L, 1L, 100L, 2, 5.0);
+
+        List<OrderEntry> saved = dao.saveAll(List.of(first, second));
+
+        assertEquals(1, saved.size());
+        assertEquals(3, saved.get(0).getQuantity());
+        assertEquals(7L, saved.get(0).getId());
+        assertEquals(1, first.getQuantity());
+        assertEquals(0L, first.getId());
+    }
+
+    @Test
+    void saveAll_rejectsMergedQuantityOutsideSmallint() {
+        OrderEntry first = new OrderEntry(0L, 1L, 100L, OrderEntryDaoImpl.MAX_QUANTITY, 5.0);
+        OrderEntry second = new OrderEntry(0L, 1L, 100L, 1, 5.0);
+
+        assertThrows(IllegalArgumentException.class, () -> dao.saveAll(List.of(first, second)));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void replaceByOrderId_writesOnlyAddedChangedAndRemovedEntries() throws Exception {
+        when(jdbcTemplate.query(eq("SELECT * FROM order_entry WHERE order_id = ?"), any(RowMapper.class), eq(1L)))
+                .thenReturn(List.of(
+                        new OrderEntry(1L, 1L, 100L, 1, 5.0),
+                        new OrderEntry(2L, 1L, 101L, 2, 7.0),
+                        new OrderEntry(3L, 1L, 102L, 1, 9.0)));
+        when(jdbcTemplate.query(any(PreparedStatementCreator.class), any(RowMapper.class))).thenAnswer(invocation -> {
+            RowMapper<?> mapper = invocation.getArgument(1);
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getLong(1)).thenReturn(9L);
+            when(rs.getObject(2)).thenReturn(1L);
+            when(rs.getObject(3)).thenReturn(103L);
+            return new ArrayList<>(List.of(mapper.mapRow(rs, 0)));
+        });
+        OrderEntry first = new OrderEntry(0L, 0L, 100L, 1, 5.0);
+        OrderEntry duplicate = new OrderEntry(0L, 0L, 100L, 1, 5.0);
+        List<OrderEntry> desired = List.of(first, duplicate,
+                new OrderEntry(0L, 0L, 101L, 2, 7.0),
+                new OrderEntry(0L, 0L, 103L, 4, 3.0));
+
+        List<OrderEntry> saved = dao.replaceByOrderId(1L, desired);
+
+        // Удалена только позиция книги 102
+        ArgumentCaptor<PreparedStatementCreator> delete = ArgumentCaptor.forClass(PreparedStatementCreator.class);
+        verify(jdbcTemplate).update(delete.capture());
+        Connection connection = mock(Connection.class);
+        when(connection.prepareStatement(anyString())).thenReturn(mock(PreparedStatement.class));
+        delete.getValue().createPreparedStatement(connection);
+        verify(connection).createArrayOf("bigint", new Long[]{3L});
+        // Обновлена только позиция книги 100, количество которой выросло после слияния
+        verify(jdbcTemplate).batchUpdate(eq("UPDATE order_entry SET quantity = ?, unit_price = ? WHERE id = ?"),
+                updates.capture());
+        assertEquals(1, updates.getValue().size());
+        assertArrayEquals(new Object[]{2, 5.0, 1L}, updates.getValue().get(0));
+        // Вставлена только позиция книги 103
+        verify(jdbcTemplate, times(1)).query(any(PreparedStatementCreator.class), any(RowMapper.class));
+
+        assertEquals(List.of(1L, 2L, 9L), saved.stream().map(OrderEntry::getId).toList());
+        assertEquals(1, first.getQuantity());
+        assertEquals(0L, first.getOrderId());
+    }
+
+    @Test
+    void replaceByOrderId_rejectsMergedQuantityOutsideSmallint() {
+        List<OrderEntry> desired = List.of(
+                new OrderEntry(0L, 0L, 100L, OrderEntryDaoImpl.MAX_QUANTITY, 5.0),
+                new OrderEntry(0L, 0L, 100L, 1, 5.0));
+
+        assertThrows(IllegalArgumentException.class, () -> dao.replaceByOrderId(1L, desired));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void addQuantity_rejectsQuantityOutsideSmallint() {
+        OrderEntry entry = new OrderEntry(0L, 1L, 100L, OrderEntryDaoImpl.MAX_QUANTITY + 1, 5.0);
+
+        assertThrows(IllegalArgumentException.class, () -> dao.addQuantity(entry));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void addQuantity_whenSumWouldOverflowThrows() {
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(), any(), any(), any()))
+                .thenReturn(new ArrayList<>());
+        OrderEntry entry = new OrderEntry(0L, 1L, 100L, 2, 5.0);
+
+        assertThrows(IllegalArgumentException.class, () -> dao.addQuantity(entry));
+    }
 }
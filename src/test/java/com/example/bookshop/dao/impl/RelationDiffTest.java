@@ -0,0 +1,39 @@
+package com.example.bookshop.dao.impl;
+
+import com.example.bookshop.model.OrderEntry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RelationDiffTest {
+
+    @Test
+    void of_splitsLinksIntoAddedAndRemoved() {
+        RelationDiff<Long, Long> diff = RelationDiff.of(List.of(1L, 2L, 3L), List.of(2L, 3L, 4L));
+
+        assertEquals(List.of(4L), diff.added());
+        assertEquals(List.of(1L), diff.removed());
+        assertTrue(diff.changed().isEmpty());
+    }
+
+    @Test
+    void of_reportsOnlyRowsWithDifferentContentAsChanged() {
+        List<OrderEntry> current = List.of(
+                new OrderEntry(10L, 1L, 100L, 1, 5.0),
+                new OrderEntry(11L, 1L, 101L, 2, 7.0));
+        List<OrderEntry> desired = List.of(
+                new OrderEntry(0L, 1L, 100L, 1, 5.0),
+                new OrderEntry(0L, 1L, 101L, 3, 7.0));
+
+        RelationDiff<Long, OrderEntry> diff = RelationDiff.of(current, desired, OrderEntry::getBookId,
+                (a, b) -> a.getQuantity() == b.getQuantity());
+
+        assertTrue(diff.added().isEmpty());
+        assertTrue(diff.removed().isEmpty());
+        assertEquals(2, diff.matched().size());
+        assertEquals(1, diff.changed().size());
+        assertEquals(11L, diff.changed().get(0).current().getId());
+    }
+}
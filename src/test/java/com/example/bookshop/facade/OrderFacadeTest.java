@@ -0,0 +1,87 @@
+package com.example.bookshop.facade;
+
+import com.example.bookshop.model.Book;
+import com.example.bookshop.model.Currency;
+import com.example.bookshop.model.Order;
+import com.example.bookshop.model.OrderEntry;
+import com.example.bookshop.model.OrderStatus;
+import com.example.bookshop.service.BookService;
+import com.example.bookshop.service.OrderEntryService;
+import com.example.bookshop.service.OrderService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OrderFacadeTest {
+
+    @Mock
+    private OrderService orderService;
+    @Mock
+    private OrderEntryService orderEntryService;
+    @Mock
+    private BookService bookService;
+    private OrderFacade facade;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        facade = new OrderFacade(orderService, orderEntryService, bookService);
+    }
+
+    @Test
+    void addBookToUserOrder_addsQuantityToOpenOrderAndTotal() {
+        Book book = new Book();
+        book.setId(3L);
+        book.setPrice(new BigDecimal("10.00"));
+        book.setCurrency(Currency.RUB);
+        when(bookService.getBookById(3L)).thenReturn(book);
+        Order open = new Order();
+        open.setId(42L);
+        when(orderService.getOrCreateOpenOrder(any(Order.class))).thenReturn(open);
+        // Книга уже лежала в заказе по старой цене
+        when(orderEntryService.addToOrder(any(OrderEntry.class))).thenReturn(new OrderEntry(9L, 42L, 3L, 3, 8.0));
+        when(orderService.addToTotalPrice(eq(42L), any(BigDecimal.class))).thenReturn(new BigDecimal("24.00"));
+
+        Order result = facade.addBookToUserOrder(5L, 3L, 2);
+
+        assertSame(open, result);
+        assertEquals(new BigDecimal("24.00"), result.getTotalPrice());
+        ArgumentCaptor<Order> draft = ArgumentCaptor.forClass(Order.class);
+        verify(orderService).getOrCreateOpenOrder(draft.capture());
+        assertEquals(5L, draft.getValue().getUserId());
+        assertEquals(OrderStatus.NEW, draft.getValue().getStatus());
+        ArgumentCaptor<OrderEntry> entry = ArgumentCaptor.forClass(OrderEntry.class);
+        verify(orderEntryService).addToOrder(entry.capture());
+        assertEquals(42L, entry.getValue().getOrderId());
+        assertEquals(2, entry.getValue().getQuantity());
+        ArgumentCaptor<BigDecimal> amount = ArgumentCaptor.forClass(BigDecimal.class);
+        verify(orderService).addToTotalPrice(eq(42L), amount.capture());
+        assertEquals(0, new BigDecimal("16").compareTo(amount.getValue()));
+    }
+
+    @Test
+    void createOrderWithEntries_savesEntriesWithOrderId() {
+        Order order = new Order();
+        order.setEntries(List.of(new OrderEntry(0L, 0L, 3L, 1, 10.0), new OrderEntry(0L, 0L, 3L, 2, 10.0)));
+        Order saved = new Order();
+        saved.setId(42L);
+        when(orderService.createOrder(order)).thenReturn(saved);
+        List<OrderEntry> merged = List.of(new OrderEntry(7L, 42L, 3L, 3, 10.0));
+        when(orderEntryService.createOrderEntries(anyList())).thenReturn(merged);
+
+        Order result = facade.createOrderWithEntries(order);
+
+        assertSame(merged, result.getEntries());
+        assertNotNull(order.getOrderDate());
+        assertTrue(order.getEntries().stream().allMatch(entry -> entry.getOrderId() == 42L));
+    }
+}
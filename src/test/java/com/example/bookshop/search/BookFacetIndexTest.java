@@ -0,0 +1,147 @@
+package com.example.bookshop.search;
+
+import com.example.bookshop.dto.BookFilter;
+import com.example.bookshop.model.Book;
+import com.example.bookshop.model.Currency;
+import com.example.bookshop.model.Language;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookFacetIndexTest {
+
+    private BookFacetIndex index;
+
+    static Book book(long id, List<String> genres, Language language, Currency currency, int year, String price) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle("Книга " + id);
+        book.setGenres(genres);
+        book.setLanguage(language);
+        book.setCurrency(currency);
+        book.setPublishedAt(LocalDate.of(year, 1, 1));
+        book.setPrice(new BigDecimal(price));
+        return book;
+    }
+
+    @BeforeEach
+    void setUp() {
+        index = new BookFacetIndex();
+        index.index(List.of(
+                book(1, List.of("Фэнтези"), Language.RU, Currency.RUB, 2001, "5"),
+                book(2, List.of("Фэнтези", "Детектив"), Language.EN, Currency.USD, 2010, "30"),
+                book(3, List.of("Детектив"), Language.RU, Currency.RUB, 2010, "120")));
+    }
+
+    @Test
+    void browse_withoutFilterReturnsNewestFirst() {
+        FacetResult result = index.browse(new BookFilter(), 0, 10);
+
+        assertEquals(List.of(3L, 2L, 1L), result.getBookIds());
+        assertEquals(3, result.getTotal());
+    }
+
+    @Test
+    void browse_pagesThroughMatches() {
+        FacetResult result = index.browse(new BookFilter(), 1, 1);
+
+        assertEquals(List.of(2L), result.getBookIds());
+        assertEquals(3, result.getTotal());
+    }
+
+    @Test
+    void browse_filtersByGenreIgnoringCase() {
+        BookFilter filter = new BookFilter();
+        filter.setGenres(List.of("фэнтези"));
+
+        FacetResult result = index.browse(filter, 0, 10);
+
+        assertEquals(List.of(2L, 1L), result.getBookIds());
+        // Счетчики жанров не сужаются фильтром по жанру, остальные признаки — сужаются
+        assertEquals(2L, result.getFacets().getGenres().get("Фэнтези"));
+        assertEquals(2L, result.getFacets().getGenres().get("Детектив"));
+        assertEquals(1L, result.getFacets().getLanguages().get("RU"));
+        assertEquals(1L, result.getFacets().getLanguages().get("EN"));
+    }
+
+    @Test
+    void browse_intersectsFiltersOfDifferentFacets() {
+        BookFilter filter = new BookFilter();
+        filter.setLanguages(List.of(Language.RU));
+        filter.setYearFrom(2005);
+        filter.setYearTo(2010);
+
+        FacetResult result = index.browse(filter, 0, 10);
+
+        assertEquals(List.of(3L), result.getBookIds());
+        assertEquals(1, result.getTotal());
+        assertEquals(1L, result.getFacets().getYears().get(2001));
+        assertEquals(1L, result.getFacets().getYears().get(2010));
+    }
+
+    @Test
+    void browse_filtersByExactPriceIncludingBounds() {
+        index.index(List.of(book(4, List.of("Детектив"), Language.RU, Currency.RUB, 2012, "50.00")));
+        BookFilter filter = new BookFilter();
+        filter.setMinPrice(new BigDecimal("10"));
+        filter.setMaxPrice(new BigDecimal("50"));
+
+        FacetResult result = index.browse(filter, 0, 10);
+
+        assertEquals(List.of(4L, 2L), result.getBookIds());
+    }
+
+    @Test
+    void browse_countsPriceRangesOnlyForSingleCurrency() {
+        BookFilter filter = new BookFilter();
+        filter.setCurrencies(List.of(Currency.RUB));
+
+        FacetResult result = index.browse(filter, 0, 10);
+
+        assertEquals(1L, result.getFacets().getPriceRanges().get("0-10"));
+        assertEquals(1L, result.getFacets().getPriceRanges().get("100+"));
+        // Книга за 30 USD не попадает в рублевые диапазоны
+        assertEquals(0L, result.getFacets().getPriceRanges().get("25-50"));
+        assertTrue(index.browse(new BookFilter(), 0, 10).getFacets().getPriceRanges().isEmpty());
+    }
+
+    @Test
+    void browse_countsDoNotChangeIndexedSets() {
+        BookFilter filter = new BookFilter();
+        filter.setLanguages(List.of(Language.EN));
+        index.browse(filter, 0, 10);
+
+        FacetResult result = index.browse(new BookFilter(), 0, 10);
+
+        assertEquals(2L, result.getFacets().getGenres().get("Фэнтези"));
+        assertEquals(2L, result.getFacets().getGenres().get("Детектив"));
+        assertEquals(3, result.getTotal());
+    }
+
+    @Test
+    void index_replacesPreviousFacetsOfBook() {
+        index.index(List.of(book(1, List.of("Детектив"), Language.EN, Currency.USD, 2001, "5")));
+
+        FacetResult result = index.browse(new BookFilter(), 0, 10);
+
+        assertEquals(1L, result.getFacets().getGenres().get("Фэнтези"));
+        assertEquals(3L, result.getFacets().getGenres().get("Детектив"));
+        assertEquals(1L, result.getFacets().getLanguages().get("RU"));
+    }
+
+    @Test
+    void remove_dropsBookAndEmptyGenres() {
+        index.remove(List.of(1L, 2L));
+
+        FacetResult result = index.browse(new BookFilter(), 0, 10);
+
+        assertEquals(List.of(3L), result.getBookIds());
+        assertFalse(result.getFacets().getGenres().containsKey("Фэнтези"));
+        assertFalse(result.getFacets().getYears().containsKey(2001));
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.bookshop.search;
+
+import com.example.bookshop.model.Author;
+import com.example.bookshop.model.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookSearchIndexTest {
+
+    private BookSearchIndex index;
+
+    static Book book(long id, String title, String description, String isbn, Author... authors) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle(title);
+        book.setDescription(description);
+        book.setIsbn(isbn);
+        book.setAuthors(List.of(authors));
+        return book;
+    }
+
+    @BeforeEach
+    void setUp() {
+        index = new BookSearchIndex();
+        index.index(List.of(
+                book(1, "Война и мир", "Роман-эпопея", "9785170906306",
+                        new Author(1, "Лев", "Толстой", null, null, null)),
+                book(2, "Мир приключений", "Сборник рассказов", "9785170906307"),
+                book(3, "Преступление и наказание", "Роман", "9785170906308",
+                        new Author(2, "Федор", "Достоевский", null, null, null)),
+                book(4, "Дракон", "Сказка", "9785170906309"),
+                book(5, "Сказки", "Сказки про дракона и дракон", "9785170906310")));
+    }
+
+    @Test
+    void search_requiresAllQueryTerms() {
+        SearchResult result = index.search("война мир", 0, 10);
+
+        assertEquals(List.of(1L), result.getBookIds());
+        assertEquals(1, result.getTotal());
+    }
+
+    @Test
+    void search_ranksTitleMatchAboveDescriptionMatch() {
+        SearchResult result = index.search("дракон", 0, 10);
+
+        assertEquals(4L, result.getBookIds().get(0));
+        assertTrue(result.getBookIds().contains(5L));
+    }
+
+    @Test
+    void search_pagesThroughRankedResults() {
+        SearchResult all = index.search("мир", 0, 10);
+        SearchResult second = index.search("мир", 1, 1);
+
+        assertEquals(2, all.getTotal());
+        assertEquals(2, second.getTotal());
+        assertEquals(List.of(all.getBookIds().get(1)), second.getBookIds());
+    }
+
+    @Test
+    void search_matchesByPrefixAndAuthor() {
+        assertEquals(List.of(3L), index.search("прест", 0, 10).getBookIds());
+        assertEquals(List.of(3L), index.search("достоевский", 0, 10).getBookIds());
+    }
+
+    @Test
+    void search_toleratesTypos() {
+        // Перестановка соседних букв — одна правка
+        assertEquals(List.of(3L), index.search("наказаине", 0, 10).getBookIds());
+        assertEquals(List.of(1L), index.search("толстй", 0, 10).getBookIds());
+    }
+
+    @Test
+    void search_findsBookByIsbnWithSeparators() {
+        assertEquals(List.of(3L), index.search("978-5-17-090630-8", 0, 10).getBookIds());
+    }
+
+    @Test
+    void search_withoutTermsReturnsNothing() {
+        SearchResult result = index.search("и", 0, 10);
+
+        assertTrue(result.getBookIds().isEmpty());
+        assertEquals(0, result.getTotal());
+    }
+
+    @Test
+    void remove_dropsBookFromResults() {
+        index.remove(List.of(1L));
+
+        assertEquals(List.of(2L), index.search("мир", 0, 10).getBookIds());
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void index_replacesPreviousVersionOfBook() {
+        index.index(List.of(book(2, "Путешествие", "Сборник рассказов", "9785170906307")));
+
+        assertEquals(List.of(1L), index.search("мир", 0, 10).getBookIds());
+        assertEquals(List.of(2L), index.search("путешествие", 0, 10).getBookIds());
+    }
+
+    @Test
+    void editDistance_countsTranspositionAsOneEdit() {
+        assertEquals(0, BookSearchIndex.editDistance("мир", "мир", 2));
+        assertEquals(1, BookSearchIndex.editDistance("мир", "мри", 2));
+        assertEquals(1, BookSearchIndex.editDistance("толстой", "толстй", 2));
+        assertEquals(2, BookSearchIndex.editDistance("abcdef", "uvwxyz", 1));
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.bookshop.search;
+
+import com.example.bookshop.dao.BookDao;
+import com.example.bookshop.dto.BookFilter;
+import com.example.bookshop.event.AuthorChangedEvent;
+import com.example.bookshop.event.BookChangedEvent;
+import com.example.bookshop.model.Author;
+import com.example.bookshop.model.Book;
+import com.example.bookshop.model.Currency;
+import com.example.bookshop.model.Language;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CatalogIndexerTest {
+
+    @Mock
+    private BookDao bookDao;
+    private BookSearchIndex searchIndex;
+    private BookFacetIndex facetIndex;
+    private CatalogIndexer indexer;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        searchIndex = new BookSearchIndex();
+        facetIndex = new BookFacetIndex();
+        // Обновления применяются сразу в потоке теста
+        indexer = new CatalogIndexer(bookDao, searchIndex, facetIndex, Runnable::run);
+    }
+
+    private static Book book(long id, String title, String genre, Author author) {
+        Book book = BookFacetIndexTest.book(id, List.of(genre), Language.RU, Currency.RUB, 2010, "10");
+        book.setTitle(title);
+        book.setAuthors(List.of(author));
+        return book;
+    }
+
+    @Test
+    void onBookChanged_indexesBookInAllIndexes() {
+        when(bookDao.findByIds(List.of(1L))).thenReturn(List.of(
+                book(1, "Война и мир", "Роман", new Author(7, "Лев", "Толстой", null, null, null))));
+
+        indexer.onBookChanged(new BookChangedEvent(1L));
+
+        assertEquals(List.of(1L), searchIndex.search("война", 0, 10).getBookIds());
+        assertEquals(1L, facetIndex.browse(new BookFilter(), 0, 10).getFacets().getGenres().get("Роман"));
+    }
+
+    @Test
+    void onBookChanged_removesDeletedBook() {
+        when(bookDao.findByIds(List.of(1L))).thenReturn(List.of(
+                book(1, "Война и мир", "Роман", new Author(7, "Лев", "Толстой", null, null, null))));
+        indexer.onBookChanged(new BookChangedEvent(1L));
+
+        when(bookDao.findByIds(List.of(1L))).thenReturn(List.of());
+        indexer.onBookChanged(new BookChangedEvent(1L));
+
+        assertEquals(0, searchIndex.size());
+        assertEquals(0, facetIndex.browse(new BookFilter(), 0, 10).getTotal());
+    }
+
+    @Test
+    void onAuthorChanged_reindexesBooksOfAuthor() {
+        when(bookDao.findByIds(List.of(1L))).thenReturn(List.of(
+                book(1, "Война и мир", "Роман", new Author(7, "Лев", "Толстой", null, null, null))));
+        indexer.onBookChanged(new BookChangedEvent(1L));
+
+        when(bookDao.findByIds(List.of(1L))).thenReturn(List.of(
+                book(1, "Война и мир", "Роман", new Author(7, "Лев", "Tolstoy", null, null, null))));
+        indexer.onAuthorChanged(new AuthorChangedEvent(7L));
+
+        assertEquals(List.of(1L), searchIndex.search("tolstoy", 0, 10).getBookIds());
+        assertTrue(searchIndex.search("толстой", 0, 10).getBookIds().isEmpty());
+    }
+
+    @Test
+    void onAuthorChanged_withoutBooksDoesNotQueryDatabase() {
+        indexer.onAuthorChanged(new AuthorChangedEvent(7L));
+
+        verifyNoInteractions(bookDao);
+    }
+
+    @Test
+    void reindex_keepsIndexesWhenDatabaseFails() {
+        when(bookDao.findByIds(List.of(1L))).thenReturn(List.of(
+                book(1, "Война и мир", "Роман", new Author(7, "Лев", "Толстой", null, null, null))));
+        indexer.onBookChanged(new BookChangedEvent(1L));
+
+        when(bookDao.findByIds(anyCollection())).thenThrow(new DataAccessResourceFailureException("База недоступна"));
+        indexer.onBookChanged(new BookChangedEvent(1L));
+
+        assertEquals(List.of(1L), searchIndex.search("война", 0, 10).getBookIds());
+    }
+
+    @Test
+    void onBookChanged_readsBookOnceForQueuedChanges() {
+        List<Runnable> queued = new ArrayList<>();
+        indexer = new CatalogIndexer(bookDao, searchIndex, facetIndex, queued::add);
+        when(bookDao.findByIds(List.of(1L))).thenReturn(List.of(
+                book(1, "Анна Каренина", "Роман", new Author(7, "Лев", "Толстой", null, null, null))));
+
+        indexer.onBookChanged(new BookChangedEvent(1L));
+        indexer.onBookChanged(new BookChangedEvent(1L));
+        queued.forEach(Runnable::run);
+
+        // Второе изменение зафиксировано до чтения, поэтому первое же чтение видит последнюю версию
+        verify(bookDao, times(1)).findByIds(anyCollection());
+        assertEquals(List.of(1L), searchIndex.search("каренина", 0, 10).getBookIds());
+    }
+
+    @Test
+    void build_retriesAfterDatabaseFailure() throws Exception {
+        when(bookDao.findMaxId())
+                .thenThrow(new DataAccessResourceFailureException("База недоступна"))
+                .thenReturn(0L);
+
+        indexer.onApplicationEvent(null);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!searchIndex.isReady() && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        indexer.close();
+
+        assertTrue(searchIndex.isReady());
+        verify(bookDao, times(2)).findMaxId();
+    }
+}
@@ -8,6 +8,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.Optional;
 
@@ -19,12 +20,14 @@ class AuthorServiceImplTest {
 
     @Mock
     private AuthorDao authorDao;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
     private AuthorServiceImpl service;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        service = new AuthorServiceImpl(authorDao);
+        service = new AuthorServiceImpl(authorDao, eventPublisher);
     }
 
     @Test
@@ -1,7 +1,9 @@
 package com.example.bookshop.service.impl;
 
 import com.example.bookshop.dao.BookDao;
+import com.example.bookshop.dao.PageResult;
 import com.example.bookshop.dto.PageResponse;
+import com.example.bookshop.event.BookChangedEvent;
 import com.example.bookshop.exception.ResourceNotFoundException;
 import com.example.bookshop.model.Author;
 import com.example.bookshop.model.Book;
@@ -9,8 +11,11 @@ import com.example.bookshop.model.Language;
 import com.example.bookshop.model.Currency;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.Collections;
 import java.util.List;
@@ -24,12 +29,14 @@ class BookServiceImplTest {
 
     @Mock
     private BookDao bookDao;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
     private BookServiceImpl service;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        service = new BookServiceImpl(bookDao);
+        service = new BookServiceImpl(bookDao, eventPublisher);
     }
 
     @Test
@@ -61,4 +68,54 @@ class BookServiceImplTest {
         when(bookDao.findAll()).thenReturn(Collections.emptyList());
         assertTrue(service.getAllBooks().isEmpty());
     }
+
+    @Test
+    void getAllBooks_reusesCachedTotalForNextPage() {
+        when(bookDao.findPage(0, 10, null)).thenReturn(new PageResult<>(List.of(new Book()), 25L));
+        when(bookDao.findPage(1, 10, 25L)).thenReturn(new PageResult<>(List.of(new Book()), 25L));
+
+        service.getAllBooks(0, 10);
+        Long expiresAt = service.countCache.expiresAt("all");
+        PageResponse<Book> second = service.getAllBooks(1, 10);
+
+        assertEquals(25L, second.getTotalElements());
+        // Повторное использование количества не продлевает срок его жизни
+        assertNotNull(expiresAt);
+        assertEquals(expiresAt, service.countCache.expiresAt("all"));
+        verify(bookDao).findPage(1, 10, 25L);
+        verify(bookDao, never()).countAll();
+    }
+
+    @Test
+    void updateBook_publishesChangeEvent() {
+        Book book = new Book();
+        book.setId(5L);
+        when(bookDao.update(book)).thenReturn(book);
+
+        service.updateBook(book);
+
+        ArgumentCaptor<BookChangedEvent> captor = ArgumentCaptor.forClass(BookChangedEvent.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        assertEquals(5L, captor.getValue().getBookId());
+    }
+
+    @Test
+    void addGenreToBook_publishesEventAfterWrite() {
+        when(bookDao.addGenreToBook(5L, 3L)).thenReturn(true);
+
+        assertTrue(service.addGenreToBook(5L, 3L));
+
+        InOrder order = inOrder(bookDao, eventPublisher);
+        order.verify(bookDao).addGenreToBook(5L, 3L);
+        order.verify(eventPublisher).publishEvent(any(BookChangedEvent.class));
+    }
+
+    @Test
+    void removeGenreFromBook_whenNothingRemovedPublishesNothing() {
+        when(bookDao.removeGenreFromBook(5L, 3L)).thenReturn(false);
+
+        assertFalse(service.removeGenreFromBook(5L, 3L));
+
+        verify(eventPublisher, never()).publishEvent(any());
+    }
 }
@@ -8,6 +8,8 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.util.Optional;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -30,13 +32,36 @@ class OrderServiceImplTest {
     void createOrder_setsDefaultStatus() {
         Order order = new Order();
         order.setStatus(null);
-        when(orderDao.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(orderDao.saveIfNoOpenOrder(any(Order.class))).thenAnswer(invocation -> Optional.of(invocation.getArgument(0)));
 
         Order saved = service.createOrder(order);
 
         assertSame(order, saved);
         assertEquals(OrderStatus.NEW, saved.getStatus());
-        verify(orderDao).save(order);
+        verify(orderDao).saveIfNoOpenOrder(order);
+    }
+
+    @Test
+    void createOrder_rejectsSecondOpenOrderOfUser() {
+        Order order = new Order();
+        order.setUserId(5L);
+        order.setStatus(OrderStatus.IN_PROCESS);
+        when(orderDao.saveIfNoOpenOrder(order)).thenReturn(Optional.empty());
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> service.createOrder(order));
+
+        assertTrue(e.getMessage().contains("уже есть открытый заказ"));
+        verify(orderDao, never()).save(any(Order.class));
+    }
+
+    @Test
+    void createOrder_savesClosedOrderWithoutOpenOrderCheck() {
+        Order order = new Order();
+        order.setStatus(OrderStatus.PAID);
+        when(orderDao.save(order)).thenReturn(order);
+
+        assertSame(order, service.createOrder(order));
+        verify(orderDao, never()).saveIfNoOpenOrder(any(Order.class));
     }
 
     @Test
@@ -53,4 +78,42 @@ class OrderServiceImplTest {
         verify(orderEntryDao).deleteByOrderId(10L);
         verify(orderDao).deleteById(10L);
     }
+
+    @Test
+    void getOrCreateOpenOrder_returnsConcurrentlyCreatedOrderOnConflict() {
+        Order draft = new Order();
+        draft.setUserId(5L);
+        Order concurrent = new Order();
+        concurrent.setId(42L);
+        when(orderDao.findOpenByUserId(5L)).thenReturn(Optional.empty(), Optional.of(concurrent));
+        when(orderDao.saveIfNoOpenOrder(draft)).thenReturn(Optional.empty());
+
+        Order result = service.getOrCreateOpenOrder(draft);
+
+        assertSame(concurrent, result);
+        assertEquals(OrderStatus.NEW, draft.getStatus());
+        verify(orderDao, times(2)).findOpenByUserId(5L);
+    }
+
+    @Test
+    void getOrCreateOpenOrder_whenConcurrentOrderIsAlreadyClosedThrows() {
+        Order draft = new Order();
+        draft.setUserId(5L);
+        when(orderDao.findOpenByUserId(5L)).thenReturn(Optional.empty());
+        when(orderDao.saveIfNoOpenOrder(draft)).thenReturn(Optional.empty());
+
+        assertThrows(IllegalStateException.class, () -> service.getOrCreateOpenOrder(draft));
+    }
+
+    @Test
+    void getOrCreateOpenOrder_returnsExistingOrderWithoutInsert() {
+        Order open = new Order();
+        open.setId(42L);
+        Order draft = new Order();
+        draft.setUserId(5L);
+        when(orderDao.findOpenByUserId(5L)).thenReturn(Optional.of(open));
+
+        assertSame(open, service.getOrCreateOpenOrder(draft));
+        verify(orderDao, never()).saveIfNoOpenOrder(any(Order.class));
+    }
 }
@@ -0,0 +1,80 @@
+package com.example.bookshop.service.impl;
+
+import com.example.bookshop.dao.PageResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TotalCountCacheTest {
+
+    private final TotalCountCache cache = new TotalCountCache();
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void invalidateAfterCommit_outsideTransactionClearsImmediately() {
+        cache.put("all", 25L, 0);
+
+        cache.invalidateAfterCommit();
+
+        assertNull(cache.get("all"));
+    }
+
+    @Test
+    void invalidateAfterCommit_insideTransactionWaitsForCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        cache.put("all", 25L, 0);
+
+        cache.invalidateAfterCommit();
+        // Количество, закэшированное до фиксации, сбрасывается вместе с ней
+        cache.put("all", 25L, 0);
+        assertEquals(25L, cache.get("all"));
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertNull(cache.get("all"));
+    }
+
+    @Test
+    void put_ignoresCountStartedBeforeInvalidation() {
+        cache.findPage("all", known -> {
+            // Сброс после фиксации проходит, пока читатель считает старое количество
+            cache.invalidateAll();
+            return new PageResult<>(List.of(), 25L);
+        });
+
+        assertNull(cache.get("all"));
+    }
+
+    @Test
+    void findPage_cachesOnlyComputedTotalAndKeepsExpiry() {
+        cache.findPage("all", known -> new PageResult<>(List.of(), 25L));
+        Long expiresAt = cache.expiresAt("all");
+
+        PageResult<Object> next = cache.findPage("all", known -> new PageResult<>(List.of(), known));
+
+        assertEquals(25L, next.getTotalElements());
+        assertEquals(expiresAt, cache.expiresAt("all"));
+    }
+
+    @Test
+    void count_reusesCachedTotal() {
+        AtomicInteger calls = new AtomicInteger();
+
+        cache.count("all", () -> calls.incrementAndGet() * 10L);
+        long total = cache.count("all", () -> calls.incrementAndGet() * 10L);
+
+        assertEquals(10L, total);
+        assertEquals(1, calls.get());
+    }
+}